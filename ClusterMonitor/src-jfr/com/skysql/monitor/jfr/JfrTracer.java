@@ -0,0 +1,209 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.jfr;
+
+import com.skysql.monitor.Tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Tracing.Tracer that records the spans as Java Flight Recorder events.
+ *
+ * This class is only compiled by the jfr build profile, which requires
+ * Java 8u262 or later; it is loaded by name by Tracing. While no recording
+ * enables an event, starting a span costs the allocation of the event and
+ * a check of its enabled flag, and the shared no-op span is returned.
+ */
+public class JfrTracer implements Tracing.Tracer {
+	/**
+	 * The longest statement text recorded.
+	 */
+	private static final int	MAX_SQL = 256;
+
+	@Name("com.skysql.monitor.Probe")
+	@Label("Monitor Probe")
+	@Category({"MariaDB Manager", "Monitor"})
+	@Description("The probe of a Monitor on a Node")
+	static class ProbeEvent extends Event implements Tracing.Span {
+		@Label("System ID")
+		int systemId;
+		@Label("Node ID")
+		int nodeId;
+		@Label("Monitor ID")
+		int monitorId;
+		@Label("Monitor Type")
+		String type;
+		@Label("Success")
+		boolean success;
+
+		public void end(boolean success, long rows) {
+			this.success = success;
+			commit();
+		}
+	}
+
+	@Name("com.skysql.monitor.Statement")
+	@Label("Monitored Statement")
+	@Category({"MariaDB Manager", "Monitor"})
+	@Description("A statement run on a monitored database by Node.execute or Node.fetchTable")
+	static class StatementEvent extends Event implements Tracing.Span {
+		@Label("System ID")
+		int systemId;
+		@Label("Node ID")
+		int nodeId;
+		@Label("Kind")
+		String kind;
+		@Label("SQL")
+		String sql;
+		@Label("Rows")
+		long rows;
+		@Label("Success")
+		boolean success;
+
+		public void end(boolean success, long rows) {
+			this.success = success;
+			this.rows = rows;
+			commit();
+		}
+	}
+
+	@Name("com.skysql.monitor.Connect")
+	@Label("Monitored Connect")
+	@Category({"MariaDB Manager", "Monitor"})
+	@Description("A connection to a monitored database")
+	static class ConnectEvent extends Event implements Tracing.Span {
+		@Label("System ID")
+		int systemId;
+		@Label("Node ID")
+		int nodeId;
+		@Label("Success")
+		boolean success;
+
+		public void end(boolean success, long rows) {
+			this.success = success;
+			commit();
+		}
+	}
+
+	@Name("com.skysql.monitor.StatusFetch")
+	@Label("Global Status Fetch")
+	@Category({"MariaDB Manager", "Monitor"})
+	@Description("A refresh of the global status and variables cache of a Node")
+	static class StatusFetchEvent extends Event implements Tracing.Span {
+		@Label("System ID")
+		int systemId;
+		@Label("Node ID")
+		int nodeId;
+		@Label("Rows")
+		long rows;
+		@Label("Success")
+		boolean success;
+
+		public void end(boolean success, long rows) {
+			this.success = success;
+			this.rows = rows;
+			commit();
+		}
+	}
+
+	@Name("com.skysql.monitor.Upload")
+	@Label("API Upload")
+	@Category({"MariaDB Manager", "Monitor"})
+	@Description("A bulk upload of monitor values to the API")
+	static class UploadEvent extends Event implements Tracing.Span {
+		@Label("System ID")
+		int systemId;
+		@Label("Node ID")
+		int nodeId;
+		@Label("Values")
+		long values;
+		@Label("Success")
+		boolean success;
+
+		public void end(boolean success, long rows) {
+			this.success = success;
+			commit();
+		}
+	}
+
+	public Tracing.Span probe(int systemID, int nodeID, int monitorID, String type) {
+		ProbeEvent event = new ProbeEvent();
+		if (! event.isEnabled()) return Tracing.NOOP;
+		event.systemId = systemID;
+		event.nodeId = nodeID;
+		event.monitorId = monitorID;
+		event.type = type;
+		event.begin();
+		return event;
+	}
+
+	public Tracing.Span statement(int systemID, int nodeID, String sql) {
+		StatementEvent event = new StatementEvent();
+		if (! event.isEnabled()) return Tracing.NOOP;
+		event.systemId = systemID;
+		event.nodeId = nodeID;
+		event.kind = kind(sql);
+		event.sql = sql == null || sql.length() <= MAX_SQL ? sql : sql.substring(0, MAX_SQL);
+		event.begin();
+		return event;
+	}
+
+	public Tracing.Span connect(int systemID, int nodeID) {
+		ConnectEvent event = new ConnectEvent();
+		if (! event.isEnabled()) return Tracing.NOOP;
+		event.systemId = systemID;
+		event.nodeId = nodeID;
+		event.begin();
+		return event;
+	}
+
+	public Tracing.Span statusFetch(int systemID, int nodeID) {
+		StatusFetchEvent event = new StatusFetchEvent();
+		if (! event.isEnabled()) return Tracing.NOOP;
+		event.systemId = systemID;
+		event.nodeId = nodeID;
+		event.begin();
+		return event;
+	}
+
+	public Tracing.Span upload(int systemID, int nodeID, int values) {
+		UploadEvent event = new UploadEvent();
+		if (! event.isEnabled()) return Tracing.NOOP;
+		event.systemId = systemID;
+		event.nodeId = nodeID;
+		event.values = values;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * The kind of a statement: its first word, in lower case.
+	 */
+	private static String kind(String sql) {
+		if (sql == null) return null;
+		String trimmed = sql.trim();
+		int end = 0;
+		while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) end++;
+		return trimmed.substring(0, end).toLowerCase();
+	}
+}
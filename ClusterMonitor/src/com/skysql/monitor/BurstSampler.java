@@ -0,0 +1,389 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.skysql.java.Logging;
+
+/**
+ * The burst sampling of the GlobalMonitor. Spiky status values, such as
+ * wsrep_flow_control_paused or threads_running, can be missed entirely by
+ * a probe every 30 seconds. A GlobalMonitor with the option &lt;key&gt;.burst
+ * set to a number of seconds has its status variable sampled at that
+ * period between two probes, by a single query on the Node for all the
+ * sampled variables:
+ *
+ * show global status where variable_name in (...)
+ *
+ * The samples are aggregated in place into the minimum, maximum, average
+ * and last value; the probe reports one of them, the &lt;key&gt;.burst_value
+ * option, max by default, and starts a new window. The values written to
+ * the API do not change, only what they summarise.
+ *
+ * There is one sampler per Node. The samples run over a connection of
+ * their own, see Node.getSampleLane(), on at most burst_threads threads
+ * shared by all the nodes. A sample that takes longer than burst_deadline
+ * seconds has its connection closed; the Node is not sampled while a
+ * sample is running.
+ */
+public class BurstSampler {
+	/**
+	 * The samplers, keyed by Node.
+	 */
+	private static final ConcurrentHashMap<Node, BurstSampler>	INSTANCES = new ConcurrentHashMap<Node, BurstSampler>();
+	/**
+	 * The thread starting the samples of all the nodes, started by the
+	 * first sampler scheduled. It never waits for a sample.
+	 */
+	private static final ScheduledExecutorService	SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "BurstSampler");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	/**
+	 * The longest time a sample may take, in milliseconds.
+	 */
+	private static final long						SAMPLE_DEADLINE = 1000L * Math.max(1, MonitorOptions.getInt("burst_deadline", 5));
+	/**
+	 * The threads running the samples, for all the nodes. A sample that
+	 * finds them all busy and the queue full is skipped.
+	 */
+	private static final ThreadPoolExecutor			EXECUTOR;
+	static {
+		int threads = Math.max(1, MonitorOptions.getInt("burst_threads", 4));
+		EXECUTOR = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(threads * 16), new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BurstSampler-sample");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+	/**
+	 * The cost of the samples of all the nodes.
+	 */
+	private static final QueryCost					COST = new QueryCost("burst");
+	/**
+	 * The Node sampled.
+	 */
+	private final Node							m_node;
+	/**
+	 * The windows of the sampled variables, keyed by variable name in lower case.
+	 */
+	private final LinkedHashMap<String, Window>	m_windows;
+	/**
+	 * The sampling period, the shortest one requested. Unit: milliseconds.
+	 */
+	private long								m_period;
+	/**
+	 * The query run at every sample, null until a variable is registered.
+	 */
+	private String								m_sql;
+	/**
+	 * The scheduled samples, null if not scheduled.
+	 */
+	private ScheduledFuture<?>					m_future;
+	/**
+	 * The start of the running sample, from System.nanoTime(), 0 if no
+	 * sample is running or queued.
+	 */
+	private volatile long						m_started;
+
+	/**
+	 * The statistic of a window reported to the API.
+	 */
+	public enum Statistic {
+		MIN, MAX, AVG, LAST;
+
+		/**
+		 * Parse the name of a statistic, in any case.
+		 *
+		 * @param name			the name, may be null
+		 * @param defaultValue	the statistic if the name is null or unknown
+		 * @return	the statistic
+		 */
+		public static Statistic parse(String name, Statistic defaultValue) {
+			if (name == null) {
+				return defaultValue;
+			}
+			try {
+				return valueOf(name.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				Logging.warn("Invalid burst statistic " + name + ", using " + defaultValue.name().toLowerCase());
+				return defaultValue;
+			}
+		}
+	}
+
+	/**
+	 * The samples of a variable since the last probe.
+	 */
+	public static class Window {
+		private double	m_min;
+		private double	m_max;
+		private double	m_sum;
+		private double	m_last;
+		private int		m_count;
+
+		private void add(double value) {
+			if (m_count == 0 || value < m_min) m_min = value;
+			if (m_count == 0 || value > m_max) m_max = value;
+			m_sum += value;
+			m_last = value;
+			m_count++;
+		}
+
+		private Window copy() {
+			Window copy = new Window();
+			copy.m_min = m_min;
+			copy.m_max = m_max;
+			copy.m_sum = m_sum;
+			copy.m_last = m_last;
+			copy.m_count = m_count;
+			return copy;
+		}
+
+		/** @return the number of samples */
+		public int getCount() {
+			return m_count;
+		}
+
+		/**
+		 * @param statistic	the statistic
+		 * @return	the statistic of the samples, NaN if there is none
+		 */
+		public double get(Statistic statistic) {
+			if (m_count == 0) {
+				return Double.NaN;
+			}
+			switch (statistic) {
+			case MIN:	return m_min;
+			case MAX:	return m_max;
+			case AVG:	return m_sum / m_count;
+			default:	return m_last;
+			}
+		}
+	}
+
+	/**
+	 * Private constructor, use getInstance().
+	 *
+	 * @param node	the Node to sample
+	 */
+	private BurstSampler(Node node) {
+		m_node = node;
+		m_windows = new LinkedHashMap<String, Window>();
+		m_period = 0L;
+		m_sql = null;
+		m_future = null;
+		m_started = 0L;
+	}
+
+	/**
+	 * Get the sampler of a Node, create it if necessary. A sampler of a
+	 * previous instance of the same Node is stopped.
+	 *
+	 * @param node	the Node
+	 * @return	the sampler of the Node
+	 */
+	public static synchronized BurstSampler getInstance(Node node) {
+		BurstSampler sampler = INSTANCES.get(node);
+		if (sampler != null) {
+			return sampler;
+		}
+		Iterator<Map.Entry<Node, BurstSampler>> it = INSTANCES.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Node, BurstSampler> entry = it.next();
+			if (entry.getKey().getSystemID() == node.getSystemID() && entry.getKey().getID() == node.getID()) {
+				entry.getValue().stop();
+				it.remove();
+			}
+		}
+		sampler = new BurstSampler(node);
+		INSTANCES.put(node, sampler);
+		return sampler;
+	}
+
+	/**
+	 * Stop the samplers of the nodes of a system, when its nodes are
+	 * reconfigured.
+	 *
+	 * @param systemID	the ID of the system
+	 */
+	public static synchronized void removeSystem(int systemID) {
+		Iterator<Map.Entry<Node, BurstSampler>> it = INSTANCES.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Node, BurstSampler> entry = it.next();
+			if (entry.getKey().getSystemID() == systemID) {
+				entry.getValue().stop();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Sample a status variable, in addition to the ones already sampled.
+	 *
+	 * @param name		the name of the status variable
+	 * @param period	the sampling period, in milliseconds
+	 */
+	public synchronized void register(String name, long period) {
+		String key = name.toLowerCase();
+		if (! m_windows.containsKey(key)) {
+			m_windows.put(key, new Window());
+			StringBuilder sql = new StringBuilder("show global status where variable_name in (");
+			boolean first = true;
+			for (String variable : m_windows.keySet()) {
+				if (! first) sql.append(", ");
+				sql.append('\'').append(variable.replace("'", "''")).append('\'');
+				first = false;
+			}
+			m_sql = sql.append(')').toString();
+		}
+		if (m_future == null || period < m_period) {
+			if (m_future != null) m_future.cancel(false);
+			m_period = period;
+			m_future = SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					start();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Take the samples of a variable since the last call and start a new window.
+	 *
+	 * @param name	the name of the status variable
+	 * @return	the samples, null if the variable is not sampled
+	 */
+	public synchronized Window collect(String name) {
+		Window window = m_windows.get(name.toLowerCase());
+		if (window == null) {
+			return null;
+		}
+		Window samples = window.copy();
+		window.m_count = 0;
+		window.m_sum = 0.0;
+		return samples;
+	}
+
+	/**
+	 * Start a sample, unless the previous one is still running. A sample
+	 * past the deadline has its connection closed, which ends its query;
+	 * the next sample reconnects.
+	 */
+	private void start() {
+		long started = m_started;
+		if (started != 0L) {
+			if (System.nanoTime() - started > SAMPLE_DEADLINE * 1000000L) {
+				Logging.warn("Burst sample of system " + m_node.getSystemID() + " Node " + m_node.getID()
+						+ " took more than " + SAMPLE_DEADLINE + " ms, closing its connection.");
+				Node lane = m_node.getSampleLane();
+				if (lane != null)
+					lane.close();
+			}
+			return;
+		}
+		m_started = System.nanoTime();
+		try {
+			EXECUTOR.execute(new Runnable() {
+				public void run() {
+					try {
+						sample();
+					} finally {
+						m_started = 0L;
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			m_started = 0L;
+		}
+	}
+
+	/**
+	 * Take one sample of all the variables. A Node that is not connected is
+	 * skipped, the probe cycle reconnects it.
+	 */
+	private void sample() {
+		String sql;
+		synchronized (this) {
+			sql = m_sql;
+		}
+		if (sql == null || ! m_node.isConnected()) {
+			return;
+		}
+		Node lane = m_node.getSampleLane();
+		if (lane == null) {
+			return;
+		}
+		HashMap<String, String> status;
+		QueryCost previous = QueryCost.attribute(COST);
+		try {
+			status = lane.fetchTable(sql);
+		} catch (Exception e) {
+			Logging.error("Burst sample of system " + m_node.getSystemID() + " Node " + m_node.getID() + " failed: " + e.getMessage());
+			return;
+		} finally {
+			QueryCost.attribute(previous);
+		}
+		if (status == null) {
+			return;
+		}
+		synchronized (this) {
+			for (Map.Entry<String, String> entry : status.entrySet()) {
+				Window window = m_windows.get(entry.getKey());
+				if (window == null || entry.getValue() == null) continue;
+				try {
+					window.add(Double.parseDouble(entry.getValue()));
+				} catch (NumberFormatException e) {
+					// not a number, not sampled
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop sampling the Node and close the connection of the samples.
+	 */
+	private synchronized void stop() {
+		if (m_future != null) {
+			m_future.cancel(false);
+			m_future = null;
+		}
+		m_node.closeSampleLane();
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+/**
+ * The source of time of the monitor: the time of the caches and of the
+ * Galera states, and the sleeps between the probe cycles. The system clock
+ * by default; a simulation can set a clock that moves only when told to,
+ * so that hours of monitoring run in seconds.
+ *
+ * Durations measured for the metrics use System.nanoTime directly, they
+ * measure the real cost of the work whatever the clock.
+ */
+public abstract class Clock {
+	/**
+	 * The system clock.
+	 */
+	public static final Clock		SYSTEM = new Clock() {
+		public long currentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+
+		public void sleep(long millis) throws InterruptedException {
+			Thread.sleep(millis);
+		}
+	};
+	/**
+	 * The clock in use.
+	 */
+	private static volatile Clock	m_clock = SYSTEM;
+
+	/**
+	 * @return	the clock in use
+	 */
+	public static Clock get() {
+		return m_clock;
+	}
+
+	/**
+	 * Replace the clock, for instance with a simulated one.
+	 *
+	 * @param clock	the clock, null for SYSTEM
+	 */
+	public static void set(Clock clock) {
+		m_clock = clock == null ? SYSTEM : clock;
+	}
+
+	/**
+	 * @return	the current time, in milliseconds since the epoch
+	 */
+	public abstract long currentTimeMillis();
+
+	/**
+	 * Wait for some time to pass.
+	 *
+	 * @param millis	the time to wait, in milliseconds
+	 * @throws InterruptedException	if the thread is interrupted
+	 */
+	public abstract void sleep(long millis) throws InterruptedException;
+}
@@ -24,9 +24,14 @@ package com.skysql.monitor;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 
 import com.skysql.java.AboutMe;
 import com.skysql.java.Configuration;
@@ -92,6 +97,44 @@ public class ClusterMonitor extends Thread {
 	private int					m_gcdMonitorInterval;
 	/** The system observed values, for bulk updates. */
 	private LinkedHashMap<Integer, String>	m_observedValues;
+	/**
+	 * The index, in the list of instances, of the Node that last answered
+	 * each cluster scope Monitor. The key is the Monitor ID.
+	 */
+	private HashMap<Integer, Integer>		m_clusterScopeNode;
+	/** The time of the probe cycles of the system. */
+	private LatencyHistogram				m_cycleDuration;
+	/** The probe cycles that took longer than the probe interval. */
+	private Counter							m_cycleOverruns;
+	/** The probes not run because the cycle overran, see Monitor.Priority. */
+	private Counter							m_shedProbes;
+	/** The last probe cycle took longer than the probe interval. */
+	private boolean							m_overrun;
+	/** Set by shutdown() to end the probe loop. */
+	private volatile boolean				m_shutdown;
+	/**
+	 * The latest system value of each Monitor, the inputs of the
+	 * DERIVED monitors. The key is the Monitor ID.
+	 */
+	private HashMap<Integer, Double>		m_systemValues;
+	/** Defers the monitors of the nodes that look overloaded. */
+	private ThrottleController				m_throttle;
+	/** Stretches the intervals of the monitors of the nodes over their query budget. */
+	private QueryBudget						m_budget;
+	/** The cost of the queries of the probe cycle itself. */
+	private QueryCost						m_cycleCost;
+	/** Builds the system values from the values of the nodes. */
+	private SystemAggregator				m_aggregator;
+	/**
+	 * The formats of the system values, per thread: average, above 100,
+	 * above 10 and others.
+	 */
+	private static final ThreadLocal<DecimalFormat[]>	FORMATS = new ThreadLocal<DecimalFormat[]>() {
+		protected DecimalFormat[] initialValue() {
+			return new DecimalFormat[] { new DecimalFormat("############.##"), new DecimalFormat("#############"),
+					new DecimalFormat("##.#"), new DecimalFormat("#.##") };
+		}
+	};
 	/**
 	 * The table to save all the currently thread instances, so
 	 * that they can be retrieved and terminated if no longer
@@ -100,6 +143,27 @@ public class ClusterMonitor extends Thread {
 	private static volatile LinkedHashMap<Integer, ClusterMonitor>	m_threadMap = new LinkedHashMap<Integer, ClusterMonitor>(3);
 	/** The list of systems that are currently running. */
 	private static volatile List<Integer>	m_systems_old = new ArrayList<Integer>();
+	/** The time of the MonData calls of each cycle */
+	private static final LatencyHistogram	PROVISIONED_LATENCY = Metrics.histogram("ApiLatency", "getProvisionedNodes");
+	private static final LatencyHistogram	CHANGES_LATENCY = Metrics.histogram("ApiLatency", "saveMonitorChanges");
+	private static final LatencyHistogram	BULK_LATENCY = Metrics.histogram("ApiLatency", "bulkMonitorData");
+	private static final LatencyHistogram	NODE_NAME_LATENCY = Metrics.histogram("ApiLatency", "getNodeName");
+	/** The statement that pings the nodes at the start of a cycle. */
+	private static final String		PING_SQL = "show status like 'wsrep_local_state'";
+	/** The ping read from the status snapshot of the nodes that fetch one in the cycle. */
+	private static final StatusQueryRewriter.Lookup	PING = StatusQueryRewriter.recognize(PING_SQL);
+	/** Serve the SQL monitors that read a single status value from the status snapshot. */
+	private static final boolean	STATUS_REWRITE = MonitorOptions.getBoolean("status_rewrite", true);
+	/** Orders the lists of monitors by the priority of their Monitor. */
+	private static final Comparator<List<Monitor>>	BY_PRIORITY = new Comparator<List<Monitor>>() {
+		public int compare(List<Monitor> a, List<Monitor> b) {
+			return priority(a).compareTo(priority(b));
+		}
+		
+		private Monitor.Priority priority(List<Monitor> mlist) {
+			return mlist.isEmpty() ? Monitor.Priority.NORMAL : mlist.get(0).getPriority();
+		}
+	};
 	
 	public static void main( String[] args )
 	{
@@ -125,6 +189,7 @@ public class ClusterMonitor extends Thread {
 
 		Logging.info("Starting ClusterMonitor v" + MONITOR_VERSION);
 		Logging.info("================================");
+		MetricsEndpoint.start();
 		MonData monitorData = new MonData();
 		monitorData.registerAPI(MONITOR_NAME, MONITOR_VERSION, MONITOR_RELEASE, MONITOR_DATE);
 		monitorData.registerAPI(AboutMe.NAME, AboutMe.VERSION, AboutMe.RELEASE, AboutMe.DATE);
@@ -158,13 +223,13 @@ public class ClusterMonitor extends Thread {
 				if (systems.isEmpty() && m_systems_old.isEmpty()) {
 					Logging.warn("No systems found to Monitor, waiting for systems to be deployed.");
 					try {
-						Thread.sleep(10000);
+						Clock.get().sleep(10000);
 					} catch (Exception e) {
 						Logging.error("Sleep on current thread failed: " + e.getLocalizedMessage());
 					}
 				} else {
 					try {
-						Thread.sleep(30000);
+						Clock.get().sleep(30000);
 					} catch (Exception ex) {
 						// Nothing to do
 					}
@@ -214,14 +279,38 @@ public class ClusterMonitor extends Thread {
 	 * @param verbose	boolean	Log debugging information
 	 */
 	public ClusterMonitor(int systemID, boolean verbose)
+	{
+		this(new MonData(systemID), systemID, verbose);
+	}
+	
+	/**
+	 * ClusterMonitor constructor with a given API handle, for instance a
+	 * stand-in of the API in a load test.
+	 * 
+	 * @param confdb	MonData	The API handle of the system
+	 * @param systemID	int		Unique ID of the system
+	 * @param verbose	boolean	Log debugging information
+	 */
+	public ClusterMonitor(MonData confdb, int systemID, boolean verbose)
 	{
 		m_verbose = verbose;
 		m_systemID = systemID;
-		m_confdb = new MonData(m_systemID);
+		m_confdb = confdb;
+		m_shutdown = false;
 		m_interval = 30;
 		m_gcdMonitorInterval = m_interval;
 		m_observedValues = new LinkedHashMap<Integer, String>();
+		m_clusterScopeNode = new HashMap<Integer, Integer>();
+		m_aggregator = new SystemAggregator();
+		m_systemValues = new HashMap<Integer, Double>();
+		m_throttle = new ThrottleController();
+		m_budget = new QueryBudget();
+		m_cycleCost = new QueryCost("cycle");
 		m_nodeList = new ArrayList<Node>();
+		m_cycleDuration = Metrics.histogram("CycleDuration", "system" + systemID);
+		m_cycleOverruns = Metrics.counter("CycleOverruns", "system" + systemID);
+		m_shedProbes = Metrics.counter("ShedProbes", "system" + systemID);
+		m_overrun = false;
 	}
 	
 	/**
@@ -273,7 +362,7 @@ public class ClusterMonitor extends Thread {
 					m_threadMap.get((Integer) m_systemID).interrupt();
 					return false;
 				}
-				Thread.sleep(10000);
+				Clock.get().sleep(10000);
 			} catch (Exception e) {
 				Logging.warn("Failed while waiting for nodes: " + e.getLocalizedMessage());
 			}
@@ -292,7 +381,7 @@ public class ClusterMonitor extends Thread {
 	}
 
 	/**
-	 * Run the actual monitors in a loop. This function never returns, it loops
+	 * Run the actual monitors in a loop. This function returns only after shutdown(), it loops
 	 * running each Monitor in turn, for each of the hosts, and sleeps once a complete
 	 * cycle has been completed.
 	 * 
@@ -302,101 +391,344 @@ public class ClusterMonitor extends Thread {
 	public void execute()
 	{
 		long cycleCount = -1L;
-		while (true)
+		while (! m_shutdown)
 		{
 			cycleCount++;
 			try {
-				if (m_confdb.getProvisionedNodes()) {
-					GaleraStatusMonitor.removeSystem((Integer)m_systemID);
-					if ((! refreshconfig()) || Thread.interrupted()) {
-						throw new InterruptedException();
-					}
-				} else if (m_confdb.saveMonitorChanges()) {
-					refreshMonitorList();
+				runCycle(cycleCount);
+			} catch (InterruptedException e) {
+				break;
+			}
+			try {
+				if (! m_shutdown)
+					Clock.get().sleep(m_gcdMonitorInterval * 1000L);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+		closeNodes();
+		CommandCoprocess.retain(m_systemID, Collections.<String>emptySet());
+		CrmWatcher.stopSystem(m_systemID);
+		BurstSampler.removeSystem(m_systemID);
+		LatestValues.removeSystem(m_systemID);
+	}
+	
+	/**
+	 * Run one probe cycle: refresh the configuration if it changed, ping the
+	 * nodes, run the monitors due in this cycle and upload the values. The
+	 * cycles are run every getCycleInterval() seconds by execute(); a
+	 * simulation may run them directly, moving its clock in between.
+	 * 
+	 * @param cycleCount	the number of the cycle, from 0
+	 * @throws InterruptedException	if the system has gone or the thread is interrupted
+	 */
+	public void runCycle(long cycleCount) throws InterruptedException
+	{
+		long cycleStart = System.nanoTime();
+		QueryCost.attribute(m_cycleCost);
+		try {
+			long apiStart = System.nanoTime();
+			boolean provisioned = m_confdb.getProvisionedNodes();
+			PROVISIONED_LATENCY.recordSince(apiStart);
+			if (provisioned) {
+				GaleraStatusMonitor.removeSystem((Integer)m_systemID);
+				BurstSampler.removeSystem(m_systemID);
+				if ((! refreshconfig()) || Thread.interrupted()) {
+					throw new InterruptedException();
 				}
+				Set<Integer> nodeIDs = new HashSet<Integer>();
+				for (Node n : m_nodeList)
+					nodeIDs.add(n.getID());
+				LatestValues.retainNodes(m_systemID, nodeIDs);
+			} else {
+				apiStart = System.nanoTime();
+				boolean changed = m_confdb.saveMonitorChanges();
+				CHANGES_LATENCY.recordSince(apiStart);
+				if (changed)
+					refreshMonitorList();
+			}
 
-				// Ping all the nodes before we do a real probe
-				Iterator<Node> node_it = m_nodeList.iterator();
-				while (node_it.hasNext())
-				{
-					Node n = node_it.next();
-					n.execute("show status like 'wsrep_local_state'");
+			// Ping all the nodes before we do a real probe. The nodes whose status
+			// snapshot is read in this cycle fetch it now and are pinged from it,
+			// the monitors reuse it; a Node still fetching it is not waited for
+			long time = m_gcdMonitorInterval * cycleCount;
+			Set<Node> statusDue = statusDue(time);
+			Iterator<Node> node_it = m_nodeList.iterator();
+			while (node_it.hasNext())
+			{
+				Node n = node_it.next();
+				GlobalStatusObject global = GlobalStatusObject.peekInstance(n);
+				if (global != null && global.isFetching())
+					continue;
+				if (global != null && statusDue.contains(n))
+					PING.get(global);
+				else
+					n.execute(PING_SQL);
+			}
+			m_throttle.update(m_nodeList);
+			// Iterate on the monitors
+			Iterator<List<Monitor>> mit = m_monitorList.iterator();
+			while (mit.hasNext())
+			{
+				List<Monitor> mlist = mit.next();
+				if (! mlist.isEmpty() && isShed(mlist.get(0).getPriority(), cycleStart)) {
+					for (Monitor m : mlist) {
+						if (time % m.getInterval() == 0)
+							m_shedProbes.increment();
+					}
+					continue;
 				}
-				// Iterate on the monitors
-				Iterator<List<Monitor>> mit = m_monitorList.iterator();
-				while (mit.hasNext())
+				if (! mlist.isEmpty() && mlist.get(0).isClusterScope()) {
+					if (time % mlist.get(0).getInterval() == 0)
+						probeClusterScope(mlist, time);
+					continue;
+				}
+				// Let the due monitors start their slow work for all the nodes at once
+				for (Monitor m : mlist)
 				{
-					List<Monitor> mlist = mit.next();
-					Iterator<Monitor> it = mlist.iterator();
-					double system_value = 0.0;
-					boolean validSystemProbe = false;
-					boolean systemAverage = false;
-					int id = 0;
+					if (time % m.getInterval() == 0 && ! m_throttle.isThrottled(m, time) && ! m_budget.isStretched(m, time))
+						m.prefetch();
+				}
+				Iterator<Monitor> it = mlist.iterator();
+				boolean validSystemProbe = false;
+				int id = 0;
+				m_aggregator.reset();
 
-					// Iterate on the instances of the monitors, ie probe the machines
-					while (it.hasNext())
-					{
-						Monitor m = it.next();
-						id = m.getID();
-						if ((m_gcdMonitorInterval * cycleCount) % m.getInterval() != 0) continue;
-						m.probe(m_verbose);
-						systemAverage = m.isSystemAverage();
-						if (m.hasSystemValue())
-						{
-							validSystemProbe = true;
-							String value = m.getValue();
-							try {
-								if (value != null)
-									system_value += (new Double(value)).doubleValue();
-							} catch (Exception ex) {
-								Logging.error("Exception converting probe value '" + value + "' for Monitor ID " + id);
-							}
-							if (m_verbose)
-								Logging.info("    Probe " + id + " " + m_confdb.getMonitorKey(id)
-										+ " on Node " + m_confdb.getNodeName(m.m_node.getID()) + " of system " + m.m_node.getSystemID()
-										+ " returns value " + m.getValue());
-						}
+				// Iterate on the instances of the monitors, ie probe the machines
+				while (it.hasNext())
+				{
+					Monitor m = it.next();
+					id = m.getID();
+					if (time % m.getInterval() != 0) continue;
+					if (m_throttle.isThrottled(m, time)) {
+						m_throttle.skipped(m);
+						continue;
 					}
-
-					// This Monitor is valid for the system as well
-					if (validSystemProbe)
+					if (m_budget.isStretched(m, time)) {
+						m_budget.deferred(m);
+						continue;
+					}
+					if (isStatusPending(m))
+						continue;
+					long probeStart = System.nanoTime();
+					Tracing.Span span = Tracing.probe(m);
+					m.m_responded = false;
+					QueryCost.attribute(m.getQueryCost());
+					m.probe(m_verbose);
+					QueryCost.attribute(m_cycleCost);
+					span.end(m.getValue() != null, 0);
+					m.recordProbeTime(probeStart);
+					if (m.hasSystemValue())
 					{
-						String format;
-						if (systemAverage)
-						{
-							system_value = system_value / m_nodeList.size();
-							format = "############.##";
+						validSystemProbe = true;
+						String value = m.getValue();
+						try {
+							if (value != null && m.hasResponded())
+								m_aggregator.add(Double.parseDouble(value));
+						} catch (NumberFormatException ex) {
+							Logging.error("Exception converting probe value '" + value + "' for Monitor ID " + id);
 						}
-						else if (system_value > 100)
-							format = "#############";
-						else if (system_value > 10)
-							format = "##.#";
-						else
-							format = "#.##";
-						DecimalFormat fmt = new DecimalFormat(format);
-						m_observedValues.put(id, fmt.format(system_value));
 						if (m_verbose)
-							Logging.info("        Probe system value " + system_value);
+							Logging.info("    Probe " + id + " " + m_confdb.getMonitorKey(id)
+									+ " on Node " + m_confdb.getNodeName(m.m_node.getID()) + " of system " + m.m_node.getSystemID()
+									+ " returns value " + m.getValue());
 					}
 				}
-//				if ((m_gcdMonitorInterval * cycleCount) % m_interval == 0) {
-					updateFullObservations();
-//				}
-			} catch (InterruptedException e) {
-				return;
-			} catch (Exception ex) {
-				Logging.error("Probe exception: " + ex.getMessage());
-				updateFullObservations();
-			} finally {
-				try {
-					Thread.sleep(m_gcdMonitorInterval * 1000);
-				} catch (InterruptedException e) {
-					// ignore
+
+				// This Monitor is valid for the system as well, if any Node answered
+				if (validSystemProbe && m_aggregator.getResponding() > 0)
+				{
+					SystemAggregator.Aggregation aggregation = mlist.get(0).getAggregation();
+					double system_value = m_aggregator.getValue(aggregation);
+					String formatted = formatSystemValue(system_value, aggregation == SystemAggregator.Aggregation.AVG);
+					m_observedValues.put(id, formatted);
+					m_systemValues.put(id, system_value);
+					LatestValues.put(m_systemID, 0, id, mlist.get(0).m_monitor_key, formatted);
+					if (m_verbose)
+						Logging.info("        Probe system value " + system_value + ", " + aggregation.name().toLowerCase()
+								+ " of " + m_aggregator.getResponding() + " node(s)");
+				}
+				else if (validSystemProbe)
+				{
+					m_systemValues.remove(id);
 				}
 			}
+			m_budget.update(m_monitorList, Clock.get().currentTimeMillis());
+//			if ((m_gcdMonitorInterval * cycleCount) % m_interval == 0) {
+				updateFullObservations();
+//			}
+		} catch (InterruptedException e) {
+			throw e;
+		} catch (Exception ex) {
+			Logging.error("Probe exception: " + ex.getMessage());
+			updateFullObservations();
+		} finally {
+			QueryCost.attribute(null);
+			long elapsed = System.nanoTime() - cycleStart;
+			m_cycleDuration.record(elapsed);
+			m_overrun = elapsed > m_gcdMonitorInterval * 1000000000L;
+			if (m_overrun)
+				m_cycleOverruns.increment();
 		}
 	}
 	
+	/**
+	 * Whether the monitors of a priority class are shed in this cycle. The
+	 * critical monitors always run; the normal monitors are shed once the
+	 * cycle has run longer than the probe interval; the bulk monitors as
+	 * well, and in every cycle that follows a cycle that overran.
+	 * 
+	 * @param priority		the priority of the Monitor
+	 * @param cycleStart	the start of the cycle, from System.nanoTime()
+	 * @return	true if the due probes are to be skipped
+	 */
+	private boolean isShed(Monitor.Priority priority, long cycleStart)
+	{
+		if (priority == Monitor.Priority.CRITICAL)
+			return false;
+		if (priority == Monitor.Priority.BULK && m_overrun)
+			return true;
+		return System.nanoTime() - cycleStart > m_gcdMonitorInterval * 1000000000L;
+	}
+	
+	/**
+	 * @return	the time between two probe cycles, in seconds
+	 */
+	public int getCycleInterval()
+	{
+		return m_gcdMonitorInterval;
+	}
+	
+	/**
+	 * Stop the probe loop at the end of the current cycle and close the
+	 * connections to the nodes.
+	 */
+	public void shutdown()
+	{
+		m_shutdown = true;
+		interrupt();
+	}
+	
+	/**
+	 * Probe a cluster scope Monitor. The value is the same on every Node, so
+	 * it is read once, from the Node that answered last time. If that Node
+	 * is not connected or fails to answer, the next Node is tried. The value
+	 * is the system value as it is, it is neither summed nor averaged.
+	 * Throttled nodes are skipped.
+	 * 
+	 * @param mlist		the instances of the Monitor, one per Node
+	 * @param time		the time of the cycle since the first one, in seconds
+	 */
+	private void probeClusterScope(List<Monitor> mlist, long time) {
+		int id = mlist.get(0).getID();
+		Integer last = m_clusterScopeNode.get(id);
+		int start = (last == null || last >= mlist.size()) ? 0 : last;
+		boolean throttled = false;
+		for (int i = 0; i < mlist.size(); i++) {
+			int index = (start + i) % mlist.size();
+			Monitor m = mlist.get(index);
+			if (! m.m_node.isConnected() || isStatusPending(m))
+				continue;
+			if (m_throttle.isThrottled(m, time)) {
+				throttled = true;
+				continue;
+			}
+			long probeStart = System.nanoTime();
+			Tracing.Span span = Tracing.probe(m);
+			m.m_responded = false;
+			QueryCost.attribute(m.getQueryCost());
+			m.probe(m_verbose);
+			QueryCost.attribute(m_cycleCost);
+			span.end(m.getValue() != null, 0);
+			m.recordProbeTime(probeStart);
+			String value = m.getValue();
+			if (value == null || ! m.hasResponded() || ! m.m_node.isConnected())
+				continue;
+			m_clusterScopeNode.put(id, index);
+			try {
+				double system_value = Double.parseDouble(value);
+				String formatted = formatSystemValue(system_value,
+						m.getAggregation() == SystemAggregator.Aggregation.AVG);
+				m_observedValues.put(id, formatted);
+				m_systemValues.put(id, system_value);
+				LatestValues.put(m_systemID, 0, id, m.m_monitor_key, formatted);
+			} catch (Exception ex) {
+				Logging.error("Exception converting probe value '" + value + "' for Monitor ID " + id);
+			}
+			if (m_verbose)
+				Logging.info("    Probe " + id + " " + m_confdb.getMonitorKey(id)
+						+ " on Node " + m_confdb.getNodeName(m.m_node.getID()) + " of system " + m_systemID
+						+ " returns cluster value " + value);
+			return;
+		}
+		if (throttled) {
+			m_throttle.skipped(mlist.get(0));
+		} else {
+			m_systemValues.remove(id);
+			Logging.warn("No Node of system " + m_systemID + " answered cluster Monitor " + id);
+		}
+	}
+	
+	/**
+	 * The nodes with a Monitor due in a cycle that reads their status
+	 * snapshot. A cluster scope Monitor reads a single Node, it is not
+	 * counted.
+	 * 
+	 * @param time	the time of the cycle since the first one, in seconds
+	 * @return	the nodes
+	 */
+	private Set<Node> statusDue(long time) {
+		Set<Node> nodes = new HashSet<Node>();
+		for (List<Monitor> mlist : m_monitorList) {
+			if (mlist.isEmpty() || mlist.get(0).isClusterScope())
+				continue;
+			for (Monitor m : mlist) {
+				if (m.readsStatusSnapshot() && time % m.getInterval() == 0)
+					nodes.add(m.m_node);
+			}
+		}
+		return nodes;
+	}
+	
+	/**
+	 * Whether a Monitor reads the status snapshot of a Node whose status
+	 * is still being fetched, for instance by a Galera snapshot that went
+	 * past its deadline. Reading it would hold up the cycle until the
+	 * Node answers, the probe is skipped instead.
+	 */
+	private boolean isStatusPending(Monitor m) {
+		if (! m.readsStatusSnapshot())
+			return false;
+		GlobalStatusObject global = GlobalStatusObject.peekInstance(m.m_node);
+		if (global == null || ! global.isFetching())
+			return false;
+		if (m_verbose)
+			Logging.info("    Probe " + m.getID() + " on Node " + m.m_node.getID() + " of system " + m_systemID
+					+ " skipped, the status of the Node is still being fetched");
+		return true;
+	}
+	
+	/**
+	 * Format a system value. Averages keep two decimals, otherwise the
+	 * number of decimals decreases with the magnitude of the value. The
+	 * formats are cached per thread, DecimalFormat is not thread safe.
+	 * 
+	 * @param value		the system value
+	 * @param average	true if the value is an average
+	 * @return	the formatted value
+	 */
+	public static String formatSystemValue(double value, boolean average) {
+		DecimalFormat[] formats = FORMATS.get();
+		if (average)
+			return formats[0].format(value);
+		else if (value > 100)
+			return formats[1].format(value);
+		else if (value > 10)
+			return formats[2].format(value);
+		else
+			return formats[3].format(value);
+	}
+	
 	/**
 	 * Send all the buffered observations about the system to the API in one shot.
 	 * 
@@ -411,7 +743,16 @@ public class ClusterMonitor extends Thread {
 			values.add(m_observedValues.get(key));
 		}
 		m_observedValues.clear();
-		return m_confdb.bulkMonitorData(monitorIDs, m_systemID, 0, values);
+		long start = System.nanoTime();
+		Tracing.Span span = Tracing.upload(m_systemID, 0, values.size());
+		boolean success = false;
+		try {
+			success = m_confdb.bulkMonitorData(monitorIDs, m_systemID, 0, values);
+			return success;
+		} finally {
+			BULK_LATENCY.recordSince(start);
+			span.end(success, values.size());
+		}
 	}
 	
 	/**
@@ -426,8 +767,12 @@ public class ClusterMonitor extends Thread {
 		while (node_it.hasNext())
 		{
 			Node n = node_it.next();
-			if(n.updateObservations())
-				Logging.info("Node " + m_confdb.getNodeName(n.getID()) + " of system " + n.getSystemID() + " monitor data updated.");
+			if(n.updateObservations()) {
+				long start = System.nanoTime();
+				String name = m_confdb.getNodeName(n.getID());
+				NODE_NAME_LATENCY.recordSince(start);
+				Logging.info("Node " + name + " of system " + n.getSystemID() + " monitor data updated.");
+			}
 		}
 	}
 	
@@ -439,6 +784,8 @@ public class ClusterMonitor extends Thread {
 		while (node_it.hasNext()) {
 			Node n = node_it.next();
 			n.close();
+			n.closeSlowLane();
+			n.closeSampleLane();
 		}
 	}
 	
@@ -470,12 +817,25 @@ public class ClusterMonitor extends Thread {
 		if (m_verbose)
 			Logging.info(monitorIDList.size() + " distinct Monitor(s)");
 		m_interval = 30;
+		CrmWatcher.stopSystem(m_systemID);
 		m_monitorList = new ArrayList<List<Monitor>>();
+		m_systemValues.clear();
+		m_budget.reset();
+		LinkedHashMap<Integer, DerivedExpression> derived = new LinkedHashMap<Integer, DerivedExpression>();
+		Set<String> persistent = new HashSet<String>();
 		Iterator<Integer> it = monitorIDList.iterator();
 		while (it.hasNext())
 		{
 			int monid = it.next().intValue();
 			String type = m_confdb.getMonitorType(monid);
+			if (type != null && type.equals("DERIVED")) {
+				try {
+					derived.put(monid, new DerivedExpression(m_confdb.getMonitorSQL(monid)));
+				} catch (IllegalArgumentException ex) {
+					Logging.error("Derived Monitor " + monid + " disabled: " + ex.getMessage());
+				}
+				continue;
+			}
 			Boolean monIsDelta = m_confdb.isMonitorDelta(monid);
 			List<Monitor> mlist = new ArrayList<Monitor>();
 			m_monitorList.add(mlist);
@@ -485,10 +845,14 @@ public class ClusterMonitor extends Thread {
 				Node n = node_it.next();
 				if (type == null || type.equals("SQL"))
 				{
-					if (monIsDelta) {
-						mlist.add(new DeltaMonitor(m_confdb, monid, n));
+					if (MonitorOptions.getBoolean(m_confdb.getMonitorKey(monid) + ".slow", false)) {
+						mlist.add(new SlowSqlMonitor(m_confdb, monid, n));
 					} else {
-						mlist.add(new Monitor(m_confdb, monid, n));
+						Monitor m = monIsDelta ? new DeltaMonitor(m_confdb, monid, n) : new Monitor(m_confdb, monid, n);
+						if (STATUS_REWRITE && m.rewriteStatusQuery() && mlist.isEmpty())
+							Logging.info("Monitor " + monid + " " + m.m_monitor_key + " is served from the status snapshot, "
+									+ m.m_lookup);
+						mlist.add(m);
 					}
 				}
 				else if (type.equals("CRM"))
@@ -501,7 +865,10 @@ public class ClusterMonitor extends Thread {
 				}
 				else if (type.equals("COMMAND"))
 				{
-					mlist.add(new commandMonitor(m_confdb, monid, n));
+					commandMonitor m = new commandMonitor(m_confdb, monid, n);
+					if (m.getPersistentCommand() != null)
+						persistent.add(m.getPersistentCommand());
+					mlist.add(m);
 				}
 				else if (type.equals("SQL_NODE_STATE"))
 				{
@@ -526,6 +893,110 @@ public class ClusterMonitor extends Thread {
 				// m_gcdMonitorInterval = m_interval;   // uncomment this line to disable polling functionality
 			}
 		}
+		CommandCoprocess.retain(m_systemID, persistent);
+		if (! derived.isEmpty())
+			addDerivedMonitors(derived);
+		// The critical monitors first; the sort is stable and a derived Monitor
+		// is in the lowest class of its inputs, so it still comes after them
+		Collections.sort(m_monitorList, BY_PRIORITY);
+	}
+	
+	/**
+	 * Add the DERIVED monitors at the end of the list of monitors, so that
+	 * they are probed after their inputs. A derived Monitor that reads
+	 * another one comes after it; the monitors that form a cycle, or that
+	 * depend on a Monitor in a cycle, are disabled. A derived Monitor takes
+	 * the lowest priority class of its own and of its inputs, so that the
+	 * sort by priority keeps it after them.
+	 * 
+	 * @param derived	the compiled expressions, keyed by Monitor ID
+	 */
+	private void addDerivedMonitors(LinkedHashMap<Integer, DerivedExpression> derived) {
+		// The instances of each Monitor, keyed by Monitor ID
+		HashMap<Integer, List<Monitor>> byID = new HashMap<Integer, List<Monitor>>();
+		for (List<Monitor> mlist : m_monitorList) {
+			if (! mlist.isEmpty())
+				byID.put(mlist.get(0).getID(), mlist);
+		}
+		// Kahn's algorithm on the dependencies between derived monitors
+		HashMap<Integer, Integer> pending = new HashMap<Integer, Integer>();
+		HashMap<Integer, List<Integer>> dependents = new HashMap<Integer, List<Integer>>();
+		List<Integer> ready = new ArrayList<Integer>();
+		for (Integer monid : derived.keySet()) {
+			DerivedExpression expression = derived.get(monid);
+			List<Integer> inputs = new ArrayList<Integer>(expression.getNodeInputs());
+			inputs.addAll(expression.getSystemInputs());
+			int count = 0;
+			for (Integer input : inputs) {
+				if (derived.containsKey(input)) {
+					List<Integer> list = dependents.get(input);
+					if (list == null) {
+						list = new ArrayList<Integer>();
+						dependents.put(input, list);
+					}
+					list.add(monid);
+					count++;
+				} else if (! byID.containsKey(input)) {
+					Logging.warn("Derived Monitor " + monid + " reads Monitor " + input + ", not configured for system " + m_systemID);
+				}
+			}
+			pending.put(monid, count);
+			if (count == 0)
+				ready.add(monid);
+		}
+		for (int i = 0; i < ready.size(); i++) {
+			int monid = ready.get(i);
+			List<Integer> list = dependents.get(monid);
+			if (list == null)
+				continue;
+			for (Integer dependent : list) {
+				int count = pending.get(dependent) - 1;
+				pending.put(dependent, count);
+				if (count == 0)
+					ready.add(dependent);
+			}
+		}
+		if (ready.size() < derived.size()) {
+			for (Integer monid : derived.keySet()) {
+				if (pending.get(monid) > 0)
+					Logging.error("Derived Monitor " + monid + " disabled: its inputs form a cycle");
+			}
+		}
+		// Create the instances, bound to the inputs on the same Node
+		for (Integer monid : ready) {
+			DerivedExpression expression = derived.get(monid);
+			List<Monitor> mlist = new ArrayList<Monitor>();
+			for (Node n : m_nodeList) {
+				HashMap<Integer, Monitor> nodeInputs = new HashMap<Integer, Monitor>();
+				for (Integer input : expression.getNodeInputs()) {
+					List<Monitor> inputs = byID.get(input);
+					if (inputs == null)
+						continue;
+					for (Monitor m : inputs) {
+						if (m.m_node == n)
+							nodeInputs.put(input, m);
+					}
+				}
+				mlist.add(new DerivedMonitor(m_confdb, monid, n, expression, nodeInputs, m_systemValues));
+			}
+			if (mlist.isEmpty())
+				continue;
+			Monitor.Priority priority = mlist.get(0).getPriority();
+			List<Integer> inputs = new ArrayList<Integer>(expression.getNodeInputs());
+			inputs.addAll(expression.getSystemInputs());
+			for (Integer input : inputs) {
+				List<Monitor> instances = byID.get(input);
+				if (instances != null && ! instances.isEmpty()
+						&& instances.get(0).getPriority().compareTo(priority) > 0)
+					priority = instances.get(0).getPriority();
+			}
+			for (Monitor m : mlist)
+				m.m_priority = priority;
+			m_monitorList.add(mlist);
+			byID.put(monid, mlist);
+			m_gcdMonitorInterval = BigInteger.valueOf(m_gcdMonitorInterval)
+			.gcd(BigInteger.valueOf(mlist.get(0).m_interval)).intValue();
+		}
 	}
 
 }
@@ -0,0 +1,300 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.skysql.java.Logging;
+
+/**
+ * A long running helper process shared by all the commandMonitor instances
+ * with the same command. Rather than forking the command for every Node on
+ * every probe, the helper is started once and receives one request line per
+ * Node on its standard input:
+ *
+ * &lt;system ID&gt; &lt;Node ID&gt; &lt;Node address&gt;
+ *
+ * and answers each request with a single line on its standard output.
+ *
+ * A request that is not answered within its timeout kills the helper. A
+ * helper that exits, or is killed, is started again on the next request,
+ * no sooner than RESTART_DELAY after the previous start.
+ *
+ * A helper is shared by the systems whose monitors run its command. When
+ * the monitors of a system are configured again, see retain(), the system
+ * lets go of the helpers it no longer uses; a helper no system uses is
+ * stopped.
+ */
+public class CommandCoprocess {
+	/**
+	 * The helpers, keyed by command. Guarded by itself.
+	 */
+	private static final HashMap<String, CommandCoprocess>	COPROCESSES = new HashMap<String, CommandCoprocess>();
+	/**
+	 * The minimum delay between two starts of the helper. Unit: milliseconds.
+	 */
+	private static final int					RESTART_DELAY = 5000;
+	/**
+	 * Marks the end of the output of the helper in the queue of lines.
+	 */
+	private static final String					EOF = new String("EOF");
+	/**
+	 * The command line of the helper.
+	 */
+	private final String						m_command;
+	/**
+	 * The running helper, null if not running.
+	 */
+	private Process								m_process;
+	/**
+	 * The standard input of the helper.
+	 */
+	private Writer								m_stdin;
+	/**
+	 * The lines written by the helper, read by a separate thread so that
+	 * the requests can time out.
+	 */
+	private LinkedBlockingQueue<String>			m_lines;
+	/**
+	 * The time of the last start of the helper.
+	 */
+	private long								m_started;
+	/**
+	 * The systems using the helper. Guarded by COPROCESSES.
+	 */
+	private final Set<Integer>					m_systems;
+	/**
+	 * Set once the helper is no longer used, it is not started again.
+	 */
+	private boolean								m_closed;
+
+	/**
+	 * Constructor for the helper, the process is started on the first request.
+	 *
+	 * @param command	the command line of the helper
+	 */
+	private CommandCoprocess(String command) {
+		m_command = command;
+		m_process = null;
+		m_started = 0L;
+		m_systems = new HashSet<Integer>();
+		m_closed = false;
+	}
+
+	/**
+	 * Get the helper for a command, create it if necessary.
+	 *
+	 * @param command	the command line of the helper
+	 * @param systemID	the system using the helper
+	 * @return	the helper
+	 */
+	public static CommandCoprocess getInstance(String command, int systemID) {
+		synchronized (COPROCESSES) {
+			CommandCoprocess coprocess = COPROCESSES.get(command);
+			if (coprocess == null) {
+				coprocess = new CommandCoprocess(command);
+				COPROCESSES.put(command, coprocess);
+			}
+			coprocess.m_systems.add(systemID);
+			return coprocess;
+		}
+	}
+
+	/**
+	 * Let a system go of the helpers whose command it no longer runs, after
+	 * its monitors have been configured again, or of all of them when the
+	 * system is no longer monitored. The helpers no system uses any more
+	 * are stopped.
+	 *
+	 * @param systemID	the ID of the system
+	 * @param commands	the commands of the persistent monitors of the system
+	 */
+	public static void retain(int systemID, Set<String> commands) {
+		List<CommandCoprocess> unused = new ArrayList<CommandCoprocess>();
+		synchronized (COPROCESSES) {
+			Iterator<Map.Entry<String, CommandCoprocess>> it = COPROCESSES.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, CommandCoprocess> entry = it.next();
+				if (commands.contains(entry.getKey())) {
+					continue;
+				}
+				CommandCoprocess coprocess = entry.getValue();
+				if (coprocess.m_systems.remove(systemID) && coprocess.m_systems.isEmpty()) {
+					it.remove();
+					unused.add(coprocess);
+				}
+			}
+		}
+		for (CommandCoprocess coprocess : unused) {
+			coprocess.close();
+		}
+	}
+
+	/**
+	 * Stop the helper for good.
+	 */
+	private synchronized void close() {
+		m_closed = true;
+		if (m_process != null) {
+			Logging.info("Stop command " + m_command + ", no longer used.");
+			stop();
+		}
+	}
+
+	/**
+	 * Send a request to the helper and wait for its answer.
+	 *
+	 * @param request	the request line
+	 * @param timeout	the time to wait for the answer, in milliseconds
+	 * @return	the answer, null if the helper could not answer in time
+	 */
+	public synchronized String request(String request, long timeout) {
+		if (m_closed || (! isRunning() && ! start())) {
+			return null;
+		}
+		m_lines.clear();
+		try {
+			m_stdin.write(request);
+			m_stdin.write('\n');
+			m_stdin.flush();
+			String line = m_lines.poll(timeout, TimeUnit.MILLISECONDS);
+			if (line == null) {
+				Logging.error("Command " + m_command + " did not answer in " + timeout + " ms, restarting it.");
+				stop();
+			} else if (line == EOF) {
+				Logging.error("Command " + m_command + " exited, restarting it.");
+				stop();
+				line = null;
+			}
+			return line;
+		} catch (Exception e) {
+			Logging.error("Command " + m_command + " failed: " + e.getMessage());
+			stop();
+			return null;
+		}
+	}
+
+	/**
+	 * Whether the helper process is alive.
+	 */
+	private boolean isRunning() {
+		if (m_process == null) {
+			return false;
+		}
+		try {
+			m_process.exitValue();
+			stop();
+			return false;
+		} catch (IllegalThreadStateException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Start the helper process and its reader thread.
+	 *
+	 * @return	true if started
+	 */
+	private boolean start() {
+		long now = System.currentTimeMillis();
+		if (now - m_started < RESTART_DELAY) {
+			return false;
+		}
+		m_started = now;
+		try {
+			m_process = ProcessExecutor.start(m_command);
+		} catch (Exception e) {
+			Logging.error("Cannot start command " + m_command + ": " + e.getMessage());
+			m_process = null;
+			return false;
+		}
+		m_stdin = new OutputStreamWriter(m_process.getOutputStream());
+		final LinkedBlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+		final InputStream stdout = m_process.getInputStream();
+		m_lines = lines;
+		Thread reader = new Thread("CommandCoprocess-reader") {
+			public void run() {
+				try {
+					BufferedReader in = new BufferedReader(new InputStreamReader(stdout));
+					String line;
+					while ((line = in.readLine()) != null) {
+						lines.offer(line.trim());
+					}
+				} catch (Exception e) {
+					// the process has been stopped
+				}
+				lines.offer(EOF);
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+		final InputStream stderr = m_process.getErrorStream();
+		Thread errors = new Thread("CommandCoprocess-stderr") {
+			public void run() {
+				try {
+					BufferedReader in = new BufferedReader(new InputStreamReader(stderr));
+					String line;
+					while ((line = in.readLine()) != null) {
+						Logging.warn(m_command + ": " + line);
+					}
+				} catch (Exception e) {
+					// the process has been stopped
+				}
+			}
+		};
+		errors.setDaemon(true);
+		errors.start();
+		Logging.info("Started command " + m_command);
+		return true;
+	}
+
+	/**
+	 * Kill the helper process, with its children, and reap it. The wait is
+	 * bounded: a helper that ignores SIGTERM is killed with SIGKILL, and
+	 * one that still has not exited is left behind rather than hanging
+	 * the probe thread.
+	 */
+	private void stop() {
+		if (m_process == null) {
+			return;
+		}
+		try {
+			m_stdin.close();
+		} catch (Exception e) {
+			// the process is being killed
+		}
+		if (! ProcessExecutor.stop(m_process)) {
+			Logging.error("Command " + m_command + " did not exit after SIGKILL, abandoned.");
+		}
+		m_process = null;
+	}
+}
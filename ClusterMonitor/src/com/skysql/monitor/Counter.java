@@ -0,0 +1,62 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter of events, such as connect failures or cycle overruns,
+ * registered with JMX by Metrics.
+ */
+public class Counter implements CounterMBean {
+	/**
+	 * The value of the counter.
+	 */
+	private final AtomicLong	m_value = new AtomicLong();
+
+	/**
+	 * Count one event.
+	 */
+	public void increment() {
+		m_value.incrementAndGet();
+	}
+
+	/**
+	 * Count several events.
+	 *
+	 * @param delta	the number of events
+	 */
+	public void add(long delta) {
+		m_value.addAndGet(delta);
+	}
+
+	/**
+	 * @see com.skysql.monitor.CounterMBean#getValue()
+	 */
+	public long getValue() {
+		return m_value.get();
+	}
+
+	/**
+	 * @see com.skysql.monitor.CounterMBean#reset()
+	 */
+	public void reset() {
+		m_value.set(0L);
+	}
+}
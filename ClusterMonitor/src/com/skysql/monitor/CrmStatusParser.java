@@ -0,0 +1,227 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.skysql.java.Logging;
+
+/**
+ * Parsers for the output of pacemaker, used by the crmMonitor.
+ *
+ * Two formats are understood: the text output of crm status bynode, see
+ * crmMonitor, and the XML output of crm_mon --as-xml. Both parsers return
+ * the CRM state of the MySQL resource of each Node, keyed by Node number.
+ * When several lines refer to the same Node, the last one wins, so that the
+ * caller writes the state of each Node once.
+ *
+ * The parsers work on streams, so they can be fed recorded output as well
+ * as the output of a live command.
+ */
+public class CrmStatusParser {
+	/**
+	 * The name of the MySQL resource.
+	 */
+	private static final String		RESOURCE = "resMySQL";
+	/**
+	 * Separator of the words of a resource line.
+	 */
+	private static final Pattern	WHITESPACE = Pattern.compile("\\s");
+	/**
+	 * The closing tag of a crm_mon XML document.
+	 */
+	public static final String		XML_END = "</crm_mon>";
+
+	/**
+	 * Whether the command produces XML output.
+	 *
+	 * @param command	the crm command line
+	 * @return	true if the command is run with --as-xml or -X
+	 */
+	public static boolean isXmlCommand(String command) {
+		if (command == null) {
+			return false;
+		}
+		for (String arg : WHITESPACE.split(command.trim())) {
+			if (arg.equals("--as-xml") || arg.equals("-X")) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Parse the text output of crm status bynode.
+	 *
+	 * @param in		the output of the command
+	 * @param verbose	log each line and the decoded states
+	 * @return	the state of each Node
+	 * @throws IOException	if the output cannot be read
+	 */
+	public static LinkedHashMap<Integer, String> parseText(BufferedReader in, boolean verbose) throws IOException {
+		LinkedHashMap<Integer, String> states = new LinkedHashMap<Integer, String>();
+		String line;
+		int nodeNo = -1;
+		boolean failures = false;
+		while ((line = in.readLine()) != null)
+		{
+			if (verbose)
+				Logging.info(line);
+			if (line.startsWith("Node"))
+			{
+				int endIndex = line.indexOf(':');
+				if (endIndex > 4) {
+					nodeNo = nodeNumber(line.substring(4, endIndex));
+					if (verbose)
+						Logging.info(">>> Node is: " + nodeNo);
+					if (line.indexOf("OFFLINE") >= 0)
+						put(states, nodeNo, "OFFLINE");
+				}
+			}
+			if (line.indexOf(RESOURCE) >= 0)
+			{
+				String state;
+				if (failures)
+				{
+					if (line.indexOf("demote") >= 0)	// Ignore failed demotes
+						continue;
+					if (line.indexOf("Monitor") >= 0)	// Ignore failed monitors
+						continue;
+					int beginIndex = line.lastIndexOf(": ");
+					state = line.substring(beginIndex + 2);
+					beginIndex = line.indexOf("Node=Node");
+					int endIndex = line.indexOf(',');
+					if (beginIndex < 0 || endIndex < beginIndex)
+						continue;
+					nodeNo = nodeNumber(line.substring(beginIndex + 9, endIndex));
+				}
+				else
+				{
+					String	words[] = WHITESPACE.split(line.trim());
+					state = words[words.length - 1];
+				}
+				if (verbose)
+					Logging.info(">>> Node is: " + nodeNo + ". State is: " + state);
+				put(states, nodeNo, state);
+			}
+			if (line.equals("Failed actions:"))
+			{
+				failures = true;
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Parse a single XML document produced by crm_mon --as-xml.
+	 *
+	 * An offline Node is OFFLINE, the state of a Node running the MySQL
+	 * resource is the role of the resource, and a failed action on the
+	 * resource, other than demote and monitor, gives its exit status.
+	 *
+	 * @param in	the document
+	 * @return	the state of each Node
+	 * @throws Exception	if the document cannot be parsed
+	 */
+	public static LinkedHashMap<Integer, String> parseXml(InputStream in) throws Exception {
+		final LinkedHashMap<Integer, String> states = new LinkedHashMap<Integer, String>();
+		SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+		parser.parse(in, new DefaultHandler() {
+			/** The section of the document being parsed */
+			private String	m_section = null;
+			/** The role of the MySQL resource being parsed, null if another resource */
+			private String	m_role = null;
+
+			public void startElement(String uri, String localName, String qName, Attributes attrs) {
+				if (qName.equals("nodes") || qName.equals("resources") || qName.equals("failures")) {
+					m_section = qName;
+				} else if (qName.equals("node") && "nodes".equals(m_section)) {
+					if ("false".equals(attrs.getValue("online")))
+						put(states, nodeNumber(attrs.getValue("name")), "OFFLINE");
+				} else if (qName.equals("resource") && "resources".equals(m_section)) {
+					String id = attrs.getValue("id");
+					m_role = (id != null && id.startsWith(RESOURCE)) ? attrs.getValue("role") : null;
+				} else if (qName.equals("node") && m_role != null) {
+					put(states, nodeNumber(attrs.getValue("name")), m_role);
+				} else if (qName.equals("failure") && "failures".equals(m_section)) {
+					String key = attrs.getValue("op_key");
+					String task = attrs.getValue("task");
+					if (key == null || ! key.startsWith(RESOURCE)) return;
+					if (task != null && (task.equals("demote") || task.equals("monitor"))) return;
+					String status = attrs.getValue("exitstatus");
+					if (status != null)
+						put(states, nodeNumber(attrs.getValue("node")), status);
+				}
+			}
+
+			public void endElement(String uri, String localName, String qName) {
+				if (qName.equals("resource")) {
+					m_role = null;
+				} else if (qName.equals(m_section)) {
+					m_section = null;
+				}
+			}
+		});
+		return states;
+	}
+
+	/**
+	 * Decode the Node number from a Node name such as node2 or Node2, the
+	 * number is made of the trailing digits.
+	 *
+	 * @param name	the Node name
+	 * @return	the Node number, -1 if the name does not end with a number
+	 */
+	public static int nodeNumber(String name) {
+		if (name == null) {
+			return -1;
+		}
+		String trimmed = name.trim();
+		int end = trimmed.length();
+		int begin = end;
+		while (begin > 0 && Character.isDigit(trimmed.charAt(begin - 1))) {
+			begin--;
+		}
+		if (begin == end) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(trimmed.substring(begin, end));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Record the state of a Node, the last state of a Node wins.
+	 */
+	private static void put(LinkedHashMap<Integer, String> states, int nodeNo, String state) {
+		if (nodeNo < 0 || state == null) return;
+		states.remove(nodeNo);
+		states.put(nodeNo, state.trim());
+	}
+}
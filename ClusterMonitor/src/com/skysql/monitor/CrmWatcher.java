@@ -0,0 +1,258 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.skysql.java.Logging;
+import com.skysql.java.MonData;
+
+/**
+ * The watch mode of the crmMonitor. A single long running child process
+ * emits a new crm_mon XML document every time the state of the cluster
+ * changes, for instance a wrapper around crm_mon --as-xml. Each document
+ * is parsed as it arrives and only the Node states that changed are
+ * written to the API.
+ *
+ * If the child process exits it is started again after RESTART_DELAY.
+ * There is one watcher per system and Monitor. The watchers of a system
+ * are stopped, and their child processes killed, when its monitors are
+ * configured again and when the system is no longer monitored.
+ */
+public class CrmWatcher extends Thread {
+	/**
+	 * The running watchers, keyed by system ID and Monitor ID.
+	 */
+	private static final ConcurrentHashMap<String, CrmWatcher>	WATCHERS = new ConcurrentHashMap<String, CrmWatcher>();
+	/**
+	 * The delay before the child process is started again. Unit: milliseconds.
+	 */
+	private static final int				RESTART_DELAY = 5000;
+	/**
+	 * The API handle of the watcher, separate from the one of the
+	 * system thread.
+	 */
+	private final MonData					m_confdb;
+	/**
+	 * The ID of the Monitor the states are recorded for.
+	 */
+	private final int						m_monitorID;
+	/**
+	 * The command to run.
+	 */
+	private final String					m_command;
+	/**
+	 * Log each document.
+	 */
+	private final boolean					m_verbose;
+	/**
+	 * The last state written for each Node.
+	 */
+	private final Map<Integer, String>		m_states;
+	/**
+	 * The running child process, null between two runs.
+	 */
+	private volatile Process				m_process;
+	/**
+	 * Set by stop(), the watcher neither restarts the child process nor
+	 * writes any state once stopped.
+	 */
+	private volatile boolean				m_stopped;
+
+	/**
+	 * Constructor for the watcher.
+	 *
+	 * @param confdb		the API handle of the watcher
+	 * @param systemID		the ID of the system
+	 * @param monitorID		the ID of the Monitor
+	 * @param command		the command to run
+	 * @param verbose		log each document
+	 */
+	private CrmWatcher(MonData confdb, int systemID, int monitorID, String command, boolean verbose) {
+		super("CrmWatcher-" + systemID + "-" + monitorID);
+		setDaemon(true);
+		m_confdb = confdb;
+		m_monitorID = monitorID;
+		m_command = command;
+		m_verbose = verbose;
+		m_states = new LinkedHashMap<Integer, String>();
+		m_stopped = false;
+	}
+
+	/**
+	 * Start the watcher of a system and Monitor, unless it is running.
+	 *
+	 * @param systemID		the ID of the system
+	 * @param monitorID		the ID of the Monitor
+	 * @param command		the command to run
+	 * @param verbose		log each document
+	 */
+	public static void watch(int systemID, int monitorID, String command, boolean verbose) {
+		watch(null, systemID, monitorID, command, verbose);
+	}
+
+	/**
+	 * Start the watcher of a system and Monitor, unless it is running. A
+	 * watcher running another command is stopped and replaced.
+	 *
+	 * @param confdb		the API handle the watcher writes the states
+	 * 						with, null for a handle of its own
+	 * @param systemID		the ID of the system
+	 * @param monitorID		the ID of the Monitor
+	 * @param command		the command to run
+	 * @param verbose		log each document
+	 */
+	public static void watch(MonData confdb, int systemID, int monitorID, String command, boolean verbose) {
+		String key = systemID + ":" + monitorID;
+		CrmWatcher watcher = WATCHERS.get(key);
+		if (watcher != null && watcher.isAlive() && ! watcher.m_stopped && watcher.m_command.equals(command)) {
+			return;
+		}
+		CrmWatcher created = new CrmWatcher(confdb != null ? confdb : new MonData(systemID),
+				systemID, monitorID, command, verbose);
+		if (watcher == null ? WATCHERS.putIfAbsent(key, created) == null : WATCHERS.replace(key, watcher, created)) {
+			if (watcher != null) watcher.stopWatching();
+			created.start();
+		}
+	}
+
+	/**
+	 * Stop the watchers of a system, and kill their child processes, when
+	 * its monitors are configured again or the system is no longer
+	 * monitored. A crmMonitor still in watch mode starts a new one on its
+	 * next probe.
+	 *
+	 * @param systemID		the ID of the system
+	 */
+	public static void stopSystem(int systemID) {
+		String prefix = systemID + ":";
+		for (Map.Entry<String, CrmWatcher> entry : WATCHERS.entrySet()) {
+			if (entry.getKey().startsWith(prefix) && WATCHERS.remove(entry.getKey(), entry.getValue())) {
+				entry.getValue().stopWatching();
+			}
+		}
+	}
+
+	/**
+	 * Stop the watcher: kill the child process and its children, which ends
+	 * the read of its output, and end the thread instead of restarting the
+	 * command. The wait for the child is bounded, see ProcessExecutor.stop().
+	 */
+	public void stopWatching() {
+		m_stopped = true;
+		interrupt();
+		Process process = m_process;
+		if (process != null && ! ProcessExecutor.stop(process)) {
+			Logging.error("CRM watch command " + m_command + " did not exit after SIGKILL, abandoned.");
+		}
+	}
+
+	/**
+	 * Run the child process, start it again when it exits.
+	 *
+	 * @see java.lang.Thread#run()
+	 */
+	public void run() {
+		while (! m_stopped) {
+			Process process = null;
+			try {
+				Logging.info("Start watching " + m_command);
+				process = ProcessExecutor.start(m_command);
+				m_process = process;
+				if (m_stopped) break;
+				process.getOutputStream().close();
+				consume(new BufferedReader(new InputStreamReader(process.getInputStream())));
+				if (m_stopped) break;
+				Logging.warn("CRM watch command exited with status " + process.waitFor());
+			} catch (InterruptedException e) {
+				break;
+			} catch (Exception e) {
+				if (m_stopped) break;
+				Logging.error("CRM watch exception: " + e.getMessage());
+			} finally {
+				m_process = null;
+				if (process != null) ProcessExecutor.terminate(process, true);
+			}
+			try {
+				Thread.sleep(RESTART_DELAY);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		Logging.info("Stopped watching " + m_command);
+	}
+
+	/**
+	 * Read the documents emitted by the child process until it exits.
+	 *
+	 * @param in	the output of the child process
+	 * @throws Exception	if the output cannot be read
+	 */
+	private void consume(BufferedReader in) throws Exception {
+		StringBuilder document = new StringBuilder(4096);
+		String line;
+		while ((line = in.readLine()) != null && ! m_stopped) {
+			int end = line.indexOf(CrmStatusParser.XML_END);
+			if (end < 0) {
+				document.append(line).append('\n');
+				continue;
+			}
+			document.append(line, 0, end + CrmStatusParser.XML_END.length());
+			try {
+				update(CrmStatusParser.parseXml(new ByteArrayInputStream(document.toString().getBytes("UTF-8"))));
+			} catch (Exception e) {
+				Logging.error("Cannot parse crm_mon output: " + e.getMessage());
+			}
+			document.setLength(0);
+		}
+	}
+
+	/**
+	 * Write the states that changed since the last document.
+	 *
+	 * @param states	the states decoded from the document
+	 */
+	private void update(LinkedHashMap<Integer, String> states) {
+		boolean changed = false;
+		for (Map.Entry<Integer, String> entry : states.entrySet()) {
+			if (m_stopped) {
+				return;
+			}
+			if (entry.getValue().equals(m_states.get(entry.getKey()))) {
+				continue;
+			}
+			if (m_verbose)
+				Logging.info(">>> Node " + entry.getKey() + " changed to " + entry.getValue());
+			if (crmMonitor.setState(m_confdb, m_monitorID, entry.getKey(), entry.getValue(), m_verbose)) {
+				m_states.put(entry.getKey(), entry.getValue());
+				changed = true;
+			}
+		}
+		if (changed) {
+			long start = System.nanoTime();
+			m_confdb.setSystemStatus();
+			crmMonitor.SYSTEM_STATUS_LATENCY.recordSince(start);
+		}
+	}
+}
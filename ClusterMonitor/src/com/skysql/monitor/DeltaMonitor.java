@@ -56,7 +56,7 @@ public class DeltaMonitor extends Monitor {
 	{
 		if (m_sql.isEmpty())
 			return;
-		String value = m_node.execute(m_sql);
+		String value = query();
 		if (verbose)
 		{
 			Logging.debug("probe: " + m_sql + " Last value " + m_lastValue + " new value " + value);
@@ -66,14 +66,7 @@ public class DeltaMonitor extends Monitor {
 			if (m_lastAbsValue != null)
 			{
 				Float absValue = new Float(value);
-				Long delta = (long) (absValue - m_lastAbsValue);
-				if (delta < 0)
-				{
-					Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + m_lastAbsValue);
-					delta = new Long(0);
-				}
-				DecimalFormat format = new DecimalFormat("###############0");
-				String deltaStr = format.format(delta.longValue());
+				String deltaStr = computeDelta(absValue, m_lastAbsValue);
 				saveObservation(deltaStr);
 				m_lastValue = deltaStr;
 				m_lastAbsValue = absValue;
@@ -84,5 +77,25 @@ public class DeltaMonitor extends Monitor {
 			}
 		}
 	}
+	
+	/**
+	 * Compute the difference between two consecutive values, as reported to
+	 * the API. A negative difference is reported as 0.
+	 * 
+	 * @param absValue		the current value
+	 * @param lastAbsValue	the previous value
+	 * @return	the difference, as an integer
+	 */
+	public static String computeDelta(float absValue, float lastAbsValue)
+	{
+		Long delta = (long) (absValue - lastAbsValue);
+		if (delta < 0)
+		{
+			Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + lastAbsValue);
+			delta = new Long(0);
+		}
+		DecimalFormat format = new DecimalFormat("###############0");
+		return format.format(delta.longValue());
+	}
 
 }
@@ -0,0 +1,278 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The arithmetic expression of a DERIVED Monitor, compiled once into a
+ * postfix program evaluated on primitive doubles, without script engine.
+ *
+ * The expression is made of numbers, the operators + - * / and parentheses,
+ * the functions min(a, b), max(a, b) and abs(a), and references to other
+ * monitors: {12} is the value of Monitor 12 on the same Node, {system:12}
+ * the system value of Monitor 12. For example:
+ *
+ * 100 * {3} / ({3} + {4})
+ *
+ * A missing input or a division by zero gives NaN, which is not recorded.
+ */
+public class DerivedExpression {
+	private static final int	CONST = 0, NODE = 1, SYSTEM = 2, ADD = 3, SUB = 4, MUL = 5, DIV = 6,
+								NEG = 7, MIN = 8, MAX = 9, ABS = 10;
+
+	/**
+	 * The values of the inputs of an expression.
+	 */
+	public interface Inputs {
+		/** @return the value of a Monitor on the Node, NaN if there is none */
+		public double nodeValue(int monitorID);
+		/** @return the system value of a Monitor, NaN if there is none */
+		public double systemValue(int monitorID);
+	}
+
+	/**
+	 * The program: an operation and its argument per instruction.
+	 */
+	private final int[]			m_code;
+	/**
+	 * The constants of the program.
+	 */
+	private final double[]		m_constants;
+	/**
+	 * The evaluation stack, the expression is evaluated by one thread.
+	 */
+	private final double[]		m_stack;
+	/**
+	 * The monitors read on the Node.
+	 */
+	private final Set<Integer>	m_nodeInputs;
+	/**
+	 * The monitors read on the system.
+	 */
+	private final Set<Integer>	m_systemInputs;
+
+	/**
+	 * Compile an expression.
+	 *
+	 * @param expression	the expression
+	 * @throws IllegalArgumentException	if the expression is not valid
+	 */
+	public DerivedExpression(String expression) {
+		Parser parser = new Parser(expression == null ? "" : expression);
+		parser.parseExpression();
+		parser.skipSpaces();
+		if (parser.m_pos < parser.m_text.length()) {
+			throw parser.error("unexpected '" + parser.m_text.charAt(parser.m_pos) + "'");
+		}
+		m_code = new int[parser.m_code.size()];
+		for (int i = 0; i < m_code.length; i++) {
+			m_code[i] = parser.m_code.get(i);
+		}
+		m_constants = new double[parser.m_constants.size()];
+		for (int i = 0; i < m_constants.length; i++) {
+			m_constants[i] = parser.m_constants.get(i);
+		}
+		m_stack = new double[Math.max(1, parser.m_maxDepth)];
+		m_nodeInputs = Collections.unmodifiableSet(parser.m_nodeInputs);
+		m_systemInputs = Collections.unmodifiableSet(parser.m_systemInputs);
+	}
+
+	/**
+	 * @return	the IDs of the monitors read on the Node
+	 */
+	public Set<Integer> getNodeInputs() {
+		return m_nodeInputs;
+	}
+
+	/**
+	 * @return	the IDs of the monitors read on the system
+	 */
+	public Set<Integer> getSystemInputs() {
+		return m_systemInputs;
+	}
+
+	/**
+	 * Evaluate the expression.
+	 *
+	 * @param inputs	the values of the inputs
+	 * @return	the value, NaN if an input is missing or a division by zero
+	 */
+	public double evaluate(Inputs inputs) {
+		double[] stack = m_stack;
+		int top = -1;
+		for (int pc = 0; pc < m_code.length; pc += 2) {
+			int arg = m_code[pc + 1];
+			switch (m_code[pc]) {
+			case CONST:		stack[++top] = m_constants[arg]; break;
+			case NODE:		stack[++top] = inputs.nodeValue(arg); break;
+			case SYSTEM:	stack[++top] = inputs.systemValue(arg); break;
+			case ADD:		top--; stack[top] += stack[top + 1]; break;
+			case SUB:		top--; stack[top] -= stack[top + 1]; break;
+			case MUL:		top--; stack[top] *= stack[top + 1]; break;
+			case DIV:
+				top--;
+				stack[top] = stack[top + 1] == 0.0 ? Double.NaN : stack[top] / stack[top + 1];
+				break;
+			case NEG:		stack[top] = -stack[top]; break;
+			case MIN:		top--; stack[top] = Math.min(stack[top], stack[top + 1]); break;
+			case MAX:		top--; stack[top] = Math.max(stack[top], stack[top + 1]); break;
+			case ABS:		stack[top] = Math.abs(stack[top]); break;
+			}
+		}
+		return stack[0];
+	}
+
+	/**
+	 * A recursive descent parser emitting the postfix program.
+	 */
+	private static class Parser {
+		private final String			m_text;
+		private int						m_pos;
+		private final List<Integer>		m_code = new ArrayList<Integer>();
+		private final List<Double>		m_constants = new ArrayList<Double>();
+		private final Set<Integer>		m_nodeInputs = new LinkedHashSet<Integer>();
+		private final Set<Integer>		m_systemInputs = new LinkedHashSet<Integer>();
+		private int						m_depth;
+		private int						m_maxDepth;
+
+		private Parser(String text) {
+			m_text = text;
+			m_pos = 0;
+		}
+
+		private void emit(int op, int arg, int depth) {
+			m_code.add(op);
+			m_code.add(arg);
+			m_depth += depth;
+			m_maxDepth = Math.max(m_maxDepth, m_depth);
+		}
+
+		private void parseExpression() {
+			parseTerm();
+			while (true) {
+				if (accept('+')) {
+					parseTerm();
+					emit(ADD, 0, -1);
+				} else if (accept('-')) {
+					parseTerm();
+					emit(SUB, 0, -1);
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void parseTerm() {
+			parseFactor();
+			while (true) {
+				if (accept('*')) {
+					parseFactor();
+					emit(MUL, 0, -1);
+				} else if (accept('/')) {
+					parseFactor();
+					emit(DIV, 0, -1);
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void parseFactor() {
+			skipSpaces();
+			if (accept('-')) {
+				parseFactor();
+				emit(NEG, 0, 0);
+			} else if (accept('(')) {
+				parseExpression();
+				expect(')');
+			} else if (accept('{')) {
+				skipSpaces();
+				boolean system = m_text.startsWith("system:", m_pos);
+				if (system) m_pos += "system:".length();
+				int id = (int) parseNumber();
+				expect('}');
+				(system ? m_systemInputs : m_nodeInputs).add(id);
+				emit(system ? SYSTEM : NODE, id, 1);
+			} else if (m_pos < m_text.length() && Character.isLetter(m_text.charAt(m_pos))) {
+				int start = m_pos;
+				while (m_pos < m_text.length() && Character.isLetter(m_text.charAt(m_pos))) m_pos++;
+				String name = m_text.substring(start, m_pos).toLowerCase();
+				expect('(');
+				parseExpression();
+				if (name.equals("abs")) {
+					expect(')');
+					emit(ABS, 0, 0);
+				} else if (name.equals("min") || name.equals("max")) {
+					expect(',');
+					parseExpression();
+					expect(')');
+					emit(name.equals("min") ? MIN : MAX, 0, -1);
+				} else {
+					throw error("unknown function " + name);
+				}
+			} else {
+				m_constants.add(parseNumber());
+				emit(CONST, m_constants.size() - 1, 1);
+			}
+		}
+
+		private double parseNumber() {
+			skipSpaces();
+			int start = m_pos;
+			while (m_pos < m_text.length()
+					&& (Character.isDigit(m_text.charAt(m_pos)) || m_text.charAt(m_pos) == '.')) m_pos++;
+			if (start == m_pos) {
+				throw error(m_pos < m_text.length() ? "unexpected '" + m_text.charAt(m_pos) + "'" : "unexpected end");
+			}
+			try {
+				return Double.parseDouble(m_text.substring(start, m_pos));
+			} catch (NumberFormatException e) {
+				throw error("invalid number " + m_text.substring(start, m_pos));
+			}
+		}
+
+		private void skipSpaces() {
+			while (m_pos < m_text.length() && Character.isWhitespace(m_text.charAt(m_pos))) m_pos++;
+		}
+
+		private boolean accept(char c) {
+			skipSpaces();
+			if (m_pos < m_text.length() && m_text.charAt(m_pos) == c) {
+				m_pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(char c) {
+			if (! accept(c)) {
+				throw error("expected '" + c + "'");
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid expression '" + m_text + "' at " + m_pos + ": " + message);
+		}
+	}
+}
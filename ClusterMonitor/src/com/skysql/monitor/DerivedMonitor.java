@@ -0,0 +1,122 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.Map;
+
+import com.skysql.java.Logging;
+import com.skysql.java.MonData;
+
+/**
+ * The DERIVED Monitor, its value is computed from the values that other
+ * monitors have just collected on the same Node or for the system, so it
+ * runs no query. The SQL of the Monitor is the expression, see
+ * DerivedExpression, for instance the ratio of two status counters.
+ * 
+ * The ClusterMonitor probes the DERIVED monitors after the other monitors
+ * of the cycle, in the order of their dependencies. A Node value is only
+ * used if the Node answered the last probe of the input Monitor and that
+ * probe is within the interval of the input, so a throttled, deferred or
+ * shed input makes the value missing rather than stale. A system value is
+ * the last one computed, it is dropped as soon as a probe of the input
+ * gets no value from any Node. Unless
+ * configured otherwise, a Monitor that reads only system values is cluster
+ * scope, its value is computed once per system.
+ */
+public class DerivedMonitor extends Monitor implements DerivedExpression.Inputs {
+	/**
+	 * The compiled expression, shared by the instances of the Monitor.
+	 */
+	private final DerivedExpression		m_expression;
+	/**
+	 * The instances of the input monitors on the same Node, keyed by Monitor ID.
+	 */
+	private final Map<Integer, Monitor>	m_nodeInputs;
+	/**
+	 * The system values of the system, keyed by Monitor ID.
+	 */
+	private final Map<Integer, Double>	m_systemValues;
+
+	/**
+	 * Constructor for the derived Monitor.
+	 * 
+	 * @param db			Handle for the monitoring database
+	 * @param id			The ID of the Monitor
+	 * @param mon_node		The Node being monitored
+	 * @param expression	The compiled expression of the Monitor
+	 * @param nodeInputs	The input monitors on the Node, keyed by Monitor ID
+	 * @param systemValues	The system values, keyed by Monitor ID
+	 */
+	public DerivedMonitor(MonData db, int id, Node mon_node, DerivedExpression expression,
+			Map<Integer, Monitor> nodeInputs, Map<Integer, Double> systemValues)
+	{
+		super(db, id, mon_node);
+		m_expression = expression;
+		m_nodeInputs = nodeInputs;
+		m_systemValues = systemValues;
+		if (getConfiguredScope() == null && expression.getNodeInputs().isEmpty())
+			m_scope = Scope.CLUSTER;
+	}
+
+	/**
+	 * Evaluate the expression on the latest values of the inputs. Nothing
+	 * is saved if an input is missing.
+	 * 
+	 * @param verbose	Control verbose logging of the computed value
+	 */
+	public void probe(boolean verbose)
+	{
+		double value = m_expression.evaluate(this);
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			if (verbose)
+				Logging.debug("DerivedMonitor: " + m_sql + " has no value");
+			m_lastValue = null;
+			return;
+		}
+		String formatted = ClusterMonitor.formatSystemValue(value, true);
+		if (verbose)
+			Logging.debug("DerivedMonitor: " + m_sql + " set value " + formatted);
+		saveObservation(formatted);
+		m_lastValue = formatted;
+	}
+
+	/**
+	 * @see com.skysql.monitor.DerivedExpression.Inputs#nodeValue(int)
+	 */
+	public double nodeValue(int monitorID)
+	{
+		Monitor input = m_nodeInputs.get(monitorID);
+		if (input == null || ! input.hasResponded() || ! input.isCurrent() || input.getValue() == null)
+			return Double.NaN;
+		try {
+			return Double.parseDouble(input.getValue());
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * @see com.skysql.monitor.DerivedExpression.Inputs#systemValue(int)
+	 */
+	public double systemValue(int monitorID)
+	{
+		Double value = m_systemValues.get(monitorID);
+		return value == null ? Double.NaN : value.doubleValue();
+	}
+}
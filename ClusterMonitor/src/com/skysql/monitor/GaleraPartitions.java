@@ -0,0 +1,318 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes the partitions of a Galera system from the wsrep variables
+ * reported by each of its nodes.
+ *
+ * Each Node is described by a Member: the identities under which the
+ * other nodes may list it (private IP, host name) and the set of addresses
+ * it reports in wsrep_incoming_addresses. Two members with the same state
+ * UUID belong to the same partition if either one lists the other. The
+ * partitions are the connected components of that graph, computed with a
+ * single union-find pass over an address index, so the cost is linear in
+ * the number of listed addresses; the primary component is the one holding
+ * a strict majority of the members.
+ *
+ * One instance is kept per system. The result of the last computation is
+ * memoized and reused until the wsrep_cluster_conf_id, the state UUID or
+ * the set of nodes change.
+ */
+public class GaleraPartitions {
+	/**
+	 * The snapshot of a single Node as seen by the partition algorithm.
+	 */
+	public static class Member {
+		/** The Node ID */
+		private final int			m_nodeID;
+		/** The wsrep_local_state_uuid reported by the Node */
+		private final String		m_uuid;
+		/** The wsrep_cluster_conf_id reported by the Node */
+		private final String		m_confID;
+		/** The normalized addresses under which this Node is known */
+		private final Set<String>	m_identities;
+		/** The normalized wsrep_incoming_addresses of the Node */
+		private final Set<String>	m_incoming;
+
+		/**
+		 * Member constructor.
+		 *
+		 * @param nodeID		the Node ID
+		 * @param uuid			the wsrep_local_state_uuid
+		 * @param confID		the wsrep_cluster_conf_id
+		 * @param identities	the normalized addresses of the Node
+		 * @param incoming		the raw wsrep_incoming_addresses variable
+		 */
+		public Member(int nodeID, String uuid, String confID, Set<String> identities, String incoming) {
+			m_nodeID = nodeID;
+			m_uuid = uuid;
+			m_confID = confID;
+			m_identities = identities;
+			m_incoming = parseIncomingAddresses(incoming);
+		}
+
+		/**
+		 * @return the Node ID
+		 */
+		public int getNodeID() {
+			return m_nodeID;
+		}
+	}
+
+	/**
+	 * Sort members by Node ID, so that the memoization key does not depend
+	 * on the iteration order of the caller.
+	 */
+	private static final Comparator<Member>		BY_NODE = new Comparator<Member>() {
+		public int compare(Member a, Member b) {
+			return a.m_nodeID < b.m_nodeID ? -1 : (a.m_nodeID == b.m_nodeID ? 0 : 1);
+		}
+	};
+
+	/**
+	 * The resolved identities of the nodes, keyed by Node ID. The reverse
+	 * DNS lookup is done once per Node rather than on every probe.
+	 */
+	private final HashMap<Integer, Set<String>>	m_identities = new HashMap<Integer, Set<String>>();
+	/**
+	 * The key of the last computation.
+	 */
+	private String								m_lastKey;
+	/**
+	 * The primary component found by the last computation.
+	 */
+	private Set<Integer>						m_lastPrimary;
+
+	/**
+	 * Return the normalized identities of a Node: the private IP, the
+	 * host name known to the API and the name the IP resolves to. The
+	 * result is cached per Node. The lookup is done outside the lock, so that
+	 * the nodes of a system can be resolved in parallel.
+	 *
+	 * @param nodeID		the Node ID
+	 * @param IP			the private IP of the Node
+	 * @param hostname		the host name of the Node
+	 * @return the set of normalized identities
+	 */
+	public Set<String> getIdentities(int nodeID, String IP, String hostname) {
+		Set<String> identities;
+		synchronized (this) {
+			identities = m_identities.get(nodeID);
+		}
+		if (identities != null) {
+			return identities;
+		}
+		identities = new HashSet<String>(4);
+		addIdentity(identities, IP);
+		addIdentity(identities, hostname);
+		if (IP != null && ! IP.isEmpty()) {
+			try {
+				addIdentity(identities, InetAddress.getByName(IP).getHostName());
+			} catch (Exception e) {
+				// the IP is already an identity
+			}
+		}
+		synchronized (this) {
+			m_identities.put(nodeID, identities);
+		}
+		return identities;
+	}
+
+	/**
+	 * Return the identities of a Node if they were already resolved.
+	 *
+	 * @param nodeID		the Node ID
+	 * @return the set of normalized identities, null if not resolved yet
+	 */
+	public synchronized Set<String> getCachedIdentities(int nodeID) {
+		return m_identities.get(nodeID);
+	}
+
+	/**
+	 * Forget the cached identities and the memoized result, for instance
+	 * when the nodes of the system are provisioned again.
+	 */
+	public synchronized void reset() {
+		m_identities.clear();
+		m_lastKey = null;
+		m_lastPrimary = null;
+	}
+
+	/**
+	 * Compute the primary component of the system.
+	 *
+	 * @param members	the joined members of the system
+	 * @return the IDs of the nodes in the primary component, empty if there
+	 * is no majority
+	 */
+	public synchronized Set<Integer> getPrimaryComponent(List<Member> members) {
+		List<Member> sorted = new ArrayList<Member>(members);
+		Collections.sort(sorted, BY_NODE);
+		String key = memoKey(sorted);
+		if (key.equals(m_lastKey)) {
+			return m_lastPrimary;
+		}
+		int size = sorted.size();
+		int[] parent = new int[size];
+		int[] rank = new int[size];
+		for (int i = 0; i < size; i++) {
+			parent[i] = i;
+		}
+		HashMap<String, Integer> byIdentity = new HashMap<String, Integer>(size * 4);
+		for (int i = 0; i < size; i++) {
+			for (String identity : sorted.get(i).m_identities) {
+				byIdentity.put(identity, i);
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			Member a = sorted.get(i);
+			if (a.m_uuid == null) continue;
+			for (String address : a.m_incoming) {
+				Integer j = byIdentity.get(address);
+				if (j != null && j.intValue() != i && a.m_uuid.equals(sorted.get(j).m_uuid)) {
+					union(parent, rank, i, j);
+				}
+			}
+		}
+		int[] componentSize = new int[size];
+		int largest = -1;
+		for (int i = 0; i < size; i++) {
+			int root = find(parent, i);
+			componentSize[root]++;
+			if (largest < 0 || componentSize[root] > componentSize[largest]) {
+				largest = root;
+			}
+		}
+		Set<Integer> primary = new HashSet<Integer>();
+		if (largest >= 0 && componentSize[largest] > size / 2) {
+			for (int i = 0; i < size; i++) {
+				if (find(parent, i) == largest) {
+					primary.add(sorted.get(i).m_nodeID);
+				}
+			}
+		}
+		m_lastKey = key;
+		m_lastPrimary = Collections.unmodifiableSet(primary);
+		return m_lastPrimary;
+	}
+
+	/**
+	 * Parse the wsrep_incoming_addresses variable into a set of normalized
+	 * addresses.
+	 *
+	 * @param incoming	the comma separated list of addresses
+	 * @return the set of normalized addresses, never null
+	 */
+	public static Set<String> parseIncomingAddresses(String incoming) {
+		Set<String> addresses = new HashSet<String>();
+		if (incoming == null) {
+			return addresses;
+		}
+		int start = 0;
+		int length = incoming.length();
+		while (start <= length) {
+			int end = incoming.indexOf(',', start);
+			if (end < 0) end = length;
+			addIdentity(addresses, incoming.substring(start, end));
+			start = end + 1;
+		}
+		return addresses;
+	}
+
+	/**
+	 * Normalize an address: strip blanks, the port and the IPv6 brackets,
+	 * and make it lower case.
+	 *
+	 * @param address	the address, optionally with a port
+	 * @return the normalized address, null if empty
+	 */
+	public static String normalizeAddress(String address) {
+		if (address == null) {
+			return null;
+		}
+		String host = address.trim();
+		if (host.startsWith("[")) {
+			int close = host.indexOf(']');
+			host = close > 0 ? host.substring(1, close) : host.substring(1);
+		} else if (host.indexOf(':') == host.lastIndexOf(':') && host.indexOf(':') >= 0) {
+			host = host.substring(0, host.indexOf(':'));
+		}
+		host = host.toLowerCase();
+		return host.isEmpty() ? null : host;
+	}
+
+	/**
+	 * Add the normalized address to the set, if not empty.
+	 */
+	private static void addIdentity(Set<String> identities, String address) {
+		String normalized = normalizeAddress(address);
+		if (normalized != null) identities.add(normalized);
+	}
+
+	/**
+	 * The memoization key: the Node set with the configuration ID and the
+	 * state UUID of each Node.
+	 */
+	private static String memoKey(List<Member> sorted) {
+		StringBuilder key = new StringBuilder(sorted.size() * 48);
+		for (Member m : sorted) {
+			key.append(m.m_nodeID).append(':').append(m.m_confID)
+				.append(':').append(m.m_uuid).append(';');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Union-find: find the root with path halving.
+	 */
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Union-find: merge two components by rank.
+	 */
+	private static void union(int[] parent, int[] rank, int i, int j) {
+		int a = find(parent, i);
+		int b = find(parent, j);
+		if (a == b) return;
+		if (rank[a] < rank[b]) {
+			parent[a] = b;
+		} else if (rank[a] > rank[b]) {
+			parent[b] = a;
+		} else {
+			parent[b] = a;
+			rank[a]++;
+		}
+	}
+}
@@ -21,15 +21,20 @@
 
 package com.skysql.monitor;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.skysql.java.Logging;
 import com.skysql.java.MonData;
@@ -39,9 +44,9 @@ import com.skysql.java.MonData;
  * and the system states. Use the global variables retrieved
  * from Galera.
  * Since the Node state can only be determined by looking at all
- * the nodes of the system this class is a system singleton class.
- * This singleton gathers the state of each Node, and return the
- * Node state for the calling Node as well as setting the system
+ * the nodes of the system, the instances of a system share a
+ * GaleraTopology. The first instance due to run gathers the state
+ * of each Node, and sets the Node states as well as the system
  * state.
  * 
  * @author Massimo Siani
@@ -49,19 +54,14 @@ import com.skysql.java.MonData;
  */
 public class GaleraStatusMonitor extends Monitor {
 	/**
-	 * The instances of the class. The key is the systemID.
+	 * The topology of each system. The key is the systemID.
 	 */
-	private static volatile HashMap<Integer, List<Node>>	INSTANCES;
+	private final static ConcurrentHashMap<Integer, GaleraTopology>	TOPOLOGIES = new ConcurrentHashMap<Integer, GaleraTopology>();
 	/**
 	 * The ID of the system passed to the constructor. Necessary to
-	 * add the system to the INSTANCES variable.
+	 * add the Node to the topology of the system.
 	 */
 	private int							m_systemID;
-	/**
-	 * The GlobalStatusObject that contains the global status
-	 * and variables from Galera.
-	 */
-	private GlobalStatusObject			m_globalStatus;
 	/**
 	 * The lapse before a system can be checked again. It needs
 	 * to avoid multiple nodes from the same system to ask to
@@ -69,13 +69,46 @@ public class GaleraStatusMonitor extends Monitor {
 	 */
 	private final static int					UPDATE_THRESHOLD = 5000;
 	/**
-	 * A table of the updated systems. (systemID, time of the last update).
+	 * The longest time the classification of a steady system is reused
+	 * without writing the states to the API again. Unit: milliseconds.
+	 */
+	private final static int					RECONCILE_INTERVAL = 600000;
+	/**
+	 * The maximum time to wait for the status of a Node, in milliseconds.
+	 * A Node that does not answer in time is considered down for the round.
+	 */
+	private final static long					SNAPSHOT_DEADLINE = 1000L * Math.max(1, MonitorOptions.getInt("galera_snapshot_deadline", 10));
+	/**
+	 * The executor that collects the Node snapshots in parallel, for all
+	 * the systems. Its threads stop when idle.
+	 */
+	private final static ThreadPoolExecutor		SNAPSHOT_EXECUTOR;
+	static {
+		int threads = Math.max(1, MonitorOptions.getInt("galera_snapshot_threads", 16));
+		SNAPSHOT_EXECUTOR = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "GaleraStatusMonitor-snapshot");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		SNAPSHOT_EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+	/**
+	 * The time of the MonData calls of the probe.
 	 */
-	private static HashMap<Integer, Long>		m_updatedSystems;
+	private final static LatencyHistogram		SYSTEM_STATE_LATENCY = Metrics.histogram("ApiLatency", "setSystemState");
+	private final static LatencyHistogram		NODE_STATE_LATENCY = Metrics.histogram("ApiLatency", "setNodeState");
+	private final static LatencyHistogram		NODE_STATES_LATENCY = Metrics.histogram("ApiLatency", "getNodeStates");
+	private final static LatencyHistogram		STATE_NAME_LATENCY = Metrics.histogram("ApiLatency", "getNodeStateFromId");
+	private final static LatencyHistogram		DB_PROPERTIES_LATENCY = Metrics.histogram("ApiLatency", "setNodeDatabaseProperties");
+	private final static LatencyHistogram		HOST_NAME_LATENCY = Metrics.histogram("ApiLatency", "getNodeHostName");
+	private final static LatencyHistogram		MONITOR_KEY_LATENCY = Metrics.histogram("ApiLatency", "getMonitorKey");
 	/**
-	 * The Node state -> Node state ID map.
+	 * The Node state -> Node state ID map. Built once, never modified.
 	 */
-	private static HashMap<NodeStates, Integer>			m_nodeStates = null;
+	private static volatile Map<NodeStates, Integer>	m_nodeStates = null;
 	/**
 	 * Node states that are not computed by a query.
 	 */
@@ -83,22 +116,49 @@ public class GaleraStatusMonitor extends Monitor {
 		DOWN, MACHINEDOWN, ISOLATED, INCORRECTLYJOINED
 		, JOINED
 	}
+	
+	/**
+	 * The wsrep variables of a Node read in a single round, so that the
+	 * classification does not go back to the Node.
+	 */
+	private static class NodeSnapshot {
+		private final String		m_localState;
+		private final String		m_clusterSize;
+		private final String		m_uuid;
+		private final String		m_confID;
+		private final String		m_clusterUUID;
+		private final String		m_incomingAddresses;
+		private final String		m_dbType;
+		private final String		m_dbVersion;
+		private final Set<String>	m_identities;
+		
+		private NodeSnapshot(GlobalStatusObject globalStatus, Set<String> identities) {
+			m_localState = globalStatus.getStatus("wsrep_local_state");
+			m_clusterSize = globalStatus.getStatus("wsrep_cluster_size");
+			m_uuid = globalStatus.getStatus("wsrep_local_state_uuid");
+			m_confID = globalStatus.getStatus("wsrep_cluster_conf_id");
+			m_clusterUUID = globalStatus.getStatus("wsrep_cluster_state_uuid");
+			m_incomingAddresses = globalStatus.getStatus("wsrep_incoming_addresses");
+			m_dbType = globalStatus.getVariable("version_comment");
+			m_dbVersion = globalStatus.getVariable("version");
+			m_identities = identities;
+		}
+	}
 
 	/**
-	 * Get the table (system id's, list of nodes with that system id).
-	 * The corresponding object is static.
+	 * Get the topology of a system, create it if necessary.
 	 * 
-	 * @return	the table (system id, list of nodes)
+	 * @param systemID		the ID of the system
+	 * @return	the topology of the system
 	 */
-	private synchronized HashMap<Integer, List<Node>> getInstances() {
-		if (INSTANCES == null) {
-			INSTANCES = new HashMap<Integer, List<Node>>();
-			m_updatedSystems = new HashMap<Integer, Long>();
-		}
-		if (INSTANCES.get(m_systemID) == null) {
-			m_updatedSystems.put(m_systemID, now() - UPDATE_THRESHOLD);   // next time the Monitor will run
+	private static GaleraTopology getTopology(int systemID) {
+		GaleraTopology topology = TOPOLOGIES.get(systemID);
+		if (topology == null) {
+			GaleraTopology created = new GaleraTopology(systemID);
+			topology = TOPOLOGIES.putIfAbsent(systemID, created);
+			if (topology == null) topology = created;
 		}
-		return INSTANCES;
+		return topology;
 	}
 	
 	/**
@@ -111,53 +171,30 @@ public class GaleraStatusMonitor extends Monitor {
 	public GaleraStatusMonitor(MonData db, int id, Node mon_node) {
 		super(db, id, mon_node);
 		m_systemID = mon_node.getSystemID();
-		setInstance(mon_node);
+		getTopology(m_systemID).addNode(mon_node);
 		setNodeStates();
 	}
 
 	/**
-	 * Initialize the system singleton. Add the system id to the
-	 * table of known system id's and loads the associated nodes.
-	 * 
-	 * @param mon_node	the Node to be added to the instance
+	 * Generate a map to the Node states that are not computed from a query.
 	 */
-	private synchronized void setInstance(Node mon_node) {
-		List<Node> nodeList = getInstances().get(mon_node.getSystemID());
-		if (nodeList != null) {
-			List<Node> nodeListb = new ArrayList<Node>();
-			nodeListb.addAll(nodeList);
-			Iterator<Node> nodeIt = nodeList.iterator();
-			boolean found = false;
-			while (nodeIt.hasNext()) {
-				Node n = nodeIt.next();
-				if (mon_node.getID() == n.getID()) {
-					nodeListb.remove(n);
-					nodeListb.add(mon_node);
-					found = true;
-				}
-			}
-			if (! found) nodeListb.add(mon_node);
-			nodeList = nodeListb;
-		}
-		else {
-			nodeList = new ArrayList<Node>();
-			nodeList.add(mon_node);
+	private void setNodeStates() {
+		if (m_nodeStates == null) {
+			Map<NodeStates, Integer> nodeStates = new EnumMap<NodeStates, Integer>(NodeStates.class);
+			nodeStates.put(NodeStates.DOWN, m_confdb.getNodeStateId("down"));
+			nodeStates.put(NodeStates.MACHINEDOWN, m_confdb.getNodeStateId("machine-down"));
+			nodeStates.put(NodeStates.ISOLATED, m_confdb.getNodeStateId("isolated"));
+			nodeStates.put(NodeStates.INCORRECTLYJOINED, m_confdb.getNodeStateId("incorrectly-joined"));
+			nodeStates.put(NodeStates.JOINED, m_confdb.getNodeStateId("joined"));
+			m_nodeStates = nodeStates;
 		}
-		getInstances().put(mon_node.getSystemID(), nodeList);
 	}
 	
 	/**
-	 * Generate a map to the Node states that are not computed from a query.
+	 * The probe reads the status snapshot of the nodes.
 	 */
-	private void setNodeStates() {
-		if (m_nodeStates == null) {
-			m_nodeStates = new HashMap<NodeStates, Integer>();
-			m_nodeStates.put(NodeStates.DOWN, m_confdb.getNodeStateId("down"));
-			m_nodeStates.put(NodeStates.MACHINEDOWN, m_confdb.getNodeStateId("machine-down"));
-			m_nodeStates.put(NodeStates.ISOLATED, m_confdb.getNodeStateId("isolated"));
-			m_nodeStates.put(NodeStates.INCORRECTLYJOINED, m_confdb.getNodeStateId("incorrectly-joined"));
-			m_nodeStates.put(NodeStates.JOINED, m_confdb.getNodeStateId("joined"));
-		}
+	public boolean readsStatusSnapshot() {
+		return true;
 	}
 	
 	/**
@@ -166,10 +203,8 @@ public class GaleraStatusMonitor extends Monitor {
 	 * 
 	 * @param systemID		the ID of the system to remove
 	 */
-	public static synchronized void removeSystem (Integer systemID) {
-		if (INSTANCES != null) {
-			INSTANCES.remove(systemID);
-		}
+	public static void removeSystem (Integer systemID) {
+		TOPOLOGIES.remove(systemID);
 	}
 	
 	/**
@@ -177,82 +212,195 @@ public class GaleraStatusMonitor extends Monitor {
 	 * based on the result of the Node states probe.
 	 * Overrides the method in the parent class.
 	 * 
+	 * The wsrep snapshots of the nodes are collected in parallel. A Node that
+	 * does not answer within SNAPSHOT_DEADLINE is considered down for this
+	 * round, so that a hung Node does not stall the states of the system.
+	 * Until its snapshot completes the monitors that read the status of the
+	 * Node are skipped by the probe cycle, see GlobalStatusObject.isFetching().
+	 * 
+	 * Only the topology of this system is locked, the systems are probed
+	 * independently of each other.
+	 * 
+	 * When all the nodes agree on the cluster state UUID and neither the
+	 * configuration ID nor the local state of any Node has changed, the
+	 * previous classification still holds and nothing is written to the
+	 * API. The states are written again at least every RECONCILE_INTERVAL.
+	 * 
 	 * @param verbose
 	 */
-	public synchronized void probe(boolean verbose) {
-		if (now() - m_updatedSystems.get(m_node.getSystemID()) <= UPDATE_THRESHOLD) {
+	public void probe(boolean verbose) {
+		GaleraTopology topology = getTopology(m_systemID);
+		if (now() - topology.getLastUpdate() <= UPDATE_THRESHOLD || ! topology.tryLock()) {
+			return;
+		}
+		try {
+			probeSystem(topology, verbose);
+		} finally {
+			topology.unlock();
+		}
+	}
+	
+	/**
+	 * Check the nodes of the system and assign their states. Must be called
+	 * with the topology lock held.
+	 * 
+	 * @param topology	the topology of the system
+	 */
+	private void probeSystem(GaleraTopology topology, boolean verbose) {
+		if (now() - topology.getLastUpdate() <= UPDATE_THRESHOLD) {
+			return;
+		}
+		List<Node> nodeList = topology.getNodes();
+		GaleraPartitions partitions = topology.getPartitions();
+		List<Future<NodeSnapshot>> futures = new ArrayList<Future<NodeSnapshot>>(nodeList.size());
+		for (Node n : nodeList) {
+			futures.add(submitSnapshot(n, topology));
+		}
+		long deadline = System.currentTimeMillis() + SNAPSHOT_DEADLINE;
+		NodeSnapshot[] snapshots = new NodeSnapshot[nodeList.size()];
+		for (int i = 0; i < nodeList.size(); i++) {
+			Node n = nodeList.get(i);
+			Future<NodeSnapshot> future = futures.get(i);
+			if (future != null) {
+				try {
+					snapshots[i] = future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					Logging.warn("Node " + n.getID() + " of system " + m_systemID
+							+ " did not return its status in time, considered down.");
+				} catch (Exception e) {
+					Logging.error("Failed to retrieve the status of Node " + n.getID() + ": " + e.getMessage());
+				}
+			}
+		}
+		String signature = steadyStateSignature(nodeList, snapshots);
+		long time = now();
+		if (signature != null && signature.equals(topology.getSignature())
+				&& time - topology.getLastReconcile() < RECONCILE_INTERVAL) {
+			topology.setLastUpdate(time);
+			if (verbose)
+				Logging.info("    Probe " + getID() + " for system " + m_systemID + ": topology unchanged.");
 			return;
 		}
-		Iterator<Node> nodeIt = getInstances().get(m_node.getSystemID()).iterator();
-		HashMap<String, List<Node>> hmUUID = new HashMap<String, List<Node>>();
-		HashMap<Node, String> hmIncAddress = new HashMap<Node, String>();
-		while (nodeIt.hasNext()) {
-			Node n = nodeIt.next();
-			m_globalStatus = GlobalStatusObject.getInstance(n);
-			String dbType = getDbType();
-			String dbVersion = getDbVersion();
-			if (dbType != null && dbVersion != null) {
-				m_confdb.setNodeDatabaseProperties(n.getID(), dbType, dbVersion);
+		List<GaleraPartitions.Member> members = new ArrayList<GaleraPartitions.Member>();
+		for (int i = 0; i < nodeList.size(); i++) {
+			Node n = nodeList.get(i);
+			NodeSnapshot snapshot = snapshots[i];
+			if (snapshot == null) {
+				setNodeState(n.getID(), m_nodeStates.get(NodeStates.DOWN));
+				continue;
+			}
+			if (snapshot.m_dbType != null && snapshot.m_dbVersion != null) {
+				long start = System.nanoTime();
+				m_confdb.setNodeDatabaseProperties(n.getID(), snapshot.m_dbType, snapshot.m_dbVersion);
+				DB_PROPERTIES_LATENCY.recordSince(start);
 			}
-			List<Node> nodeList = new ArrayList<Node>();
 			try {
-				String nodeStateString = m_globalStatus.getStatus("wsrep_local_state");
 				Integer nodeStateID;
-				if (nodeStateString != null) {
-					nodeStateID = Integer.parseInt(nodeStateString) + 100;
+				if (snapshot.m_localState != null) {
+					nodeStateID = Integer.parseInt(snapshot.m_localState) + 100;
+				} else if (snapshot.m_clusterSize != null && snapshot.m_clusterSize.equalsIgnoreCase("0")) {
+					nodeStateID = m_nodeStates.get(NodeStates.ISOLATED);
 				} else {
-					String nodeClusterSize = m_globalStatus.getStatus("wsrep_cluster_size");
-					if (nodeClusterSize != null && nodeClusterSize.equalsIgnoreCase("0")) {
-						nodeStateID = m_nodeStates.get(NodeStates.ISOLATED);
-					} else {
-						nodeStateID = m_nodeStates.get(NodeStates.DOWN);
-					}
-				} 
+					nodeStateID = m_nodeStates.get(NodeStates.DOWN);
+				}
+				long start = System.nanoTime();
 				String monitorState = m_confdb.getNodeStateFromId(nodeStateID);
+				STATE_NAME_LATENCY.recordSince(start);
 				if (! monitorState.equalsIgnoreCase("joined")) {
-					m_confdb.setNodeState(n.getID(), nodeStateID);
+					setNodeState(n.getID(), nodeStateID);
 					continue;
 				}
 			} catch (Exception e) {
 				continue;
 			}
-			String UUID = m_globalStatus.getStatus("wsrep_local_state_uuid");
-			String local;
-			String wsrepIncomingAddress = ( (local = m_globalStatus.getStatus("wsrep_incoming_addresses")) != null ?
-					local.replaceAll(":3306", "") : null );
-			if (!(hmUUID.get(UUID) == null)) nodeList.addAll(hmUUID.get(UUID));
-			nodeList.add(n);
-			hmUUID.put(UUID, nodeList);
-			hmIncAddress.put(n, wsrepIncomingAddress);
+			members.add(new GaleraPartitions.Member(n.getID(), snapshot.m_uuid,
+					snapshot.m_confID, snapshot.m_identities, snapshot.m_incomingAddresses));
 		}
-		boolean notFinished = true;
-		if (hmUUID.keySet().size() == 1) {
-			// only one UUID: next check is incoming address
-			if (checkIncomingAddress(hmIncAddress)) {
-				for (Node n : hmIncAddress.keySet()) {
-					m_confdb.setNodeState(n.getID(), m_nodeStates.get(NodeStates.JOINED));
-				}
-				notFinished = false;
-			}
+		Set<Integer> primary = partitions.getPrimaryComponent(members);
+		for (GaleraPartitions.Member member : members) {
+			NodeStates state = primary.contains(member.getNodeID()) ? NodeStates.JOINED : NodeStates.INCORRECTLYJOINED;
+			setNodeState(member.getNodeID(), m_nodeStates.get(state));
 		}
-		if (notFinished) {
-			for (Node n : isMajority(hmUUID, hmIncAddress)) {
-				m_confdb.setNodeState(n.getID(), m_nodeStates.get(NodeStates.JOINED));
-				hmIncAddress.remove(n);
+		setSystemState();
+		topology.setSignature(signature);
+		topology.setLastReconcile(time);
+		topology.setLastUpdate(now());
+		long start = System.nanoTime();
+		String key = m_confdb.getMonitorKey(getID());
+		MONITOR_KEY_LATENCY.recordSince(start);
+		Logging.info("    Probe " + getID() + " " + key + " for system " + m_systemID + " done.");
+		return;
+	}
+	
+	/**
+	 * Compute the signature of a steady system: every Node answered with
+	 * the same wsrep_cluster_state_uuid. The signature holds the Node set,
+	 * the configuration ID and the local state of each Node, if it is
+	 * unchanged since the last evaluation the classification is reused.
+	 * 
+	 * @param nodeList		the nodes of the system
+	 * @param snapshots		the snapshots of the nodes, null for a missing one
+	 * @return	the signature, or null if the system is not in a steady state
+	 */
+	private static String steadyStateSignature(List<Node> nodeList, NodeSnapshot[] snapshots) {
+		String clusterUUID = null;
+		StringBuilder signature = new StringBuilder(snapshots.length * 64);
+		for (int i = 0; i < snapshots.length; i++) {
+			NodeSnapshot snapshot = snapshots[i];
+			if (snapshot == null || snapshot.m_clusterUUID == null || snapshot.m_confID == null) {
+				return null;
 			}
-		}
-		if (notFinished) {
-			nodeIt = hmIncAddress.keySet().iterator();
-			while (nodeIt.hasNext()) {
-				Node n = nodeIt.next();
-				m_confdb.setNodeState(n.getID(), m_nodeStates.get(NodeStates.INCORRECTLYJOINED));
+			if (clusterUUID == null) {
+				clusterUUID = snapshot.m_clusterUUID;
+				signature.append(clusterUUID);
+			} else if (! clusterUUID.equals(snapshot.m_clusterUUID)) {
+				return null;
 			}
+			signature.append(';').append(nodeList.get(i).getID()).append(':')
+				.append(snapshot.m_confID).append(':').append(snapshot.m_localState);
 		}
-		setSystemState();
-		updateTime();
-		Logging.info("    Probe " + getID() + " " + m_confdb.getMonitorKey(getID())
-				+ " for system " + m_systemID + " done.");
-		return;
+		return signature.toString();
+	}
+	
+	/**
+	 * Start collecting the snapshot of a Node on the snapshot executor.
+	 * If the previous collection for the same Node is still running, the
+	 * Node is still hung: do not queue another one.
+	 * 
+	 * The identities of the Node come from the topology, the API is only
+	 * asked for the host name the first time the Node is seen.
+	 * 
+	 * @param n			the Node
+	 * @param topology	the topology of the system
+	 * @return	the pending snapshot, null if the Node is still busy
+	 */
+	private Future<NodeSnapshot> submitSnapshot(final Node n, GaleraTopology topology) {
+		final GaleraPartitions partitions = topology.getPartitions();
+		Future<?> pending = topology.getPending(n);
+		if (pending != null && ! pending.isDone()) {
+			return null;
+		}
+		final Set<String> identities = partitions.getCachedIdentities(n.getID());
+		String hostname = null;
+		if (identities == null) {
+			long start = System.nanoTime();
+			hostname = m_confdb.getNodeHostName(n.getID());
+			HOST_NAME_LATENCY.recordSince(start);
+		}
+		final String IP = n.getAddress(), name = hostname;
+		Future<NodeSnapshot> future = SNAPSHOT_EXECUTOR.submit(new Callable<NodeSnapshot>() {
+			public NodeSnapshot call() {
+				QueryCost previous = QueryCost.attribute(QueryCost.STATUS);
+				try {
+					return new NodeSnapshot(GlobalStatusObject.getInstance(n), identities != null ? identities
+							: partitions.getIdentities(n.getID(), IP, name));
+				} finally {
+					QueryCost.attribute(previous);
+				}
+			}
+		});
+		topology.setPending(n, future);
+		return future;
 	}
 	
 	/**
@@ -261,7 +409,9 @@ public class GaleraStatusMonitor extends Monitor {
 	 * if anything has changed.
 	 */
 	public void setSystemState() {
+		long start = System.nanoTime();
 		List<String> states = m_confdb.getNodeStates();
+		NODE_STATES_LATENCY.recordSince(start);
 		String systemState;
 		Set<String> statesSet = new HashSet<String>(states);
 		int numOfJoined = 0;
@@ -281,97 +431,21 @@ public class GaleraStatusMonitor extends Monitor {
 			systemState = "running";
 		}
 		else systemState = "available";
+		start = System.nanoTime();
 		m_confdb.setSystemState(systemState);
+		SYSTEM_STATE_LATENCY.recordSince(start);
 	}
 	
 	/**
-	 * Check whether all the nodes appear in the incoming address variable.
+	 * Write the state of a Node to the API.
 	 * 
-	 * @param incomingAddress	a table which contains the INCOMING_ADDRESSESES variable
-	 * @return	true if and only if all the nodes appear in all the other nodes'
-	 * INCOMING_ADDRESSES variable
+	 * @param nodeID		the ID of the Node
+	 * @param stateID		the ID of the state
 	 */
-	private boolean checkIncomingAddress(HashMap<Node, String> incomingAddress) {
-		boolean isCluster = true;
-		Set<Node> nodeSet = incomingAddress.keySet();
-		Set<Node> nodeSetb = new HashSet<Node>(incomingAddress.keySet());
-		for (Node n : nodeSet) {
-			String hostname = m_confdb.getNodeHostName(n.getID());
-			String IP = m_confdb.getNodePrivateIP(n.getID());
-			try {
-				hostname = InetAddress.getByName(IP).getHostName();
-				if (hostname == null || hostname.isEmpty()) {
-					throw new UnknownHostException();
-				}
-			} catch (UnknownHostException e) {
-				hostname = IP;
-			}
-			nodeSetb.remove(n);
-			for (Node m : nodeSetb) {
-				isCluster = isCluster
-						&& (incomingAddress.get(m).contains(hostname) || incomingAddress.get(m).contains(IP));
-				if (! isCluster) break;
-			}
-			if (! isCluster) break;
-		}
-		return isCluster;
-	}
-	
-	/**
-	 * If there is a majority of nodes correctly joined.
-	 * 
-	 * @param hmIncAddress	an HashMap of (Node, incoming_addresses variable)
-	 * @param hmUUID		an HashMap of (UUID, list of nodes with that UUID)
-	 * 
-	 * @return	The list of nodes in the main cluster, an empty list if no main cluster exists
-	 */
-	private List<Node> isMajority(HashMap<String, List<Node>> hmUUID, HashMap<Node, String> hmIncAddress) {
-		HashMap<Integer, List<Node>> nodePartitions = new HashMap<Integer, List<Node>>();
-		Integer partitionNo = 1;
-		int totalSize = 0;
-		for (String UUID : hmUUID.keySet()) {
-			List<Node> toIterateOn = hmUUID.get(UUID);
-			List<Node> toIterateOnb = new ArrayList<Node>(hmUUID.get(UUID));
-			totalSize += toIterateOn.size();
-			for (Node n : toIterateOn) {		// do not use toIterateOn here, only below
-				toIterateOnb.remove(n);
-				String hostname = m_confdb.getNodeHostName(n.getID());
-				List<Node> partitionNodes = new ArrayList<Node>();
-				partitionNodes.add(n);
-				for (Node m : toIterateOnb) {
-					if (hmIncAddress.get(m).contains(hostname)) {
-						partitionNodes.add(m);
-					}
-				}
-				nodePartitions.put(partitionNo, partitionNodes);
-				partitionNo++;
-			}
-		}
-		for (Integer i : nodePartitions.keySet()) {
-			List<Node> nl = nodePartitions.get(i);
-			if (nl.size() > totalSize/2) {
-				return nl;
-			}
-		}
-		return new ArrayList<Node>();
-	}
-	
-	/**
-	 * Retrieves the database type.
-	 * 
-	 * @return		the database type
-	 */
-	private String getDbType() {
-		return m_globalStatus.getVariable("version_comment");
-	}
-	
-	/**
-	 * Retrieves the database version.
-	 * 
-	 * @return		the database version
-	 */
-	private String getDbVersion() {
-		return m_globalStatus.getVariable("version");
+	private void setNodeState(int nodeID, int stateID) {
+		long start = System.nanoTime();
+		m_confdb.setNodeState(nodeID, stateID);
+		NODE_STATE_LATENCY.recordSince(start);
 	}
 	
 	/**
@@ -380,14 +454,7 @@ public class GaleraStatusMonitor extends Monitor {
 	 * @return a number reprsenting the current time
 	 */
 	private long now() {
-		return (new Date()).getTime();
-	}
-	
-	/**
-	 * Update the time when this system has been last updated.
-	 */
-	private void updateTime() {
-		m_updatedSystems.put(m_systemID, now());
+		return Clock.get().currentTimeMillis();
 	}
 	
 	/**
@@ -399,4 +466,14 @@ public class GaleraStatusMonitor extends Monitor {
 	{
 		return false;
 	}
+	
+	/**
+	 * The Galera state of the nodes is never throttled nor shed
+	 * 
+	 * @return Priority.CRITICAL
+	 */
+	public Priority getPriority()
+	{
+		return Priority.CRITICAL;
+	}
 }
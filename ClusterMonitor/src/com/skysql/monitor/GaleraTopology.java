@@ -0,0 +1,199 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Galera view of a single system: the nodes to check, the time of the
+ * last check, the signature of the last classification, the partition
+ * engine and the snapshot collections in progress.
+ *
+ * Each system owns its topology and its locks, so that the Galera probes
+ * of different systems never wait for each other.
+ */
+public class GaleraTopology {
+	/**
+	 * The ID of the system.
+	 */
+	private final int									m_systemID;
+	/**
+	 * The nodes of the system. The list is replaced, never modified, so
+	 * that it can be iterated without holding a lock.
+	 */
+	private volatile List<Node>							m_nodes;
+	/**
+	 * The time of the last complete check of the system, in milliseconds.
+	 */
+	private volatile long								m_lastUpdate;
+	/**
+	 * The signature of the snapshots the current classification was
+	 * computed from, null if the system was not in a steady state.
+	 */
+	private volatile String								m_signature;
+	/**
+	 * The time the states were last written to the API, in milliseconds.
+	 */
+	private volatile long								m_lastReconcile;
+	/**
+	 * Held while the system is being probed.
+	 */
+	private final ReentrantLock							m_probeLock;
+	/**
+	 * The partition engine of the system.
+	 */
+	private final GaleraPartitions						m_partitions;
+	/**
+	 * The snapshot collections started for each Node.
+	 */
+	private final ConcurrentHashMap<Node, Future<?>>	m_pending;
+
+	/**
+	 * Constructor for the class. The system is due for a check as soon
+	 * as it is created.
+	 *
+	 * @param systemID		the ID of the system
+	 */
+	public GaleraTopology(int systemID) {
+		m_systemID = systemID;
+		m_nodes = Collections.emptyList();
+		m_lastUpdate = 0L;
+		m_signature = null;
+		m_lastReconcile = 0L;
+		m_probeLock = new ReentrantLock();
+		m_partitions = new GaleraPartitions();
+		m_pending = new ConcurrentHashMap<Node, Future<?>>();
+	}
+
+	/**
+	 * @return	the ID of the system
+	 */
+	public int getSystemID() {
+		return m_systemID;
+	}
+
+	/**
+	 * Add a Node to the system. A Node with the same ID is replaced.
+	 *
+	 * @param node		the Node to add
+	 */
+	public synchronized void addNode(Node node) {
+		List<Node> nodes = new ArrayList<Node>(m_nodes.size() + 1);
+		for (Node n : m_nodes) {
+			if (n.getID() != node.getID()) {
+				nodes.add(n);
+			}
+		}
+		nodes.add(node);
+		m_nodes = Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * @return	the current nodes of the system
+	 */
+	public List<Node> getNodes() {
+		return m_nodes;
+	}
+
+	/**
+	 * Try to become the prober of the system.
+	 *
+	 * @return	true if the lock was acquired, false if another probe is running
+	 */
+	public boolean tryLock() {
+		return m_probeLock.tryLock();
+	}
+
+	/**
+	 * Release the lock acquired by tryLock().
+	 */
+	public void unlock() {
+		m_probeLock.unlock();
+	}
+
+	/**
+	 * @return	the time of the last complete check, in milliseconds
+	 */
+	public long getLastUpdate() {
+		return m_lastUpdate;
+	}
+
+	/**
+	 * @param time	the time of the last complete check, in milliseconds
+	 */
+	public void setLastUpdate(long time) {
+		m_lastUpdate = time;
+	}
+
+	/**
+	 * @return	the signature of the last classification, or null
+	 */
+	public String getSignature() {
+		return m_signature;
+	}
+
+	/**
+	 * @param signature	the signature of the classification just written
+	 */
+	public void setSignature(String signature) {
+		m_signature = signature;
+	}
+
+	/**
+	 * @return	the time the states were last written to the API, in milliseconds
+	 */
+	public long getLastReconcile() {
+		return m_lastReconcile;
+	}
+
+	/**
+	 * @param time	the time the states were written to the API, in milliseconds
+	 */
+	public void setLastReconcile(long time) {
+		m_lastReconcile = time;
+	}
+
+	/**
+	 * @return	the partition engine of the system
+	 */
+	public GaleraPartitions getPartitions() {
+		return m_partitions;
+	}
+
+	/**
+	 * @param node	the Node
+	 * @return	the last snapshot collection started for the Node, or null
+	 */
+	public Future<?> getPending(Node node) {
+		return m_pending.get(node);
+	}
+
+	/**
+	 * @param node		the Node
+	 * @param future	the snapshot collection just started for the Node
+	 */
+	public void setPending(Node node, Future<?> future) {
+		m_pending.put(node, future);
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+/**
+ * A value that goes up and down, such as the throttling factor of a Node,
+ * registered with JMX by Metrics.
+ */
+public class Gauge implements GaugeMBean {
+	/**
+	 * The value of the gauge.
+	 */
+	private volatile long	m_value;
+
+	/**
+	 * Set the value of the gauge.
+	 *
+	 * @param value	the new value
+	 */
+	public void set(long value) {
+		m_value = value;
+	}
+
+	/**
+	 * @see com.skysql.monitor.GaugeMBean#getValue()
+	 */
+	public long getValue() {
+		return m_value;
+	}
+}
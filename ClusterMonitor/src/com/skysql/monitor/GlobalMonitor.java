@@ -48,7 +48,27 @@ public class GlobalMonitor extends Monitor {
 	private	GlobalStatusObject	m_global;	
 	
 	/**
-	 * Constructor for the global Monitor
+	 * The burst sampler of the Node, null unless the Monitor is burst
+	 * sampled, see BurstSampler.
+	 */
+	private BurstSampler		m_burst;
+	
+	/**
+	 * The statistic of the burst samples reported by the Monitor.
+	 */
+	private BurstSampler.Statistic	m_burstValue;
+	
+	/**
+	 * The Monitor reads the status snapshot of the Node.
+	 */
+	public boolean readsStatusSnapshot() {
+		return true;
+	}
+	
+	/**
+	 * Constructor for the global Monitor. The wsrep_cluster_* values are
+	 * the same on every Node, unless configured otherwise they are cluster
+	 * scope.
 	 * 
 	 * @param db		Handle for the monitoring database
 	 * @param id		The ID of the Monitor
@@ -59,6 +79,19 @@ public class GlobalMonitor extends Monitor {
 	{
 		super(db, id, mon_node);
 		m_global = GlobalStatusObject.getInstance(mon_node);
+		if (getConfiguredScope() == null && m_sql != null && m_sql.toLowerCase().startsWith("wsrep_cluster_"))
+			m_scope = Scope.CLUSTER;
+		int burst = MonitorOptions.getInt(m_monitor_key + ".burst", 0);
+		if (burst > 0 && m_sql != null && ! m_sql.isEmpty()) {
+			if (m_delta) {
+				Logging.warn("Burst sampling ignored for delta Monitor " + m_monitor_key);
+			} else {
+				m_burst = BurstSampler.getInstance(mon_node);
+				m_burst.register(m_sql, burst * 1000L);
+				m_burstValue = BurstSampler.Statistic.parse(MonitorOptions.get(m_monitor_key, "burst_value"),
+						BurstSampler.Statistic.MAX);
+			}
+		}
 	}
 	
 	/**
@@ -78,14 +111,7 @@ public class GlobalMonitor extends Monitor {
 			if (m_lastAbsValue != null && value != null)
 			{
 				Long absValue = new Long(value);
-				Float delta = absValue - m_lastAbsValue;
-				if (delta < 0)
-				{
-					Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + m_lastAbsValue);
-					delta = new Float(0);
-				}
-				DecimalFormat format = new DecimalFormat("###############0");
-				String deltaStr = format.format(delta.longValue());
+				String deltaStr = computeDelta(absValue, m_lastAbsValue);
 				saveObservation(deltaStr);
 				m_lastValue = deltaStr;
 				m_lastAbsValue = absValue.floatValue();
@@ -99,9 +125,54 @@ public class GlobalMonitor extends Monitor {
 		}
 		else
 		{
+			if (m_burst != null)
+			{
+				String burst = burstValue(verbose);
+				if (burst != null)
+					value = burst;
+			}
 			saveObservation(value);
 			m_lastValue = value;
 		}
 	}
+	
+	/**
+	 * The value of a burst sampled Monitor, the configured statistic of the
+	 * samples taken since the last probe.
+	 * 
+	 * @param verbose	Log the statistics of the samples
+	 * @return	the value, null if no sample was taken
+	 */
+	private String burstValue(boolean verbose)
+	{
+		BurstSampler.Window samples = m_burst.collect(m_sql);
+		if (samples == null || samples.getCount() == 0)
+			return null;
+		if (verbose)
+			Logging.debug("GlobalMonitor: " + m_sql + " " + samples.getCount() + " samples, min "
+					+ samples.get(BurstSampler.Statistic.MIN) + " max " + samples.get(BurstSampler.Statistic.MAX)
+					+ " avg " + samples.get(BurstSampler.Statistic.AVG) + " last " + samples.get(BurstSampler.Statistic.LAST));
+		return ClusterMonitor.formatSystemValue(samples.get(m_burstValue), true);
+	}
+	
+	/**
+	 * Compute the difference between two consecutive values, as reported to
+	 * the API. A negative difference is reported as 0.
+	 * 
+	 * @param absValue		the current value
+	 * @param lastAbsValue	the previous value
+	 * @return	the difference, as an integer
+	 */
+	public static String computeDelta(long absValue, float lastAbsValue)
+	{
+		Float delta = absValue - lastAbsValue;
+		if (delta < 0)
+		{
+			Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + lastAbsValue);
+			delta = new Float(0);
+		}
+		DecimalFormat format = new DecimalFormat("###############0");
+		return format.format(delta.longValue());
+	}
 
 }
@@ -17,8 +17,8 @@
  */
 
 package com.skysql.monitor;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.skysql.java.Logging;
 
@@ -34,6 +34,10 @@ import com.skysql.java.Logging;
  * multiple monitors to be based upon global_status and global_variables without the
  * overhead of fetching each one individually.
  * 
+ * Instances may be read from more than one thread, for example when the
+ * Galera snapshots of a system are collected in parallel, hence the access
+ * to the cache is synchronized.
+ * 
  * @author Mark Riddoch
  *
  */
@@ -43,7 +47,7 @@ public class GlobalStatusObject {
 	 * The hashtable of instances of the GlobalStatusObject. The table is indexed by the Node
 	 * class of the Node being monitored.
 	 */
-	private static final HashMap<Node, GlobalStatusObject> INSTANCES = new HashMap<Node, GlobalStatusObject>();
+	private static final ConcurrentHashMap<Node, GlobalStatusObject> INSTANCES = new ConcurrentHashMap<Node, GlobalStatusObject>();
 	
 	/**
 	 * The length of time to cache the global_status or global_variables data
@@ -74,6 +78,16 @@ public class GlobalStatusObject {
 	 */
 	private Node					m_node;
 	
+	/**
+	 * The time to fetch the global status and variables of the Node
+	 */
+	private LatencyHistogram		m_fetchLatency;
+	
+	/**
+	 * True while the status of the Node is being fetched
+	 */
+	private volatile boolean		m_fetching;
+	
 	/**
 	 * Private constructor for GlobalStatusObject
 	 * 
@@ -84,6 +98,7 @@ public class GlobalStatusObject {
 		m_globalVariables = new HashMap<String, String>();
 		m_fetchTime = 0;
 		m_node = nodeObject;
+		m_fetchLatency = Metrics.histogram("StatusFetch", Metrics.nodeName(nodeObject.getSystemID(), nodeObject.getID()));
 	}
 	
 	/**
@@ -112,7 +127,7 @@ public class GlobalStatusObject {
 	 * @param nodeObject	The Node to Monitor
 	 * @return The globalStatus Object for this database instance
 	 */
-	public static GlobalStatusObject getInstance(Node nodeObject) {
+	public static synchronized GlobalStatusObject getInstance(Node nodeObject) {
 		GlobalStatusObject inst;
 		
 		if ((inst = INSTANCES.get(nodeObject)) != null)
@@ -133,6 +148,17 @@ public class GlobalStatusObject {
 		return inst;
 	}
 	
+	/**
+	 * Get the instance monitoring a Node, without creating one, so that a
+	 * Node without global monitors is not sent status queries.
+	 * 
+	 * @param nodeObject	The Node
+	 * @return The globalStatus Object for this Node, null if there is none
+	 */
+	public static GlobalStatusObject peekInstance(Node nodeObject) {
+		return INSTANCES.get(nodeObject);
+	}
+	
 	/**
 	 * Get a value for a global_status value in the database. The value will be
 	 * fetched from the cache, if the cache is older than the configured 
@@ -141,10 +167,33 @@ public class GlobalStatusObject {
 	 * @param name	The VARIABLE_NAME to return
 	 * @return	The VARIABLE_VALUE
 	 */
-	public String getStatus(String name) {
+	public synchronized String getStatus(String name) {
 		fetchData();
 		return m_globalStatus.get(name.toLowerCase());
 	}
+	/**
+	 * Get a value for a global_status value from the cache as it is,
+	 * without going back to the database.
+	 * 
+	 * @param name	The VARIABLE_NAME to return
+	 * @return	The VARIABLE_VALUE, null if not in the cache
+	 */
+	public synchronized String getCachedStatus(String name) {
+		return m_globalStatus.get(name.toLowerCase());
+	}
+	
+	/**
+	 * Whether the status of the Node is being fetched. The accessors wait
+	 * for the fetch, so a caller that must not be held up by a Node that
+	 * does not answer, such as the probe cycle after the Galera snapshot
+	 * of the Node timed out, checks this first. Not synchronized.
+	 * 
+	 * @return	true if a fetch is running
+	 */
+	public boolean isFetching() {
+		return m_fetching;
+	}
+	
 	/**
 	 * Get a value for a global_variables value in the database. The value will be
 	 * fetched from the cache, if the cache is older than the configured 
@@ -153,7 +202,7 @@ public class GlobalStatusObject {
 	 * @param name	The VARIABLE_NAME to return
 	 * @return	The VARIABLE_VALUE
 	 */
-	public String getVariable(String name) {
+	public synchronized String getVariable(String name) {
 		fetchData();
 		return m_globalVariables.get(name.toLowerCase());
 	}
@@ -166,7 +215,7 @@ public class GlobalStatusObject {
 	 * @param name	The VARIABLE_NAME to return
 	 * @return	The VARIABLE_VALUE
 	 */
-	public String getStatusOrVariable(String name) {
+	public synchronized String getStatusOrVariable(String name) {
 		String rval;
 		fetchData();
 		try {
@@ -181,25 +230,38 @@ public class GlobalStatusObject {
 	
 	/**
 	 * Refresh the cache if it is more than UPDATE_THRESHOLD milliseconds
-	 * old
+	 * old. The queries are recorded against QueryCost.STATUS, they are
+	 * shared by all the monitors of the Node.
 	 */
-	private void fetchData() {
-		Date now = new Date();
+	private synchronized void fetchData() {
+		long now = Clock.get().currentTimeMillis();
 		
-		if (now.getTime() - m_fetchTime <= UPDATE_THRESHOLD)
+		if (now - m_fetchTime <= UPDATE_THRESHOLD)
 		{
 			return;
 		}
+		long start = System.nanoTime();
+		Tracing.Span span = Tracing.statusFetch(m_node.getSystemID(), m_node.getID());
 		m_globalStatus.clear();
 		m_globalVariables.clear();
-		HashMap<String, String> status = m_node.fetchTable("show global status");
+		HashMap<String, String> status, variables;
+		QueryCost previous = QueryCost.attribute(QueryCost.STATUS);
+		m_fetching = true;
+		try {
+			status = m_node.fetchTable("show global status");
+			variables = m_node.fetchTable("show global variables");
+		} finally {
+			m_fetching = false;
+			QueryCost.attribute(previous);
+		}
 		if (status != null) {
 			m_globalStatus.putAll(status);
 		}
-		HashMap<String, String> variables = m_node.fetchTable("show global variables");
 		if (variables != null) {
 			m_globalVariables.putAll(variables);
 		}
-		m_fetchTime = now.getTime();
+		m_fetchTime = now;
+		m_fetchLatency.recordSince(start);
+		span.end(status != null && variables != null, m_globalStatus.size() + m_globalVariables.size());
 	}
 }
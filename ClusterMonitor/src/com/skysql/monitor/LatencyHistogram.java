@@ -0,0 +1,190 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, registered with JMX by Metrics.
+ *
+ * The times are kept in microseconds, in buckets of powers of two: bucket
+ * i counts the times t with 2^(i-1) <= t < 2^i, bucket 0 the times below
+ * one microsecond. Recording a time is a few atomic increments, with no
+ * allocation, so the histogram can be updated on every probe. The
+ * percentiles are the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+	/**
+	 * The number of buckets, the last one holds everything above 2^38
+	 * microseconds.
+	 */
+	static final int				BUCKETS = 40;
+	/**
+	 * The number of times in each bucket.
+	 */
+	private final AtomicLongArray	m_buckets = new AtomicLongArray(BUCKETS);
+	/**
+	 * The number of recorded times.
+	 */
+	private final AtomicLong		m_count = new AtomicLong();
+	/**
+	 * The sum of the recorded times, in microseconds.
+	 */
+	private final AtomicLong		m_sum = new AtomicLong();
+	/**
+	 * The highest recorded time, in microseconds.
+	 */
+	private final AtomicLong		m_max = new AtomicLong();
+
+	/**
+	 * Record a time.
+	 *
+	 * @param nanos	the time, in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = nanos < 0 ? 0 : nanos / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		m_buckets.incrementAndGet(bucket < BUCKETS ? bucket : BUCKETS - 1);
+		m_count.incrementAndGet();
+		m_sum.addAndGet(micros);
+		long max;
+		while ((max = m_max.get()) < micros && ! m_max.compareAndSet(max, micros)) {
+			// retry
+		}
+	}
+
+	/**
+	 * Record the time elapsed since a start time.
+	 *
+	 * @param startNanos	the start time, from System.nanoTime()
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#getCount()
+	 */
+	public long getCount() {
+		return m_count.get();
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#getMean()
+	 */
+	public double getMean() {
+		long count = m_count.get();
+		return count == 0 ? 0.0 : (double) m_sum.get() / count;
+	}
+
+	/**
+	 * @return	the sum of the recorded times, in microseconds
+	 */
+	public long getSum() {
+		return m_sum.get();
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#getMax()
+	 */
+	public long getMax() {
+		return m_max.get();
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#get50thPercentile()
+	 */
+	public long get50thPercentile() {
+		return getPercentile(0.50);
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#get95thPercentile()
+	 */
+	public long get95thPercentile() {
+		return getPercentile(0.95);
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#get99thPercentile()
+	 */
+	public long get99thPercentile() {
+		return getPercentile(0.99);
+	}
+
+	/**
+	 * Compute a percentile from the buckets. The buckets are read one by
+	 * one while they may be updated, so the result is approximate.
+	 *
+	 * @param fraction	the percentile, between 0 and 1
+	 * @return	the upper bound of the bucket of the percentile, in microseconds
+	 */
+	public long getPercentile(double fraction) {
+		long[] buckets = getBuckets();
+		long total = 0;
+		for (long count : buckets) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0L;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return i == BUCKETS - 1 ? m_max.get() : Math.min(1L << i, Math.max(1L, m_max.get()));
+			}
+		}
+		return m_max.get();
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#getBuckets()
+	 */
+	public long[] getBuckets() {
+		long[] buckets = new long[BUCKETS];
+		copyBuckets(buckets);
+		return buckets;
+	}
+
+	/**
+	 * Copy the counts of the buckets into an array of BUCKETS elements.
+	 *
+	 * @param buckets	the array to fill
+	 */
+	public void copyBuckets(long[] buckets) {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = m_buckets.get(i);
+		}
+	}
+
+	/**
+	 * @see com.skysql.monitor.LatencyHistogramMBean#reset()
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			m_buckets.set(i, 0L);
+		}
+		m_count.set(0L);
+		m_sum.set(0L);
+		m_max.set(0L);
+	}
+}
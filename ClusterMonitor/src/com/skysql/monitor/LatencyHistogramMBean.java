@@ -0,0 +1,41 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+/**
+ * The JMX view of a LatencyHistogram. The times are in microseconds.
+ */
+public interface LatencyHistogramMBean {
+	/** @return the number of recorded times */
+	public long getCount();
+	/** @return the mean of the recorded times */
+	public double getMean();
+	/** @return the highest recorded time */
+	public long getMax();
+	/** @return the median, to the bucket */
+	public long get50thPercentile();
+	/** @return the 95th percentile, to the bucket */
+	public long get95thPercentile();
+	/** @return the 99th percentile, to the bucket */
+	public long get99thPercentile();
+	/** @return the number of times in each bucket, bucket i holds times below 2^i */
+	public long[] getBuckets();
+	/** Clear the histogram. */
+	public void reset();
+}
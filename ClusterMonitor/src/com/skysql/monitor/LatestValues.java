@@ -0,0 +1,174 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The latest value of every Monitor of every Node and system watched by
+ * the process, kept for the metrics endpoint so that external tools can
+ * read them without going through the API.
+ *
+ * Only numeric values are kept. The values of a system are the ones with
+ * Node ID 0. Each value is also added to its history, see TimeSeriesStore.
+ */
+public class LatestValues {
+	/**
+	 * The values, keyed by system, Node and Monitor ID packed in a long.
+	 */
+	private static final ConcurrentHashMap<Long, Value>	VALUES = new ConcurrentHashMap<Long, Value>();
+
+	/**
+	 * The latest value of a Monitor.
+	 */
+	public static class Value {
+		private final int		m_systemID;
+		private final int		m_nodeID;
+		private final int		m_monitorID;
+		private final String	m_monitorKey;
+		private volatile double	m_value;
+		private volatile long	m_time;
+
+		private Value(int systemID, int nodeID, int monitorID, String monitorKey) {
+			m_systemID = systemID;
+			m_nodeID = nodeID;
+			m_monitorID = monitorID;
+			m_monitorKey = monitorKey;
+		}
+
+		/** @return the ID of the system */
+		public int getSystemID() {
+			return m_systemID;
+		}
+
+		/** @return the ID of the Node, 0 for the system value */
+		public int getNodeID() {
+			return m_nodeID;
+		}
+
+		/** @return the ID of the Monitor */
+		public int getMonitorID() {
+			return m_monitorID;
+		}
+
+		/** @return the key of the Monitor */
+		public String getMonitorKey() {
+			return m_monitorKey;
+		}
+
+		/** @return the value */
+		public double getValue() {
+			return m_value;
+		}
+
+		/** @return the time of the value, in milliseconds */
+		public long getTime() {
+			return m_time;
+		}
+	}
+
+	/**
+	 * Private constructor, the store is static.
+	 */
+	private LatestValues() {
+	}
+
+	/**
+	 * Record the value of a Monitor. Values that are not numbers are ignored.
+	 *
+	 * @param systemID		the ID of the system
+	 * @param nodeID		the ID of the Node, 0 for the system value
+	 * @param monitorID		the ID of the Monitor
+	 * @param monitorKey	the key of the Monitor
+	 * @param value			the value as reported to the API
+	 */
+	public static void put(int systemID, int nodeID, int monitorID, String monitorKey, String value) {
+		if (value == null) {
+			return;
+		}
+		double number;
+		try {
+			number = Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return;
+		}
+		Long key = Long.valueOf(((long) systemID << 42) | ((long) nodeID << 21) | monitorID);
+		Value entry = VALUES.get(key);
+		if (entry == null) {
+			Value created = new Value(systemID, nodeID, monitorID, monitorKey);
+			entry = VALUES.putIfAbsent(key, created);
+			if (entry == null) entry = created;
+		}
+		entry.m_value = number;
+		entry.m_time = Clock.get().currentTimeMillis();
+		TimeSeriesStore.record(systemID, nodeID, monitorID, entry.m_time, number);
+	}
+
+	/**
+	 * Forget the values and the history of a system, when it is no longer
+	 * monitored.
+	 *
+	 * @param systemID	the ID of the system
+	 */
+	public static void removeSystem(int systemID) {
+		TimeSeriesStore.removeSystem(systemID);
+		Iterator<Value> it = VALUES.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().m_systemID == systemID) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forget the values and the history of the nodes of a system that are
+	 * gone, when its nodes are reconfigured. The others are kept.
+	 *
+	 * @param systemID	the ID of the system
+	 * @param nodeIDs	the IDs of the nodes of the system
+	 */
+	public static void retainNodes(int systemID, Set<Integer> nodeIDs) {
+		TimeSeriesStore.retainNodes(systemID, nodeIDs);
+		Iterator<Value> it = VALUES.values().iterator();
+		while (it.hasNext()) {
+			Value value = it.next();
+			if (value.m_systemID == systemID && value.m_nodeID != 0 && ! nodeIDs.contains(value.m_nodeID)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return	the number of values
+	 */
+	public static int size() {
+		return VALUES.size();
+	}
+
+	/**
+	 * @return	all the values
+	 */
+	public static Collection<Value> getValues() {
+		return Collections.unmodifiableCollection(VALUES.values());
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.skysql.java.Logging;
+
+/**
+ * The registry of the self-metrics of the Monitor, exposed as JMX MBeans
+ * under the com.skysql.monitor domain:
+ *
+ * type=ProbeLatency		the probe time, per Monitor type and per Node
+ * type=CycleDuration		the time of a probe cycle, per system
+ * type=CycleOverruns		the cycles longer than the probe interval, per system
+ * type=ShedProbes			the probes not run because a cycle overran, per system
+ * type=ConnectAttempts		the connections to the monitored databases, per Node
+ * type=ConnectFailures		the failed connections, per Node
+ * type=StatusFetch			the time to fetch the global status and variables, per Node
+ * type=ApiLatency			the time of the MonData calls, per call
+ * type=ThrottleFactor		the probe throttling of a Node, 1 when not throttled
+ * type=ThrottledProbes		the probes skipped on busy nodes, per Node
+ * type=Queries			the queries run on the monitored databases, per Monitor key
+ * type=QueryTime			their time in microseconds, per Monitor key
+ * type=QueryRows			the rows they returned, per Monitor key
+ * type=QueryBytes			the size of the values they returned, per Monitor key
+ * type=BudgetDeferred		the probes deferred by the query budget, per Node
+ * type=CommandLatency		the time of the external commands, per command line
+ * type=CommandTimeouts		the commands killed or not started in time, per command line
+ * type=CommandExits		the runs of a command, per command line and exit code
+ *
+ * The histograms, counters and gauges are created on first use and kept for the
+ * life of the process. Callers on the probe path should keep a reference
+ * rather than looking them up on each use.
+ */
+public class Metrics {
+	/**
+	 * The JMX domain of the metrics.
+	 */
+	public static final String		DOMAIN = "com.skysql.monitor";
+	/**
+	 * The registered metrics, keyed by object name.
+	 */
+	private static final ConcurrentHashMap<String, Entry>	METRICS = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * A registered metric, with its type and name.
+	 */
+	public static class Entry {
+		private final String	m_type;
+		private final String	m_name;
+		private final Object	m_metric;
+
+		private Entry(String type, String name, Object metric) {
+			m_type = type;
+			m_name = name;
+			m_metric = metric;
+		}
+
+		/** @return the type of the metric */
+		public String getType() {
+			return m_type;
+		}
+
+		/** @return the name of the metric within its type */
+		public String getName() {
+			return m_name;
+		}
+
+		/** @return the LatencyHistogram, Counter or Gauge */
+		public Object getMetric() {
+			return m_metric;
+		}
+	}
+
+	/**
+	 * Private constructor, the registry is static.
+	 */
+	private Metrics() {
+	}
+
+	/**
+	 * Get a latency histogram, create and register it if necessary.
+	 *
+	 * @param type	the type of metric
+	 * @param name	the name of the metric within its type
+	 * @return	the histogram
+	 */
+	public static LatencyHistogram histogram(String type, String name) {
+		Entry entry = METRICS.get(objectName(type, name));
+		if (entry == null) {
+			entry = create(type, name, new LatencyHistogram());
+		}
+		return (LatencyHistogram) entry.m_metric;
+	}
+
+	/**
+	 * Get a counter, create and register it if necessary.
+	 *
+	 * @param type	the type of metric
+	 * @param name	the name of the metric within its type
+	 * @return	the counter
+	 */
+	public static Counter counter(String type, String name) {
+		Entry entry = METRICS.get(objectName(type, name));
+		if (entry == null) {
+			entry = create(type, name, new Counter());
+		}
+		return (Counter) entry.m_metric;
+	}
+
+	/**
+	 * Get a gauge, create and register it if necessary.
+	 *
+	 * @param type	the type of metric
+	 * @param name	the name of the metric within its type
+	 * @return	the gauge
+	 */
+	public static Gauge gauge(String type, String name) {
+		Entry entry = METRICS.get(objectName(type, name));
+		if (entry == null) {
+			entry = create(type, name, new Gauge());
+		}
+		return (Gauge) entry.m_metric;
+	}
+
+	/**
+	 * @return	all the registered metrics
+	 */
+	public static Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(METRICS.values());
+	}
+
+	/**
+	 * Add a metric to the registry, unless another thread did it first.
+	 *
+	 * @return	the metric in the registry
+	 */
+	private static Entry create(String type, String name, Object metric) {
+		String key = objectName(type, name);
+		Entry created = new Entry(type, name, metric);
+		Entry entry = METRICS.putIfAbsent(key, created);
+		if (entry == null) {
+			entry = created;
+			register(key, metric);
+		}
+		return entry;
+	}
+
+	/**
+	 * @return	the name of a Node in the metric names
+	 */
+	public static String nodeName(int systemID, int nodeID) {
+		return "system" + systemID + ".node" + nodeID;
+	}
+
+	/**
+	 * Build the JMX object name of a metric.
+	 */
+	private static String objectName(String type, String name) {
+		return DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name);
+	}
+
+	/**
+	 * Register a metric with the platform MBean server. A failure is
+	 * logged, the metric is still usable.
+	 */
+	private static void register(String name, Object metric) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(metric, new ObjectName(name));
+		} catch (Exception e) {
+			Logging.error("Cannot register metric " + name + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.skysql.java.Logging;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An optional HTTP endpoint serving, in the Prometheus text exposition
+ * format, the latest value of every system, Node and Monitor, see
+ * LatestValues, and the self-metrics of the process, see Metrics.
+ *
+ * The endpoint is started if metrics_port is set in the [monitor] section;
+ * it listens on metrics_address, 127.0.0.1 by default. The page is served
+ * on any path, usually /metrics.
+ *
+ * Scrapes are served one at a time and rendered into a buffer kept from
+ * one scrape to the next, so that a scrape allocates little beyond the
+ * formatting of the numbers.
+ */
+public class MetricsEndpoint implements HttpHandler {
+	/**
+	 * The address listened on when metrics_address is not set.
+	 */
+	private static final String		DEFAULT_ADDRESS = "127.0.0.1";
+	/**
+	 * The initial size of the buffers, in characters and bytes.
+	 */
+	private static final int		INITIAL_SIZE = 65536;
+	/**
+	 * The content type of the Prometheus text format.
+	 */
+	private static final String		CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	/**
+	 * The upper bounds of the histogram buckets, in seconds.
+	 */
+	private static final String[]	BUCKET_BOUNDS = new String[LatencyHistogram.BUCKETS];
+	static {
+		for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+			BUCKET_BOUNDS[i] = Double.toString((1L << i) / 1000000.0);
+		}
+	}
+	/**
+	 * The running endpoint, null if not started.
+	 */
+	private static MetricsEndpoint	INSTANCE = null;
+	/**
+	 * The page being rendered, reused by every scrape.
+	 */
+	private final StringBuilder		m_text;
+	/**
+	 * The encoded page, reused by every scrape and grown as needed.
+	 */
+	private byte[]					m_bytes;
+	/**
+	 * The counts of the buckets of the histogram being rendered.
+	 */
+	private final long[]			m_buckets;
+	/**
+	 * The HTTP server.
+	 */
+	private HttpServer				m_server;
+
+	/**
+	 * Private constructor, use start().
+	 */
+	private MetricsEndpoint() {
+		m_text = new StringBuilder(INITIAL_SIZE);
+		m_bytes = new byte[INITIAL_SIZE];
+		m_buckets = new long[LatencyHistogram.BUCKETS];
+	}
+
+	/**
+	 * Start the endpoint if metrics_port is set. Errors are logged, the
+	 * Monitor runs without the endpoint.
+	 */
+	public static synchronized void start() {
+		int port = MonitorOptions.getInt("metrics_port", 0);
+		if (port <= 0 || INSTANCE != null) {
+			return;
+		}
+		String address = MonitorOptions.get("metrics_address");
+		if (address == null) {
+			address = DEFAULT_ADDRESS;
+		}
+		MetricsEndpoint endpoint = new MetricsEndpoint();
+		try {
+			endpoint.m_server = HttpServer.create(new InetSocketAddress(address, port), 8);
+		} catch (IOException e) {
+			Logging.error("Cannot start the metrics endpoint on " + address + ":" + port + ": " + e.getMessage());
+			return;
+		}
+		endpoint.m_server.createContext("/", endpoint);
+		endpoint.m_server.setExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MetricsEndpoint");
+				t.setDaemon(true);
+				return t;
+			}
+		}));
+		endpoint.m_server.start();
+		INSTANCE = endpoint;
+		Logging.info("Metrics endpoint listening on " + address + ":" + port);
+	}
+
+	/**
+	 * Serve a scrape.
+	 *
+	 * @see com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.HttpExchange)
+	 */
+	public synchronized void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (! exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			render();
+			int length = encode();
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(m_bytes, 0, length);
+			out.close();
+		} catch (RuntimeException e) {
+			Logging.error("Metrics endpoint exception: " + e.getMessage());
+			exchange.sendResponseHeaders(500, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Render the page into m_text.
+	 */
+	private void render() {
+		StringBuilder text = m_text;
+		text.setLength(0);
+		text.append("# HELP mariadb_manager_node_value The latest value of a Monitor on a Node.\n");
+		text.append("# TYPE mariadb_manager_node_value gauge\n");
+		for (LatestValues.Value value : LatestValues.getValues()) {
+			if (value.getNodeID() == 0) continue;
+			text.append("mariadb_manager_node_value{system=\"").append(value.getSystemID())
+				.append("\",node=\"").append(value.getNodeID())
+				.append("\",monitor=\"");
+			appendLabel(text, value.getMonitorKey());
+			text.append("\"} ").append(value.getValue()).append('\n');
+		}
+		text.append("# HELP mariadb_manager_system_value The latest value of a Monitor on a system.\n");
+		text.append("# TYPE mariadb_manager_system_value gauge\n");
+		for (LatestValues.Value value : LatestValues.getValues()) {
+			if (value.getNodeID() != 0) continue;
+			text.append("mariadb_manager_system_value{system=\"").append(value.getSystemID())
+				.append("\",monitor=\"");
+			appendLabel(text, value.getMonitorKey());
+			text.append("\"} ").append(value.getValue()).append('\n');
+		}
+		text.append("# HELP mariadb_manager_monitor_events_total The events counted by the Monitor.\n");
+		text.append("# TYPE mariadb_manager_monitor_events_total counter\n");
+		for (Metrics.Entry entry : Metrics.getEntries()) {
+			if (! (entry.getMetric() instanceof Counter)) continue;
+			text.append("mariadb_manager_monitor_events_total");
+			appendLabels(text, entry, null);
+			text.append(' ').append(((Counter) entry.getMetric()).getValue()).append('\n');
+		}
+		text.append("# HELP mariadb_manager_monitor_state The state measured by the Monitor.\n");
+		text.append("# TYPE mariadb_manager_monitor_state gauge\n");
+		for (Metrics.Entry entry : Metrics.getEntries()) {
+			if (! (entry.getMetric() instanceof Gauge)) continue;
+			text.append("mariadb_manager_monitor_state");
+			appendLabels(text, entry, null);
+			text.append(' ').append(((Gauge) entry.getMetric()).getValue()).append('\n');
+		}
+		text.append("# HELP mariadb_manager_monitor_latency_seconds The latencies measured by the Monitor.\n");
+		text.append("# TYPE mariadb_manager_monitor_latency_seconds histogram\n");
+		for (Metrics.Entry entry : Metrics.getEntries()) {
+			if (! (entry.getMetric() instanceof LatencyHistogram)) continue;
+			LatencyHistogram histogram = (LatencyHistogram) entry.getMetric();
+			long[] buckets = m_buckets;
+			histogram.copyBuckets(buckets);
+			long count = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				count += buckets[i];
+				if (i == buckets.length - 1) continue;
+				text.append("mariadb_manager_monitor_latency_seconds_bucket");
+				appendLabels(text, entry, BUCKET_BOUNDS[i]);
+				text.append(' ').append(count).append('\n');
+			}
+			text.append("mariadb_manager_monitor_latency_seconds_bucket");
+			appendLabels(text, entry, "+Inf");
+			text.append(' ').append(count).append('\n');
+			text.append("mariadb_manager_monitor_latency_seconds_sum");
+			appendLabels(text, entry, null);
+			text.append(' ').append(histogram.getSum() / 1000000.0).append('\n');
+			text.append("mariadb_manager_monitor_latency_seconds_count");
+			appendLabels(text, entry, null);
+			text.append(' ').append(count).append('\n');
+		}
+	}
+
+	/**
+	 * Append the labels of a self-metric.
+	 */
+	private static void appendLabels(StringBuilder text, Metrics.Entry entry, String le) {
+		text.append("{type=\"");
+		appendLabel(text, entry.getType());
+		text.append("\",name=\"");
+		appendLabel(text, entry.getName());
+		if (le != null) {
+			text.append("\",le=\"").append(le);
+		}
+		text.append("\"}");
+	}
+
+	/**
+	 * Append a label value, escaped as the exposition format requires.
+	 */
+	private static void appendLabel(StringBuilder text, String value) {
+		if (value == null) return;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				text.append('\\').append(c);
+			} else if (c == '\n') {
+				text.append("\\n");
+			} else {
+				text.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Encode m_text in UTF-8 into m_bytes.
+	 *
+	 * @return	the number of bytes
+	 */
+	private int encode() {
+		int length = m_text.length();
+		if (m_bytes.length < length * 3) {
+			m_bytes = new byte[Math.max(length * 3, m_bytes.length * 2)];
+		}
+		byte[] bytes = m_bytes;
+		int n = 0;
+		for (int i = 0; i < length; i++) {
+			char c = m_text.charAt(i);
+			if (c < 0x80) {
+				bytes[n++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[n++] = (byte) (0xc0 | (c >> 6));
+				bytes[n++] = (byte) (0x80 | (c & 0x3f));
+			} else {
+				// Characters outside the BMP are not expected in Monitor keys
+				bytes[n++] = (byte) (0xe0 | (c >> 12));
+				bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				bytes[n++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		return n;
+	}
+}
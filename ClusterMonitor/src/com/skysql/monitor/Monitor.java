@@ -72,6 +72,63 @@ public class Monitor {
 	 * The last value probed if this is a delta Monitor
 	 */
 	protected Float			m_lastAbsValue = null;
+	/**
+	 * The scope of the Monitor
+	 */
+	protected Scope			m_scope;
+	/**
+	 * How the values of the nodes make the system value
+	 */
+	protected SystemAggregator.Aggregation	m_aggregation;
+	/**
+	 * The last probe saved a value from the Node, reset by the
+	 * ClusterMonitor before each probe
+	 */
+	protected boolean		m_responded;
+	/**
+	 * The time of the last probe, in milliseconds, 0 if never probed
+	 */
+	private volatile long	m_probedAt;
+	/**
+	 * The priority class of the Monitor, the &lt;key&gt;.priority option
+	 */
+	protected Priority		m_priority;
+	/**
+	 * The status value or variable the SQL reads, null if the SQL is run
+	 * on the Node, see StatusQueryRewriter
+	 */
+	protected StatusQueryRewriter.Lookup	m_lookup;
+	/**
+	 * The cost of the queries of the Monitor on its Node
+	 */
+	protected QueryCost		m_cost;
+	/**
+	 * The probe latency of the Monitor type
+	 */
+	private LatencyHistogram	m_typeLatency;
+	/**
+	 * The probe latency of the Node
+	 */
+	private LatencyHistogram	m_nodeLatency;
+	
+	/**
+	 * The scope of a Monitor. A NODE Monitor is probed on every Node,
+	 * a CLUSTER Monitor returns the same value on every Node of the
+	 * system, so it is probed once per system on a single Node.
+	 */
+	public enum Scope {
+		NODE, CLUSTER
+	}
+	
+	/**
+	 * The priority class of a Monitor. When a probe cycle overruns its
+	 * interval the CRITICAL monitors, those that detect the state of the
+	 * nodes, still run first and in full, the NORMAL monitors run until
+	 * the cycle is late and the BULK monitors are shed.
+	 */
+	public enum Priority {
+		CRITICAL, NORMAL, BULK
+	}
 	
 	/**
 	 * The Monitor constructor
@@ -92,6 +149,69 @@ public class Monitor {
 		m_interval = m_confdb.getMonitorClassInterval(m_monitor_key);
 		if (m_interval == null)	m_interval = 30;
 		m_delta = m_confdb.isMonitorDelta(m_monitor_id);
+		m_scope = getConfiguredScope();
+		if (m_scope == null) m_scope = Scope.NODE;
+		m_aggregation = SystemAggregator.Aggregation.parse(MonitorOptions.get(m_monitor_key, "aggregate"),
+				m_systemAverage ? SystemAggregator.Aggregation.AVG : SystemAggregator.Aggregation.SUM);
+		m_responded = false;
+		m_priority = getConfiguredPriority();
+		m_cost = new QueryCost(m_monitor_key != null ? m_monitor_key : "monitor" + id);
+		m_typeLatency = Metrics.histogram("ProbeLatency", getClass().getSimpleName());
+		if (m_node != null)
+			m_nodeLatency = Metrics.histogram("ProbeLatency", Metrics.nodeName(m_node.getSystemID(), m_node.getID()));
+	}
+	
+	/**
+	 * Record the time of a probe of the Monitor, in the histograms of its
+	 * type and of its Node, and when the probe ran.
+	 * 
+	 * @param startNanos	the start of the probe, from System.nanoTime()
+	 */
+	public void recordProbeTime(long startNanos)
+	{
+		m_probedAt = Clock.get().currentTimeMillis();
+		long elapsed = System.nanoTime() - startNanos;
+		m_typeLatency.record(elapsed);
+		if (m_nodeLatency != null)
+			m_nodeLatency.record(elapsed);
+	}
+	
+	/**
+	 * Read the scope of the Monitor from the option &lt;key&gt;.scope
+	 * of the configuration file.
+	 * 
+	 * @return	the configured scope, null if not configured
+	 */
+	protected Scope getConfiguredScope() {
+		String scope = MonitorOptions.get(m_monitor_key, "scope");
+		if (scope == null) {
+			return null;
+		}
+		try {
+			return Scope.valueOf(scope.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			Logging.warn("Invalid scope " + scope + " for Monitor " + m_monitor_key);
+			return null;
+		}
+	}
+	
+	/**
+	 * Read the priority of the Monitor from the option &lt;key&gt;.priority,
+	 * critical, normal or bulk; &lt;key&gt;.critical = yes is the same as
+	 * critical.
+	 * 
+	 * @return	the configured priority, NORMAL if not configured
+	 */
+	private Priority getConfiguredPriority() {
+		String priority = MonitorOptions.get(m_monitor_key, "priority");
+		if (priority != null) {
+			try {
+				return Priority.valueOf(priority.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				Logging.warn("Invalid priority " + priority + " for Monitor " + m_monitor_key);
+			}
+		}
+		return MonitorOptions.getBoolean(m_monitor_key + ".critical", false) ? Priority.CRITICAL : Priority.NORMAL;
 	}
 	
 	/**
@@ -103,6 +223,16 @@ public class Monitor {
 		return m_interval;
 	}
 	
+	/**
+	 * Called on every due Monitor of a list before any of them is probed,
+	 * so that slow work, such as an external command, can be started for
+	 * all the nodes at once and collected by probe(). Does nothing by
+	 * default.
+	 */
+	public void prefetch()
+	{
+	}
+	
 	/**
 	 * The probe function, called once per probe cycle.
 	 * This is the method that get overridden by the custom Monitor classes
@@ -113,19 +243,48 @@ public class Monitor {
 	{
 		if (m_sql.isEmpty())
 			return;
-		String value = m_node.execute(m_sql);
+		String value = query();
 		if (verbose)
 		{
 			Logging.debug("probe: " + m_sql + " Last value " + m_lastValue + " new value " + value);
 		}
+		boolean responded = value != null;
 		if (value == null)
 		{
 			value = "0";
 		}
 		saveObservation(value);
+		m_responded = responded;
 		m_lastValue = value;
 	}
 	
+	/**
+	 * Run the SQL of the Monitor on the Node, or read the value from the
+	 * status snapshot of the Node if the SQL reads a single status value
+	 * or variable.
+	 * 
+	 * @return	The single row/column result of the query, null if none
+	 */
+	protected String query()
+	{
+		if (m_lookup != null)
+			return m_lookup.get(GlobalStatusObject.getInstance(m_node));
+		return m_node.execute(m_sql);
+	}
+	
+	/**
+	 * Serve the Monitor from the status snapshot of the Node, if its SQL
+	 * reads a single status value or variable. Called when the SQL
+	 * monitors are built.
+	 * 
+	 * @return	True if the Monitor is served from the snapshot
+	 */
+	public boolean rewriteStatusQuery()
+	{
+		m_lookup = StatusQueryRewriter.recognize(m_sql);
+		return m_lookup != null;
+	}
+	
 	/**
 	 * Save an observed value for the Monitor
 	 * 
@@ -134,6 +293,8 @@ public class Monitor {
 	 */
 	protected boolean saveObservation(String observation)
 	{
+		m_responded = observation != null;
+		LatestValues.put(m_node.getSystemID(), m_node.getID(), m_monitor_id, m_monitor_key, observation);
 		return m_node.saveObservation(m_monitor_id, observation);
 	}
 	
@@ -147,6 +308,83 @@ public class Monitor {
 		return m_lastValue;
 	}
 	
+	/**
+	 * Whether the last probe saved a value from the Node, so that the
+	 * value counts in the system value.
+	 * 
+	 * @return True if the Node answered the last probe
+	 */
+	public boolean hasResponded()
+	{
+		return m_responded;
+	}
+	
+	/**
+	 * Whether the Monitor was probed within its interval, so that its
+	 * value is the current one rather than the last known.
+	 * 
+	 * @return True if the last probe is at most one interval old
+	 */
+	public boolean isCurrent()
+	{
+		return m_probedAt != 0 && Clock.get().currentTimeMillis() - m_probedAt <= m_interval * 1000L;
+	}
+	
+	/**
+	 * How the values of the nodes make the system value, the aggregate
+	 * option of the Monitor, by default the average if the Monitor is
+	 * system averaged and the sum otherwise.
+	 * 
+	 * @return The aggregation of the Monitor
+	 */
+	public SystemAggregator.Aggregation getAggregation()
+	{
+		return m_aggregation;
+	}
+	
+	/**
+	 * The priority class of the Monitor, see Priority.
+	 * 
+	 * @return The priority of the Monitor
+	 */
+	public Priority getPriority()
+	{
+		return m_priority;
+	}
+	
+	/**
+	 * Whether the Monitor reads its value from the status snapshot of the
+	 * Node, see GlobalStatusObject.
+	 * 
+	 * @return	True if the Monitor is served from the snapshot
+	 */
+	public boolean readsStatusSnapshot()
+	{
+		return m_lookup != null;
+	}
+	
+	/**
+	 * The cost of the queries of the Monitor on its Node, see QueryCost.
+	 * 
+	 * @return The account of the queries of the Monitor
+	 */
+	public QueryCost getQueryCost()
+	{
+		return m_cost;
+	}
+	
+	/**
+	 * A critical Monitor is probed at its interval even on a Node that
+	 * is throttled because it looks overloaded, see ThrottleController,
+	 * or when the probe cycle overruns.
+	 * 
+	 * @return True if the Monitor is never throttled nor shed
+	 */
+	public boolean isCritical()
+	{
+		return getPriority() == Priority.CRITICAL;
+	}
+	
 	/**
 	 * Return the ID of the Monitor
 	 * 
@@ -162,6 +400,7 @@ public class Monitor {
 	 */
 	public void setNode(Node node) {
 		this.m_node = node;
+		m_nodeLatency = node == null ? null : Metrics.histogram("ProbeLatency", Metrics.nodeName(node.getSystemID(), node.getID()));
 	}
 
 	/**
@@ -184,4 +423,16 @@ public class Monitor {
 	{
 		return m_systemAverage;
 	}
+	
+	/**
+	 * A cluster scope Monitor is probed on a single healthy Node of the
+	 * system, its value is the system value. Only monitors with a system
+	 * value can be cluster scope.
+	 * 
+	 * @return True if the Monitor is probed once per system
+	 */
+	public boolean isClusterScope()
+	{
+		return m_scope == Scope.CLUSTER && hasSystemValue();
+	}
 }
@@ -0,0 +1,142 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.skysql.java.Configuration;
+import com.skysql.java.Logging;
+
+/**
+ * Access to the options of the [monitor] section of manager_monitor.ini.
+ * 
+ * The section is read once, the first time an option is requested. Options
+ * that apply to a single Monitor are named after the Monitor key, for
+ * instance:
+ * 
+ * clustersize.scope = cluster
+ */
+public class MonitorOptions {
+	/**
+	 * The options of the [monitor] section.
+	 */
+	private static volatile Map<String, String>		m_options = null;
+	
+	/**
+	 * Load the [monitor] section, if not done yet.
+	 * 
+	 * @return	the options, an empty map if the section cannot be read
+	 */
+	private static Map<String, String> options() {
+		Map<String, String> options = m_options;
+		if (options == null) {
+			options = new HashMap<String, String>();
+			try {
+				Map<String, String> section = new Configuration().getConfig(Configuration.DEFAULT_SECTION.MONITOR);
+				if (section != null) {
+					options.putAll(section);
+				}
+			} catch (Exception e) {
+				Logging.error("Cannot read the monitor options: " + e.getMessage());
+			}
+			m_options = options;
+		}
+		return options;
+	}
+	
+	/**
+	 * Set an option, for the harnesses that run the monitors without a
+	 * manager_monitor.ini. Options are read when the classes using them
+	 * are loaded, so this must be called before.
+	 * 
+	 * @param name	the name of the option
+	 * @param value	the value of the option
+	 */
+	public static synchronized void set(String name, String value) {
+		Map<String, String> options = new HashMap<String, String>(options());
+		options.put(name, value);
+		m_options = options;
+	}
+	
+	/**
+	 * Get an option.
+	 * 
+	 * @param name	the name of the option
+	 * @return	the value of the option, null if not set
+	 */
+	public static String get(String name) {
+		String value = options().get(name);
+		if (value == null) {
+			return null;
+		}
+		value = value.trim();
+		return value.isEmpty() ? null : value;
+	}
+	
+	/**
+	 * Get an option of a Monitor.
+	 * 
+	 * @param monitorKey	the key of the Monitor
+	 * @param name			the name of the option
+	 * @return	the value of the option, null if not set
+	 */
+	public static String get(String monitorKey, String name) {
+		if (monitorKey == null) {
+			return null;
+		}
+		return get(monitorKey + "." + name);
+	}
+	
+	/**
+	 * Get a boolean option. Yes, true, on and 1 are true.
+	 * 
+	 * @param name			the name of the option
+	 * @param defaultValue	the value to return if the option is not set
+	 * @return	the value of the option
+	 */
+	public static boolean getBoolean(String name, boolean defaultValue) {
+		String value = get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		return value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("true")
+				|| value.equalsIgnoreCase("on") || value.equals("1");
+	}
+	
+	/**
+	 * Get an integer option.
+	 * 
+	 * @param name			the name of the option
+	 * @param defaultValue	the value to return if the option is not set or invalid
+	 * @return	the value of the option
+	 */
+	public static int getInt(String name, int defaultValue) {
+		String value = get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			Logging.warn("Invalid value for option " + name + ": " + value);
+			return defaultValue;
+		}
+	}
+}
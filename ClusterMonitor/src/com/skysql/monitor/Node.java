@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.skysql.java.Credential;
 import com.skysql.java.Logging;
@@ -74,7 +76,7 @@ public class Node implements Runnable {
 	/**
 	 * True if a connection exists
 	 */
-	private boolean 	m_connected;
+	private volatile boolean	m_connected;
 	/**
 	 * The thread being used to create the connection
 	 */
@@ -97,6 +99,82 @@ public class Node implements Runnable {
 	 * Integer numbers are the Monitor id's, Strings are the values.
 	 */
 	private LinkedHashMap<Integer, String>	m_observedValues;
+	/**
+	 * The connections attempted to the monitored database
+	 */
+	private Counter		m_connectAttempts;
+	/**
+	 * The connections to the monitored database that failed
+	 */
+	private Counter		m_connectFailures;
+	/**
+	 * The queries run on the Node, through any of its connections, and
+	 * their time in nanoseconds, since the last takeQueries() and takeNanos()
+	 */
+	private AtomicLong	m_windowQueries;
+	private AtomicLong	m_windowNanos;
+	/**
+	 * The connection of its own to the Node used by the slow lane, see
+	 * SlowSqlMonitor, null until used
+	 */
+	private Node		m_slowLane;
+	/**
+	 * The connection to the Node used by the burst samples, see
+	 * BurstSampler, null until used
+	 */
+	private Node		m_sampleLane;
+	/**
+	 * True once the lanes are closed: the Node is being discarded and they
+	 * are not opened again
+	 */
+	private boolean		m_slowLaneClosed;
+	private boolean		m_sampleLaneClosed;
+	/**
+	 * True if the Node is a lane that was closed: it does not reconnect
+	 */
+	private volatile boolean	m_discarded;
+	/**
+	 * The time of the bulk updates of the observations
+	 */
+	private static final LatencyHistogram	BULK_LATENCY = Metrics.histogram("ApiLatency", "bulkMonitorData");
+	/**
+	 * The time of the lookups of the address of a Node
+	 */
+	private static final LatencyHistogram	ADDRESS_LATENCY = Metrics.histogram("ApiLatency", "getNodePrivateIP");
+	
+	/**
+	 * Opens the connections to the monitored databases.
+	 */
+	public interface ConnectionFactory {
+		/**
+		 * Open a connection to a monitored database.
+		 * 
+		 * @param confdb	The API handle, for the credentials
+		 * @param systemID	The System ID
+		 * @param nodeNo	The Node ID
+		 * @param url		The JDBC URL of the Node
+		 * @return	The connection
+		 * @throws Exception	If the connection cannot be opened
+		 */
+		public Connection connect(MonData confdb, int systemID, int nodeNo, String url) throws Exception;
+	}
+	
+	/**
+	 * The default connection factory: the MariaDB JDBC driver, with the
+	 * monitor credentials of the Node from the API.
+	 */
+	public static final ConnectionFactory	DRIVER_CONNECTIONS = new ConnectionFactory() {
+		public Connection connect(MonData confdb, int systemID, int nodeNo, String url) throws Exception {
+			Class.forName("org.mariadb.jdbc.Driver").newInstance();
+			Credential cred = confdb.getNodeMonitorCredentials(nodeNo);
+			return DriverManager.getConnection(url + "?socketTimeout=60000", cred.getUsername(), cred.getPassword());
+		}
+	};
+	
+	/**
+	 * The connection factory of all the nodes, replaced by load tests.
+	 */
+	private static volatile ConnectionFactory	m_connectionFactory = DRIVER_CONNECTIONS;
 	
 	/**
 	 * Node constructor
@@ -114,6 +192,10 @@ public class Node implements Runnable {
 		m_confdb = confDB;
 		m_tempts = 1;
 		m_observedValues = new LinkedHashMap<Integer, String>();
+		m_connectAttempts = Metrics.counter("ConnectAttempts", Metrics.nodeName(systemID, nodeNo));
+		m_connectFailures = Metrics.counter("ConnectFailures", Metrics.nodeName(systemID, nodeNo));
+		m_windowQueries = new AtomicLong();
+		m_windowNanos = new AtomicLong();
 		m_address = confDB.getNodePrivateIP(nodeNo);
 		if (m_address.isEmpty()) {
 			m_address = null;
@@ -127,6 +209,134 @@ public class Node implements Runnable {
 		Logging.info("Created Node: " + this);
 	}
 
+	/**
+	 * Constructor for a stand-in Node, used by benchmarks and load tests
+	 * that override execute() and fetchTable(). The Node does not connect
+	 * and has no API handle.
+	 * 
+	 * @param systemID	The System ID
+	 * @param nodeNo	The Node ID
+	 * @param address	The address of the Node
+	 */
+	protected Node(int systemID, int nodeNo, String address)
+	{
+		m_connected = false;
+		m_connecting = false;
+		m_systemID = systemID;
+		m_nodeNo = nodeNo;
+		m_confdb = null;
+		m_tempts = 1;
+		m_observedValues = new LinkedHashMap<Integer, String>();
+		m_connectAttempts = Metrics.counter("ConnectAttempts", Metrics.nodeName(systemID, nodeNo));
+		m_connectFailures = Metrics.counter("ConnectFailures", Metrics.nodeName(systemID, nodeNo));
+		m_windowQueries = new AtomicLong();
+		m_windowNanos = new AtomicLong();
+		m_address = address;
+		m_URL = "jdbc:mysql://" + m_address + ":3306/";
+	}
+
+	/**
+	 * Constructor for a lane of a Node, the slow lane or the sample lane:
+	 * the same database through a connection of its own, which counts its
+	 * queries with those of the Node.
+	 * 
+	 * @param parent	The Node
+	 */
+	private Node(Node parent)
+	{
+		m_connected = false;
+		m_connecting = false;
+		m_systemID = parent.m_systemID;
+		m_nodeNo = parent.m_nodeNo;
+		m_confdb = parent.m_confdb;
+		m_tempts = 1;
+		m_observedValues = new LinkedHashMap<Integer, String>();
+		m_connectAttempts = parent.m_connectAttempts;
+		m_connectFailures = parent.m_connectFailures;
+		m_windowQueries = parent.m_windowQueries;
+		m_windowNanos = parent.m_windowNanos;
+		m_address = parent.m_address;
+		m_URL = parent.m_URL;
+		connect();
+	}
+
+	/**
+	 * Get the slow lane of the Node, a connection of its own to the same
+	 * database for the expensive queries, so that they do not hold up
+	 * the probe cycle. The connection is opened on the first call.
+	 * 
+	 * @return The slow lane Node, null once closed
+	 */
+	public synchronized Node getSlowLane()
+	{
+		if (m_slowLaneClosed)
+			return null;
+		if (m_slowLane == null)
+			m_slowLane = new Node(this);
+		return m_slowLane;
+	}
+	
+	/**
+	 * Close the connection of the slow lane for good, when the Node is
+	 * discarded. A query still running on it fails and does not reconnect.
+	 */
+	public synchronized void closeSlowLane()
+	{
+		m_slowLaneClosed = true;
+		if (m_slowLane != null)
+			m_slowLane.discard();
+		m_slowLane = null;
+	}
+
+	/**
+	 * Get the sample lane of the Node, a connection to the same database
+	 * for the burst samples, so that they never share the connection of
+	 * the probes. The connection is opened on the first call.
+	 * 
+	 * @return The sample lane Node, null once closed
+	 */
+	public synchronized Node getSampleLane()
+	{
+		if (m_sampleLaneClosed)
+			return null;
+		if (m_sampleLane == null)
+			m_sampleLane = new Node(this);
+		return m_sampleLane;
+	}
+	
+	/**
+	 * Close the connection of the sample lane for good, when the Node is
+	 * discarded. A sample still running on it fails and does not reconnect.
+	 */
+	public synchronized void closeSampleLane()
+	{
+		m_sampleLaneClosed = true;
+		if (m_sampleLane != null)
+			m_sampleLane.discard();
+		m_sampleLane = null;
+	}
+	
+	/**
+	 * Close the connection of a lane and keep it closed.
+	 */
+	private void discard()
+	{
+		m_discarded = true;
+		close();
+	}
+
+	/**
+	 * Replace the way the nodes connect to their databases, for instance
+	 * with in-process stand-ins in a load test. Applies to the connections
+	 * opened after the call.
+	 * 
+	 * @param factory	The connection factory, null for DRIVER_CONNECTIONS
+	 */
+	public static void setConnectionFactory(ConnectionFactory factory)
+	{
+		m_connectionFactory = factory == null ? DRIVER_CONNECTIONS : factory;
+	}
+	
 	/**
 	 * Close the connection to the monitored database
 	 */
@@ -151,6 +361,8 @@ public class Node implements Runnable {
 	 */
 	private synchronized void connect() 
 	{
+		if (m_discarded)
+			return;
 		Logging.info("Try to connect to monitored database " + m_address);
 		if (m_connecting)
 		{
@@ -188,23 +400,28 @@ public class Node implements Runnable {
 		if (m_address == null) {
 			return;
 		}
+		m_connectAttempts.increment();
+		Tracing.Span span = Tracing.connect(m_systemID, m_nodeNo);
 		try {
-			  Class.forName("org.mariadb.jdbc.Driver").newInstance();
-			  Credential cred = m_confdb.getNodeMonitorCredentials(m_nodeNo);
-			  m_mondb = DriverManager.getConnection(m_URL + "?socketTimeout=60000", cred.getUsername(), cred.getPassword());
+			  m_mondb = m_connectionFactory.connect(m_confdb, m_systemID, m_nodeNo, m_URL);
 			  m_connected = true;
 			  Logging.info("Connected to database " + m_address);
+			  if (m_discarded)
+				  close();
 		}
 		catch (SQLException sqlex)
 		{
 			  m_connected = false;
+			  m_connectFailures.increment();
 			  Logging.error("Node SQL failed: " + sqlex.getMessage());
 		}
 		catch (Exception ex)
 		{
 			  m_connected = false;
+			  m_connectFailures.increment();
 			  Logging.error("Node connection failed: " + ex.getMessage());
 		}
+		span.end(m_connected, 0);
 		m_connecting = false;
 	}
 	
@@ -219,15 +436,21 @@ public class Node implements Runnable {
 		if (! m_connected)
 		{
 			connect();
+			SnapshotRecorder.statement(m_systemID, m_nodeNo, sql, null);
 			return null;
 		}
+		Tracing.Span span = Tracing.statement(m_systemID, m_nodeNo, sql);
+		long start = System.nanoTime();
+		boolean success = false;
+		String value = null;
 		try {
 			Statement statement = m_mondb.createStatement();
 			statement.setQueryTimeout(60);
 			ResultSet result = statement.executeQuery(sql);
-			if (!result.first())
-				return null;
-			return result.getString(1);
+			success = true;
+			if (result.first())
+				value = result.getString(1);
+			return value;
 		}
 		catch (SQLException sqlex)
 		{
@@ -239,9 +462,27 @@ public class Node implements Runnable {
 				// Ignore failures
 			}
 		}
+		finally
+		{
+			span.end(success, success ? 1 : 0);
+			long nanos = System.nanoTime() - start;
+			QueryCost.record(nanos, success ? 1 : 0, value == null ? 0 : value.length());
+			recordQuery(nanos);
+			SnapshotRecorder.statement(m_systemID, m_nodeNo, sql, value);
+		}
 		return null;	// If we can't probe return null
 	}
 	
+	/**
+	 * Whether a connection to the monitored database is open
+	 * 
+	 * @return True if the Node is connected
+	 */
+	public boolean isConnected()
+	{
+		return m_connected;
+	}
+	
 	/**
 	 * Get the Node ID of the Node
 	 * 
@@ -252,6 +493,34 @@ public class Node implements Runnable {
 		return m_nodeNo;
 	}
 	
+	/**
+	 * Get the address of the Node
+	 * 
+	 * @return The private IP of the Node, null if unknown
+	 */
+	public String getAddress()
+	{
+		return m_address;
+	}
+	
+	/**
+	 * Get the address to ping the Node at: the private IP known when the
+	 * Node was created, or else the one the API has now.
+	 * 
+	 * @return The private IP of the Node, null if the API has none either
+	 */
+	public String getPingAddress()
+	{
+		if (m_address != null)
+			return m_address;
+		if (m_confdb == null)
+			return null;
+		long start = System.nanoTime();
+		String address = m_confdb.getNodePrivateIP(m_nodeNo);
+		ADDRESS_LATENCY.recordSince(start);
+		return address == null || address.isEmpty() ? null : address;
+	}
+	
 	/**
 	 * Get the System ID of the Node
 	 * 
@@ -269,7 +538,10 @@ public class Node implements Runnable {
 	public boolean isReachable()
 	{
 		try {
-			return InetAddress.getByName(m_confdb.getNodePrivateIP(m_nodeNo)).isReachable(4000);
+			String address = getPingAddress();
+			if (address == null)
+				return false;
+			return InetAddress.getByName(address).isReachable(4000);
 		} catch (Exception ex) {
 			return false;
 		}
@@ -295,16 +567,18 @@ public class Node implements Runnable {
 		if (! m_connected)
 		{
 			connect();
+			SnapshotRecorder.table(m_systemID, m_nodeNo, sql, null);
 			return null;
 		}
+		Tracing.Span span = Tracing.statement(m_systemID, m_nodeNo, sql);
+		long start = System.nanoTime();
+		boolean success = false;
 		try {
 			Statement statement = m_mondb.createStatement();
 			statement.setQueryTimeout(60);
 			ResultSet result = statement.executeQuery(sql);
-			while (result.next())
-			{
-				rval.put(result.getString(1).toLowerCase(), result.getString(2));
-			}
+			mapTable(result, rval);
+			success = true;
 			return rval;
 		}
 		catch (SQLException sqlex)
@@ -317,9 +591,78 @@ public class Node implements Runnable {
 				// Ignore failures
 			}
 		}
+		finally
+		{
+			span.end(success, rval.size());
+			long nanos = System.nanoTime() - start;
+			QueryCost.record(nanos, rval.size(), size(rval));
+			recordQuery(nanos);
+			SnapshotRecorder.table(m_systemID, m_nodeNo, sql, success ? rval : null);
+		}
 		return null;	// If we can't probe return null
 	}
 	
+	/**
+	 * Count a query run on the Node, for the budgets, see QueryBudget.
+	 */
+	private void recordQuery(long nanos)
+	{
+		m_windowQueries.incrementAndGet();
+		m_windowNanos.addAndGet(nanos);
+	}
+	
+	/**
+	 * The queries run on the Node since the last call, by the monitors,
+	 * the shared status snapshot, the burst samples and the slow lane.
+	 * 
+	 * @return	the number of queries
+	 */
+	public long takeQueries()
+	{
+		return m_windowQueries.getAndSet(0L);
+	}
+	
+	/**
+	 * The time of the queries run on the Node since the last call.
+	 * 
+	 * @return	the time, in nanoseconds
+	 */
+	public long takeNanos()
+	{
+		return m_windowNanos.getAndSet(0L);
+	}
+	
+	/**
+	 * The size of the names and values of a table, in characters.
+	 */
+	private static long size(HashMap<String, String> table)
+	{
+		long size = 0;
+		for (Map.Entry<String, String> entry : table.entrySet())
+		{
+			size += entry.getKey().length();
+			if (entry.getValue() != null)
+				size += entry.getValue().length();
+		}
+		return size;
+	}
+	
+	/**
+	 * Map a result set of two columns into a hash map, the first column,
+	 * in lower case, is the key and the second the value.
+	 * 
+	 * @param result	The result set
+	 * @param rval		The map to fill
+	 * @throws SQLException	If the result set cannot be read
+	 */
+	public static void mapTable(ResultSet result, HashMap<String, String> rval) throws SQLException
+	{
+		while (result.next())
+		{
+			rval.put(result.getString(1).toLowerCase(), result.getString(2));
+		}
+	}
+	
 	/**
 	 * Save an observed value for a Monitor in a local buffer.
 	 * 
@@ -350,6 +693,15 @@ public class Node implements Runnable {
 			values.add(m_observedValues.get(key));
 		}
 		m_observedValues.clear();
-		return m_confdb.bulkMonitorData(monitorIDs, m_systemID, m_nodeNo, values);
+		long start = System.nanoTime();
+		Tracing.Span span = Tracing.upload(m_systemID, m_nodeNo, values.size());
+		boolean success = false;
+		try {
+			success = m_confdb.bulkMonitorData(monitorIDs, m_systemID, m_nodeNo, values);
+			return success;
+		} finally {
+			BULK_LATENCY.recordSince(start);
+			span.end(success, values.size());
+		}
 	}
 }
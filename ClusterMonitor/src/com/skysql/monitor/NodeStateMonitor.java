@@ -30,6 +30,10 @@ import com.skysql.java.MonData;
  * @author Mark Riddoch
  */
 public class NodeStateMonitor extends Monitor {
+	/**
+	 * The time of the MonData call writing the state
+	 */
+	private static final LatencyHistogram	NODE_STATE_LATENCY = Metrics.histogram("ApiLatency", "setNodeState");
 	
 	/**
 	 * Constructor for the Node state Monitor, all the work is done in the
@@ -64,7 +68,10 @@ public class NodeStateMonitor extends Monitor {
 			Logging.debug("probe: " + m_sql + " new value " + value);
 		}
 		try {
-			m_confdb.setNodeState(nodeNo, (new Integer(value)).intValue());
+			int state = (new Integer(value)).intValue();
+			long start = System.nanoTime();
+			m_confdb.setNodeState(nodeNo, state);
+			NODE_STATE_LATENCY.recordSince(start);
 		} catch (Exception ex) {
 			Logging.error("Can not set Node state of " + value + " or Node " + nodeNo);
 		}
@@ -81,4 +88,14 @@ public class NodeStateMonitor extends Monitor {
 	{
 		return false;
 	}
+	
+	/**
+	 * The state of the Node is never throttled nor shed
+	 * 
+	 * @return Priority.CRITICAL
+	 */
+	public Priority getPriority()
+	{
+		return Priority.CRITICAL;
+	}
 }
@@ -18,14 +18,24 @@
 
 package com.skysql.monitor;
 
+import java.text.DecimalFormat;
+
+import com.skysql.java.Logging;
 import com.skysql.java.MonData;
 
 /**
- * A basic Monitor class that implements ICMP pings as a Monitor mechanism
+ * A basic Monitor class that implements pings as a Monitor mechanism
  *
  * The only action of this Monitor is to set the state of the Node to Stopped
  * if it does not respond to 2 or more succesive pings
  * 
+ * By default the ping is a TCP connect run by the ReachabilityProber, which
+ * probes all the nodes at the same time. The ping_method option of the
+ * [monitor] section set to icmp restores the ICMP ping of each Node in turn.
+ * If the &lt;key&gt;.rtt option is set the value is the round trip time in
+ * milliseconds rather than 1, and no value is saved when the Node does not
+ * answer.
+ * 
  * @author Mark Riddoch
  */
 public class PingMonitor extends Monitor {
@@ -34,6 +44,31 @@ public class PingMonitor extends Monitor {
 	 * The number of ping failures
 	 */
 	int	m_failcnt;
+	/**
+	 * Use ICMP rather than the ReachabilityProber
+	 */
+	private boolean	m_icmp;
+	/**
+	 * Report the round trip time rather than 1
+	 */
+	private boolean	m_reportRtt;
+	/**
+	 * The probe started by prefetch(), null if none
+	 */
+	private ReachabilityProber.Probe	m_pending;
+	/**
+	 * The result of a ping of a Node whose address is not known
+	 */
+	private static final long				NO_ADDRESS = -2L;
+	/**
+	 * The time of the MonData calls marking a Node down
+	 */
+	private static final LatencyHistogram	STATE_ID_LATENCY = Metrics.histogram("ApiLatency", "getNodeStateId");
+	private static final LatencyHistogram	NODE_STATE_LATENCY = Metrics.histogram("ApiLatency", "setNodeState");
+	/**
+	 * The format of the round trip time
+	 */
+	private final DecimalFormat	m_format = new DecimalFormat("0.###");
 
 	/**
 	 * Constructor for the class
@@ -46,6 +81,48 @@ public class PingMonitor extends Monitor {
 	{
 		super(db, id, mon_node);
 		m_failcnt = 0;
+		m_icmp = "icmp".equalsIgnoreCase(MonitorOptions.get("ping_method"));
+		m_reportRtt = MonitorOptions.getBoolean(m_monitor_key + ".rtt", false);
+	}
+	
+	/**
+	 * Start the ping of the Node, so that all the nodes are pinged at the
+	 * same time.
+	 */
+	public void prefetch()
+	{
+		if (m_icmp || m_pending != null)
+			return;
+		ReachabilityProber prober = ReachabilityProber.getInstance();
+		String address = m_node.getPingAddress();
+		if (prober != null && address != null)
+			m_pending = prober.submit(address);
+	}
+	
+	/**
+	 * Ping the Node.
+	 * 
+	 * @return The round trip time in microseconds, -1 if the Node does not
+	 * 			answer, NO_ADDRESS if its address is not known
+	 */
+	private long ping()
+	{
+		ReachabilityProber prober = ReachabilityProber.getInstance();
+		ReachabilityProber.Probe probe = m_pending;
+		m_pending = null;
+		if (probe == null)
+		{
+			String address = m_node.getPingAddress();
+			if (address == null)
+				return NO_ADDRESS;
+			if (m_icmp || prober == null)
+			{
+				long start = System.nanoTime();
+				return m_node.isReachable() ? (System.nanoTime() - start) / 1000 : -1L;
+			}
+			probe = prober.submit(address);
+		}
+		return probe.await(prober.getTimeout() + 1000);
 	}
 
 	/**
@@ -57,11 +134,23 @@ public class PingMonitor extends Monitor {
 	public void probe(boolean verbose)
 	{
 		String value = "0";
-		if (m_node.isReachable())
+		long rtt = ping();
+		if (rtt == NO_ADDRESS)
+		{
+			Logging.warn("Node " + m_node.getID() + " of system " + m_node.getSystemID()
+					+ " has no address, not pinged");
+			return;
+		}
+		if (rtt >= 0)
 		{
-			value = "1";
+			value = m_reportRtt ? m_format.format(rtt / 1000.0) : "1";
 			m_failcnt = 0;
 		}
+		else if (m_reportRtt)
+		{
+			value = null;
+			m_failcnt++;
+		}
 		else
 		{
 			m_failcnt++;
@@ -69,8 +158,12 @@ public class PingMonitor extends Monitor {
 		if (m_failcnt > 1)
 		{
 			try {
+				long start = System.nanoTime();
 				int state = m_confdb.getNodeStateId("machine-down");
+				STATE_ID_LATENCY.recordSince(start);
+				start = System.nanoTime();
 				m_confdb.setNodeState(m_node.getID(), state);
+				NODE_STATE_LATENCY.recordSince(start);
 			} catch (Exception e) {
 				// IGNORE
 			}
@@ -82,7 +175,18 @@ public class PingMonitor extends Monitor {
 		** the state has remained the same we merely update the last 
 		** observed timestamp for the state.
 		*/
-		saveObservation(value);
+		if (value != null)
+			saveObservation(value);
 		m_lastValue = value;
 	}
+	
+	/**
+	 * The reachability of the Node is never throttled nor shed
+	 * 
+	 * @return Priority.CRITICAL
+	 */
+	public Priority getPriority()
+	{
+		return Priority.CRITICAL;
+	}
 }
@@ -0,0 +1,498 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.skysql.java.Logging;
+
+/**
+ * The service that runs the external commands of the monitors, away from
+ * the probe thread of the system.
+ *
+ * At most command_concurrency commands, an option of the [monitor]
+ * section, run at the same time. Each command has a wall clock timeout,
+ * which covers the wait for a free slot, after which the process and its
+ * children are killed. Only the first bytes of the standard output and
+ * standard error are kept, the rest is read and discarded so that the
+ * process never blocks on a full pipe. Every process is reaped.
+ *
+ * The commands are started in a process group of their own, with setsid
+ * where available, so that the processes they start, for instance those
+ * of a shell script, are killed with them.
+ *
+ * The latency, the timeouts and the exit codes of each command are
+ * registered with Metrics as CommandLatency, CommandTimeouts and
+ * CommandExits.
+ */
+public class ProcessExecutor {
+	/**
+	 * The default number of commands that may run at the same time.
+	 */
+	private static final int				DEFAULT_CONCURRENCY = 4;
+	/**
+	 * The time allowed to a command to be reaped after its timeout, before
+	 * the caller stops waiting. Unit: milliseconds.
+	 */
+	public static final int					WAIT_GRACE = 2000;
+	/**
+	 * The time a killed process is given to exit before it is killed
+	 * with SIGKILL. Unit: milliseconds.
+	 */
+	public static final int					KILL_GRACE = 1000;
+	/**
+	 * The setsid command, null if not available.
+	 */
+	private static final String				SETSID = findSetsid();
+	/**
+	 * The singleton instance.
+	 */
+	private static volatile ProcessExecutor	INSTANCE = null;
+	/**
+	 * The threads running the commands and reading their output.
+	 */
+	private final ExecutorService			m_executor;
+	/**
+	 * The thread that kills the commands that time out.
+	 */
+	private final ScheduledExecutorService	m_watchdog;
+	/**
+	 * Limits the number of commands running at the same time.
+	 */
+	private final Semaphore					m_slots;
+	/**
+	 * The metrics of each command.
+	 */
+	private final ConcurrentHashMap<String, CommandMetrics>	m_metrics;
+
+	/**
+	 * The outcome of a command.
+	 */
+	public static class Result {
+		private final int		m_exitCode;
+		private final boolean	m_timedOut;
+		private final String	m_stdout;
+		private final String	m_stderr;
+		private final long		m_elapsed;
+
+		private Result(int exitCode, boolean timedOut, String stdout, String stderr, long elapsed) {
+			m_exitCode = exitCode;
+			m_timedOut = timedOut;
+			m_stdout = stdout;
+			m_stderr = stderr;
+			m_elapsed = elapsed;
+		}
+
+		/** @return the exit code of the process, -1 if it could not run */
+		public int getExitCode() {
+			return m_exitCode;
+		}
+
+		/** @return true if the process was killed because of the timeout */
+		public boolean isTimedOut() {
+			return m_timedOut;
+		}
+
+		/** @return the standard output, up to the output cap */
+		public String getStdout() {
+			return m_stdout;
+		}
+
+		/** @return the standard error, up to the output cap */
+		public String getStderr() {
+			return m_stderr;
+		}
+
+		/** @return the wall clock time of the command, in milliseconds */
+		public long getElapsed() {
+			return m_elapsed;
+		}
+
+		/**
+		 * @return the first line of the standard output, trimmed, or null
+		 */
+		public String getFirstLine() {
+			if (m_stdout == null || m_stdout.isEmpty()) {
+				return null;
+			}
+			int end = m_stdout.indexOf('\n');
+			return (end < 0 ? m_stdout : m_stdout.substring(0, end)).trim();
+		}
+	}
+
+	/**
+	 * The metrics of a command, registered with Metrics.
+	 */
+	private static class CommandMetrics {
+		private final String		m_command;
+		private final LatencyHistogram	m_latency;
+		private final Counter		m_timeouts;
+		private final ConcurrentHashMap<Integer, Counter>	m_exitCodes = new ConcurrentHashMap<Integer, Counter>();
+
+		private CommandMetrics(String command) {
+			m_command = command;
+			m_latency = Metrics.histogram("CommandLatency", command);
+			m_timeouts = Metrics.counter("CommandTimeouts", command);
+		}
+
+		private void record(Result result) {
+			m_latency.record(result.m_elapsed * 1000000L);
+			if (result.m_timedOut) m_timeouts.increment();
+			Counter count = m_exitCodes.get(result.m_exitCode);
+			if (count == null) {
+				count = Metrics.counter("CommandExits", m_command + " exit " + result.m_exitCode);
+				m_exitCodes.put(result.m_exitCode, count);
+			}
+			count.increment();
+		}
+	}
+
+	/**
+	 * Private constructor, use getInstance().
+	 *
+	 * @param concurrency	the number of commands that may run at the same time
+	 */
+	private ProcessExecutor(int concurrency) {
+		ThreadFactory threads = new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ProcessExecutor");
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		m_executor = Executors.newCachedThreadPool(threads);
+		m_watchdog = Executors.newSingleThreadScheduledExecutor(threads);
+		m_slots = new Semaphore(Math.max(1, concurrency), true);
+		m_metrics = new ConcurrentHashMap<String, CommandMetrics>();
+	}
+
+	/**
+	 * Get the process executor, create it on the first call.
+	 *
+	 * @return	the process executor
+	 */
+	public static ProcessExecutor getInstance() {
+		if (INSTANCE == null) {
+			synchronized (ProcessExecutor.class) {
+				if (INSTANCE == null) {
+					INSTANCE = new ProcessExecutor(MonitorOptions.getInt("command_concurrency", DEFAULT_CONCURRENCY));
+				}
+			}
+		}
+		return INSTANCE;
+	}
+
+	/**
+	 * Start a command. The command waits for a free slot, then runs. A
+	 * command that gets no slot within its timeout is not run and is
+	 * reported as timed out.
+	 *
+	 * @param command		the command line
+	 * @param timeout		the wall clock timeout, in milliseconds
+	 * @param maxOutput		the number of bytes of output to keep, per stream
+	 * @return	the outcome of the command, when available
+	 */
+	public Future<Result> submit(final String command, final long timeout, final int maxOutput) {
+		return m_executor.submit(new Callable<Result>() {
+			public Result call() throws InterruptedException {
+				long start = System.currentTimeMillis();
+				Result result;
+				if (! m_slots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+					result = new Result(-1, true, null, null, System.currentTimeMillis() - start);
+					getMetrics(command).record(result);
+					Logging.error("Command " + command + " not started, no free slot in " + result.m_elapsed + " ms");
+					return result;
+				}
+				try {
+					result = execute(command, start, timeout, maxOutput);
+				} finally {
+					m_slots.release();
+				}
+				getMetrics(command).record(result);
+				if (result.m_timedOut)
+					Logging.error("Command " + command + " killed after " + result.m_elapsed + " ms");
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * Run a command and wait for its outcome.
+	 *
+	 * @param command		the command line
+	 * @param timeout		the wall clock timeout, in milliseconds
+	 * @param maxOutput		the number of bytes of output to keep, per stream
+	 * @return	the outcome of the command
+	 */
+	public Result run(String command, long timeout, int maxOutput) {
+		return getResult(submit(command, timeout, maxOutput), command, timeout + WAIT_GRACE);
+	}
+
+	/**
+	 * Wait for the outcome of a command started by submit(). The wait is
+	 * bounded, a command still queued or running after maxWait is left to
+	 * finish in the background and reported as timed out.
+	 *
+	 * @param future	the pending command
+	 * @param command	the command line, for logging
+	 * @param maxWait	the longest time to wait, in milliseconds
+	 * @return	the outcome of the command
+	 */
+	public static Result getResult(Future<Result> future, String command, long maxWait) {
+		try {
+			return future.get(maxWait, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			Logging.error("Command " + command + " has no result after " + maxWait + " ms");
+			return new Result(-1, true, null, null, maxWait);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Logging.error("Command " + command + " failed: " + e.getCause());
+		}
+		return new Result(-1, false, null, null, 0L);
+	}
+
+	/**
+	 * Get the metrics of a command, create them if necessary.
+	 *
+	 * @param command	the command line
+	 * @return	the metrics of the command
+	 */
+	private CommandMetrics getMetrics(String command) {
+		CommandMetrics metrics = m_metrics.get(command);
+		if (metrics == null) {
+			CommandMetrics created = new CommandMetrics(command);
+			metrics = m_metrics.putIfAbsent(command, created);
+			if (metrics == null) metrics = created;
+		}
+		return metrics;
+	}
+
+	/**
+	 * Run the process, read its output and reap it. The timeout runs from
+	 * start, the time the command was submitted. The output is read on the
+	 * executor, so that a process that escaped the kill while holding the
+	 * pipes open does not hold the slot: the caller stops waiting
+	 * WAIT_GRACE after the timeout.
+	 */
+	private Result execute(String command, long start, long timeout, int maxOutput) {
+		final Process process;
+		try {
+			process = start(command);
+		} catch (IOException e) {
+			Logging.error("Cannot run command " + command + ": " + e.getMessage());
+			return new Result(-1, false, null, null, System.currentTimeMillis() - start);
+		}
+		final AtomicBoolean timedOut = new AtomicBoolean(false);
+		ScheduledFuture<?> kill = m_watchdog.schedule(new Runnable() {
+			public void run() {
+				timedOut.set(true);
+				terminate(process, false);
+				m_watchdog.schedule(new Runnable() {
+					public void run() {
+						terminate(process, true);
+					}
+				}, KILL_GRACE, TimeUnit.MILLISECONDS);
+			}
+		}, Math.max(0L, start + timeout - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		long deadline = start + timeout + WAIT_GRACE;
+		int exitCode = -1;
+		String stdout = null;
+		String stderr = null;
+		try {
+			process.getOutputStream().close();
+			Future<String> errors = m_executor.submit(reader(process.getErrorStream(), maxOutput));
+			Future<String> output = m_executor.submit(reader(process.getInputStream(), maxOutput));
+			stdout = output.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			stderr = errors.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			if (waitFor(process, Math.max(0L, deadline - System.currentTimeMillis())))
+				exitCode = process.exitValue();
+		} catch (InterruptedException e) {
+			terminate(process, true);
+			Thread.currentThread().interrupt();
+		} catch (TimeoutException e) {
+			Logging.error("Command " + command + " still holds its output after being killed");
+			terminate(process, true);
+		} catch (Exception e) {
+			Logging.error("Command " + command + " failed: " + e.getMessage());
+			terminate(process, true);
+		} finally {
+			kill.cancel(false);
+		}
+		return new Result(exitCode, timedOut.get(), stdout, stderr, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Start a command in a process group of its own, if setsid is available,
+	 * so that terminate() reaches the processes it starts.
+	 *
+	 * @param command	the command line
+	 * @return	the process
+	 * @throws IOException	if the command cannot be started
+	 */
+	public static Process start(String command) throws IOException {
+		return Runtime.getRuntime().exec(SETSID == null ? command : SETSID + " " + command);
+	}
+
+	/**
+	 * Send SIGTERM, or SIGKILL if forced, to the process group of a process
+	 * started by start(), or destroy the process alone if its group cannot
+	 * be signalled.
+	 *
+	 * @param process	the process
+	 * @param force		send SIGKILL rather than SIGTERM
+	 */
+	public static void terminate(Process process, boolean force) {
+		int pid = SETSID == null ? -1 : pid(process);
+		if (pid > 0) {
+			try {
+				Process kill = Runtime.getRuntime().exec(new String[] { "kill", force ? "-KILL" : "-TERM", "--", "-" + pid });
+				if (waitFor(kill, KILL_GRACE) && kill.exitValue() == 0) {
+					return;
+				}
+			} catch (IOException e) {
+				// fall back to the process alone
+			}
+		}
+		process.destroy();
+	}
+
+	/**
+	 * Stop a process started by start(): SIGTERM, then SIGKILL if it has not
+	 * exited after KILL_GRACE. The wait is bounded.
+	 *
+	 * @param process	the process
+	 * @return	true if the process has exited
+	 */
+	public static boolean stop(Process process) {
+		terminate(process, false);
+		if (waitFor(process, KILL_GRACE)) {
+			return true;
+		}
+		terminate(process, true);
+		return waitFor(process, KILL_GRACE);
+	}
+
+	/**
+	 * Wait for a process to exit, for at most timeout.
+	 *
+	 * @param process	the process
+	 * @param timeout	the longest wait, in milliseconds
+	 * @return	true if the process has exited
+	 */
+	public static boolean waitFor(Process process, long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		while (! hasExited(process)) {
+			long left = deadline - System.currentTimeMillis();
+			if (left <= 0) {
+				return false;
+			}
+			try {
+				Thread.sleep(Math.min(left, 20L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return hasExited(process);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether a process has exited.
+	 */
+	private static boolean hasExited(Process process) {
+		try {
+			process.exitValue();
+			return true;
+		} catch (IllegalThreadStateException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The process ID of a process: Process.pid() from Java 9, the pid field
+	 * of the UNIX implementation before.
+	 *
+	 * @return	the process ID, -1 if unknown
+	 */
+	private static int pid(Process process) {
+		try {
+			return ((Number) Process.class.getMethod("pid").invoke(process)).intValue();
+		} catch (Exception e) {
+			// before Java 9
+		}
+		try {
+			Field field = process.getClass().getDeclaredField("pid");
+			field.setAccessible(true);
+			return field.getInt(process);
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return	the path of the setsid command, null if not installed
+	 */
+	private static String findSetsid() {
+		for (String path : new String[] { "/usr/bin/setsid", "/bin/setsid" }) {
+			if (new File(path).canExecute()) return path;
+		}
+		return null;
+	}
+
+	/**
+	 * Read a stream to the end, keeping only the first maxOutput bytes.
+	 */
+	private static Callable<String> reader(final InputStream in, final int maxOutput) {
+		return new Callable<String>() {
+			public String call() throws IOException {
+				ByteArrayOutputStream kept = new ByteArrayOutputStream(Math.min(maxOutput, 4096));
+				byte[] buffer = new byte[4096];
+				int n;
+				try {
+					while ((n = in.read(buffer)) >= 0) {
+						int keep = Math.min(n, maxOutput - kept.size());
+						if (keep > 0) kept.write(buffer, 0, keep);
+					}
+				} finally {
+					in.close();
+				}
+				return kept.toString();
+			}
+		};
+	}
+}
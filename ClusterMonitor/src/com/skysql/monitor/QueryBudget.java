@@ -0,0 +1,256 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import com.skysql.java.Logging;
+
+/**
+ * Keeps the load the Monitor puts on each Node within a budget, by
+ * stretching the intervals of its most expensive monitors.
+ *
+ * The budget is node_budget_qps, in queries per second, and
+ * node_budget_ms_per_minute, in milliseconds of query time per minute;
+ * 0, the default, leaves either unbounded. Every WINDOW all the queries
+ * run on each Node are compared with the budget: those of the monitors,
+ * and those shared by them or run on the side, the status snapshot, the
+ * burst samples and the slow lane. If the Node is over budget the
+ * interval of its most expensive Monitor that is not critical, and not
+ * already stretched MAX_STRETCH times, is doubled; the monitors are
+ * ranked by the cost of their own queries, see QueryCost. If the Node
+ * is under half of its budget the most stretched Monitor is halved, back
+ * to its configured interval.
+ * The probes deferred are counted by BudgetDeferred, per Node.
+ */
+public class QueryBudget {
+	/**
+	 * The time between two adjustments. Unit: milliseconds.
+	 */
+	private static final long				WINDOW = 60000L;
+	/**
+	 * The largest stretch of an interval.
+	 */
+	private static final int				MAX_STRETCH = 16;
+	/**
+	 * The budget in queries per second, 0 if none.
+	 */
+	private final double					m_qps;
+	/**
+	 * The budget in milliseconds of query time per minute, 0 if none.
+	 */
+	private final double					m_msPerMinute;
+	/**
+	 * The stretch of the interval of each Monitor instance, 1 if absent.
+	 */
+	private final HashMap<Monitor, Integer>	m_stretch;
+	/**
+	 * The probes deferred on each Node.
+	 */
+	private final HashMap<Node, Counter>	m_deferred;
+	/**
+	 * The nodes over budget with nothing left to stretch, warned once.
+	 */
+	private final HashSet<Node>				m_exhausted;
+	/**
+	 * The start of the current window, 0 before the first cycle.
+	 */
+	private long							m_windowStart;
+
+	/**
+	 * Constructor for the budget of a system, reads the options.
+	 */
+	public QueryBudget() {
+		m_qps = option("node_budget_qps");
+		m_msPerMinute = option("node_budget_ms_per_minute");
+		m_stretch = new HashMap<Monitor, Integer>();
+		m_deferred = new HashMap<Node, Counter>();
+		m_exhausted = new HashSet<Node>();
+		m_windowStart = 0L;
+	}
+
+	/**
+	 * @return	true if a budget is set
+	 */
+	public boolean isEnabled() {
+		return m_qps > 0 || m_msPerMinute > 0;
+	}
+
+	/**
+	 * Forget the stretches, when the monitors are created again.
+	 */
+	public void reset() {
+		m_stretch.clear();
+		m_deferred.clear();
+		m_exhausted.clear();
+	}
+
+	/**
+	 * Compare the cost of the monitors with the budget, if a window has
+	 * passed since the last time, and adjust the stretches.
+	 *
+	 * @param monitors	the lists of the instances of the monitors
+	 * @param now		the time, in milliseconds
+	 */
+	public void update(List<List<Monitor>> monitors, long now) {
+		if (! isEnabled()) {
+			return;
+		}
+		long elapsed = now - m_windowStart;
+		if (m_windowStart != 0L && elapsed < WINDOW) {
+			return;
+		}
+		boolean first = m_windowStart == 0L;
+		m_windowStart = now;
+		HashMap<Node, List<Monitor>> byNode = new HashMap<Node, List<Monitor>>();
+		HashMap<Monitor, long[]> costs = new HashMap<Monitor, long[]>();
+		for (List<Monitor> mlist : monitors) {
+			for (Monitor m : mlist) {
+				List<Monitor> list = byNode.get(m.m_node);
+				if (list == null) {
+					list = new ArrayList<Monitor>();
+					byNode.put(m.m_node, list);
+				}
+				list.add(m);
+				costs.put(m, new long[] { m.getQueryCost().takeQueries(), m.getQueryCost().takeNanos() });
+			}
+		}
+		HashMap<Node, long[]> totals = new HashMap<Node, long[]>();
+		for (Node node : byNode.keySet()) {
+			totals.put(node, new long[] { node.takeQueries(), node.takeNanos() });
+		}
+		if (first) {
+			return;
+		}
+		for (Node node : byNode.keySet()) {
+			List<Monitor> list = byNode.get(node);
+			long queries = totals.get(node)[0], nanos = totals.get(node)[1];
+			double qps = queries * 1000.0 / elapsed;
+			double msPerMinute = nanos / 1000000.0 * 60000.0 / elapsed;
+			boolean overQps = m_qps > 0 && qps > m_qps;
+			boolean overTime = m_msPerMinute > 0 && msPerMinute > m_msPerMinute;
+			if (overQps || overTime) {
+				stretch(node, list, costs, overTime ? 1 : 0, qps, msPerMinute);
+			} else {
+				m_exhausted.remove(node);
+				if ((m_qps <= 0 || qps < m_qps / 2) && (m_msPerMinute <= 0 || msPerMinute < m_msPerMinute / 2))
+					relax(node, list);
+			}
+		}
+	}
+
+	/**
+	 * Whether a Monitor due at this time is deferred by the stretch of its
+	 * interval.
+	 *
+	 * @param m		the Monitor
+	 * @param time	the time of the cycle since the first one, in seconds
+	 * @return	true if the probe is to be skipped
+	 */
+	public boolean isStretched(Monitor m, long time) {
+		Integer stretch = m_stretch.get(m);
+		if (stretch == null || stretch == 1) {
+			return false;
+		}
+		return (time / m.getInterval()) % stretch != 0;
+	}
+
+	/**
+	 * Count a probe deferred by the budget.
+	 *
+	 * @param m		the Monitor
+	 */
+	public void deferred(Monitor m) {
+		Counter counter = m_deferred.get(m.m_node);
+		if (counter == null) {
+			counter = Metrics.counter("BudgetDeferred", Metrics.nodeName(m.m_node.getSystemID(), m.m_node.getID()));
+			m_deferred.put(m.m_node, counter);
+		}
+		counter.increment();
+	}
+
+	/**
+	 * Double the interval of the most expensive Monitor of a Node over budget.
+	 *
+	 * @param measure	0 to rank the monitors by queries, 1 by time
+	 */
+	private void stretch(Node node, List<Monitor> list, HashMap<Monitor, long[]> costs, int measure,
+			double qps, double msPerMinute) {
+		Monitor expensive = null;
+		for (Monitor m : list) {
+			Integer stretch = m_stretch.get(m);
+			if (m.isCritical() || (stretch != null && stretch >= MAX_STRETCH) || costs.get(m)[measure] == 0) continue;
+			if (expensive == null || costs.get(m)[measure] > costs.get(expensive)[measure]) expensive = m;
+		}
+		if (expensive == null) {
+			if (m_exhausted.add(node))
+				Logging.warn("Node " + node.getID() + " of system " + node.getSystemID() + " over its query budget, "
+					+ "nothing left to stretch");
+			return;
+		}
+		Integer stretch = m_stretch.get(expensive);
+		int factor = stretch == null ? 2 : stretch * 2;
+		m_stretch.put(expensive, factor);
+		Logging.warn(String.format("Node %d of system %d over its query budget, %.1f queries/s, %.0f ms/min: "
+				+ "Monitor %s runs every %d s", node.getID(), node.getSystemID(), qps, msPerMinute,
+				expensive.m_monitor_key, expensive.getInterval() * factor));
+	}
+
+	/**
+	 * Halve the interval of the most stretched Monitor of a Node under budget.
+	 */
+	private void relax(Node node, List<Monitor> list) {
+		Monitor stretched = null;
+		for (Monitor m : list) {
+			Integer stretch = m_stretch.get(m);
+			if (stretch == null) continue;
+			if (stretched == null || stretch > m_stretch.get(stretched)) stretched = m;
+		}
+		if (stretched == null) {
+			return;
+		}
+		int factor = m_stretch.get(stretched) / 2;
+		if (factor <= 1) {
+			m_stretch.remove(stretched);
+		} else {
+			m_stretch.put(stretched, factor);
+		}
+		Logging.info("Node " + node.getID() + " of system " + node.getSystemID() + " under its query budget: Monitor "
+				+ stretched.m_monitor_key + " runs every " + stretched.getInterval() * Math.max(1, factor) + " s");
+	}
+
+	/**
+	 * Read a numeric option, 0 if not set or invalid.
+	 */
+	private static double option(String name) {
+		String value = MonitorOptions.get(name);
+		if (value == null) {
+			return 0.0;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			Logging.warn("Invalid value for option " + name + ": " + value);
+			return 0.0;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cost on the monitored databases of the queries of a Monitor on a
+ * Node: the number of queries, their elapsed time, the rows they returned
+ * and the size of the values returned, in characters.
+ *
+ * The queries are run by Node.execute() and Node.fetchTable(), which do
+ * not know the Monitor they run for; the cost is recorded against the
+ * account the current thread is working for, set with attribute() by
+ * the probe loop and by the threads that run queries on behalf of a
+ * Monitor. The status snapshot of a Node, shared by the global and Galera
+ * monitors, is recorded against the STATUS account rather than against
+ * the Monitor that happened to trigger it.
+ *
+ * The totals of each Monitor key, all nodes together, are the counters
+ * Queries, QueryTime in microseconds, QueryRows and QueryBytes, see
+ * Metrics. The queries and time since the last call to takeQueries()
+ * and takeNanos() are kept per Monitor instance, to rank the monitors of
+ * a Node; the Node keeps the total of all its queries, whatever their
+ * account, for the budgets, see QueryBudget.
+ */
+public class QueryCost {
+	/**
+	 * The account of the current thread, null if none.
+	 */
+	private static final ThreadLocal<QueryCost>	CURRENT = new ThreadLocal<QueryCost>();
+	/**
+	 * The account of the status snapshots of the nodes.
+	 */
+	public static final QueryCost				STATUS = new QueryCost("status");
+	/**
+	 * The queries of the Monitor key.
+	 */
+	private final Counter		m_queries;
+	/**
+	 * The time of the queries of the Monitor key, in microseconds.
+	 */
+	private final Counter		m_time;
+	/**
+	 * The rows returned to the Monitor key.
+	 */
+	private final Counter		m_rows;
+	/**
+	 * The size of the values returned to the Monitor key.
+	 */
+	private final Counter		m_bytes;
+	/**
+	 * The queries of the account since the last takeQueries().
+	 */
+	private final AtomicLong	m_windowQueries;
+	/**
+	 * The time of the queries of the account since the last takeNanos().
+	 */
+	private final AtomicLong	m_windowNanos;
+
+	/**
+	 * Constructor for an account.
+	 *
+	 * @param name	the name of the account in the metrics, the Monitor key
+	 */
+	public QueryCost(String name) {
+		m_queries = Metrics.counter("Queries", name);
+		m_time = Metrics.counter("QueryTime", name);
+		m_rows = Metrics.counter("QueryRows", name);
+		m_bytes = Metrics.counter("QueryBytes", name);
+		m_windowQueries = new AtomicLong();
+		m_windowNanos = new AtomicLong();
+	}
+
+	/**
+	 * Record the following queries of the current thread against an account.
+	 *
+	 * @param cost	the account, null to stop recording
+	 * @return	the previous account of the thread
+	 */
+	public static QueryCost attribute(QueryCost cost) {
+		QueryCost previous = CURRENT.get();
+		CURRENT.set(cost);
+		return previous;
+	}
+
+	/**
+	 * @return	the account of the current thread, null if none
+	 */
+	public static QueryCost current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Record a query of the current thread.
+	 *
+	 * @param nanos	the elapsed time of the query, in nanoseconds
+	 * @param rows	the rows returned
+	 * @param bytes	the size of the values returned
+	 */
+	public static void record(long nanos, int rows, long bytes) {
+		QueryCost cost = CURRENT.get();
+		if (cost != null) {
+			cost.add(nanos, rows, bytes);
+		}
+	}
+
+	/**
+	 * Record a query.
+	 */
+	private void add(long nanos, int rows, long bytes) {
+		m_queries.increment();
+		m_time.add(nanos / 1000L);
+		m_rows.add(rows);
+		m_bytes.add(bytes);
+		m_windowQueries.incrementAndGet();
+		m_windowNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * @return	the queries since the last call
+	 */
+	public long takeQueries() {
+		return m_windowQueries.getAndSet(0L);
+	}
+
+	/**
+	 * @return	the time of the queries since the last call, in nanoseconds
+	 */
+	public long takeNanos() {
+		return m_windowNanos.getAndSet(0L);
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.skysql.java.Logging;
+
+/**
+ * The reachability engine used by the PingMonitor.
+ *
+ * A single selector thread probes the nodes of all the systems at the same
+ * time with non-blocking TCP connects. A Node is reachable if it accepts
+ * the connection or refuses it, since a refusal is an answer of the host;
+ * it is unreachable if the connect fails otherwise or does not complete
+ * within the timeout. The time to the answer is the round trip time.
+ *
+ * The port is ping_port, an option of the [monitor] section, 3306 by
+ * default; 7 probes the echo service. The timeout is ping_timeout, in
+ * milliseconds, 4000 by default. Resolved addresses are cached for
+ * ADDRESS_TTL.
+ */
+public class ReachabilityProber extends Thread {
+	/**
+	 * The default port probed.
+	 */
+	private static final int				DEFAULT_PORT = 3306;
+	/**
+	 * The default timeout of a probe. Unit: milliseconds.
+	 */
+	private static final int				DEFAULT_TIMEOUT = 4000;
+	/**
+	 * The time a resolved address is kept. Unit: milliseconds.
+	 */
+	private static final long				ADDRESS_TTL = 300000L;
+	/**
+	 * The singleton instance.
+	 */
+	private static volatile ReachabilityProber	INSTANCE = null;
+	/**
+	 * The resolved addresses, keyed by host.
+	 */
+	private final ConcurrentHashMap<String, CachedAddress>	m_addresses;
+	/**
+	 * The probes waiting to be registered with the selector.
+	 */
+	private final ConcurrentLinkedQueue<Probe>	m_queue;
+	/**
+	 * The selector of the connects in progress.
+	 */
+	private final Selector					m_selector;
+	/**
+	 * The port probed.
+	 */
+	private final int						m_port;
+	/**
+	 * The timeout of a probe, in milliseconds.
+	 */
+	private final long						m_timeout;
+
+	/**
+	 * A resolved address and the time it was resolved.
+	 */
+	private static class CachedAddress {
+		private final InetAddress	m_address;
+		private final long			m_resolved;
+
+		private CachedAddress(InetAddress address, long resolved) {
+			m_address = address;
+			m_resolved = resolved;
+		}
+	}
+
+	/**
+	 * A probe of a host, completed by the selector thread.
+	 */
+	public static class Probe {
+		private final InetSocketAddress	m_target;
+		private final CountDownLatch	m_done;
+		private long					m_started;
+		private long					m_deadline;
+		private SocketChannel			m_channel;
+		private volatile long			m_rtt;
+
+		private Probe(InetSocketAddress target) {
+			m_target = target;
+			m_done = new CountDownLatch(1);
+			m_rtt = -1L;
+		}
+
+		/**
+		 * Wait for the outcome of the probe.
+		 *
+		 * @param maxWait	the longest time to wait, in milliseconds
+		 * @return	the round trip time in microseconds, -1 if unreachable
+		 */
+		public long await(long maxWait) {
+			try {
+				m_done.await(maxWait, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return m_rtt;
+		}
+
+		/**
+		 * @return	true if the probe is complete
+		 */
+		public boolean isDone() {
+			return m_done.getCount() == 0;
+		}
+
+		private void complete(long rtt) {
+			if (m_channel != null) {
+				try {
+					m_channel.close();
+				} catch (IOException e) {
+					// nothing to do
+				}
+				m_channel = null;
+			}
+			m_rtt = rtt;
+			m_done.countDown();
+		}
+	}
+
+	/**
+	 * Private constructor, use getInstance().
+	 *
+	 * @throws IOException	if the selector cannot be opened
+	 */
+	private ReachabilityProber() throws IOException {
+		super("ReachabilityProber");
+		setDaemon(true);
+		m_addresses = new ConcurrentHashMap<String, CachedAddress>();
+		m_queue = new ConcurrentLinkedQueue<Probe>();
+		m_selector = Selector.open();
+		m_port = MonitorOptions.getInt("ping_port", DEFAULT_PORT);
+		m_timeout = MonitorOptions.getInt("ping_timeout", DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * Get the prober, start it on the first call.
+	 *
+	 * @return	the prober, null if it cannot be started
+	 */
+	public static ReachabilityProber getInstance() {
+		if (INSTANCE == null) {
+			synchronized (ReachabilityProber.class) {
+				if (INSTANCE == null) {
+					try {
+						ReachabilityProber prober = new ReachabilityProber();
+						prober.start();
+						INSTANCE = prober;
+					} catch (IOException e) {
+						Logging.error("Cannot start the reachability prober: " + e.getMessage());
+					}
+				}
+			}
+		}
+		return INSTANCE;
+	}
+
+	/**
+	 * @return	the timeout of a probe, in milliseconds
+	 */
+	public long getTimeout() {
+		return m_timeout;
+	}
+
+	/**
+	 * Start a probe of a host. The probe is registered with the selector
+	 * thread and the call returns at once.
+	 *
+	 * @param host	the IP address or the name of the host
+	 * @return	the probe, already failed if the host cannot be resolved
+	 */
+	public Probe submit(String host) {
+		InetAddress address = resolve(host);
+		Probe probe = new Probe(address == null ? null : new InetSocketAddress(address, m_port));
+		if (address == null) {
+			probe.complete(-1L);
+			return probe;
+		}
+		m_queue.add(probe);
+		m_selector.wakeup();
+		return probe;
+	}
+
+	/**
+	 * Resolve a host, using the cache.
+	 *
+	 * @param host	the IP address or the name of the host
+	 * @return	the address, null if it cannot be resolved
+	 */
+	private InetAddress resolve(String host) {
+		if (host == null || host.isEmpty()) {
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		CachedAddress cached = m_addresses.get(host);
+		if (cached != null && now - cached.m_resolved < ADDRESS_TTL) {
+			return cached.m_address;
+		}
+		try {
+			InetAddress address = InetAddress.getByName(host);
+			m_addresses.put(host, new CachedAddress(address, now));
+			return address;
+		} catch (IOException e) {
+			Logging.error("Cannot resolve " + host + ": " + e.getMessage());
+			return cached == null ? null : cached.m_address;
+		}
+	}
+
+	/**
+	 * The selector loop: register the new probes, complete the connects
+	 * and expire the probes past their deadline.
+	 *
+	 * @see java.lang.Thread#run()
+	 */
+	public void run() {
+		while (! isInterrupted()) {
+			try {
+				register();
+				m_selector.select(nextDeadline());
+				long now = System.nanoTime();
+				Iterator<SelectionKey> it = m_selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					finish(key, now);
+				}
+				expire(now);
+			} catch (Exception e) {
+				Logging.error("Reachability prober exception: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Start the connects of the probes submitted since the last pass.
+	 */
+	private void register() {
+		Probe probe;
+		while ((probe = m_queue.poll()) != null) {
+			probe.m_started = System.nanoTime();
+			probe.m_deadline = probe.m_started + TimeUnit.MILLISECONDS.toNanos(m_timeout);
+			try {
+				probe.m_channel = SocketChannel.open();
+				probe.m_channel.configureBlocking(false);
+				if (probe.m_channel.connect(probe.m_target)) {
+					probe.complete(elapsed(probe, System.nanoTime()));
+				} else {
+					probe.m_channel.register(m_selector, SelectionKey.OP_CONNECT, probe);
+				}
+			} catch (IOException e) {
+				failed(probe, e, System.nanoTime());
+			}
+		}
+	}
+
+	/**
+	 * Complete a connect reported by the selector.
+	 */
+	private void finish(SelectionKey key, long now) {
+		Probe probe = (Probe) key.attachment();
+		key.cancel();
+		try {
+			probe.m_channel.finishConnect();
+			probe.complete(elapsed(probe, now));
+		} catch (IOException e) {
+			failed(probe, e, now);
+		}
+	}
+
+	/**
+	 * Complete a probe whose connect failed, whether it failed at once or
+	 * through the selector. The JDK reports a refused connection as a
+	 * ConnectException: the host is up, nothing listens on the port, so it
+	 * is an answer. The only other cause of a ConnectException, a connect
+	 * timing out in the kernel, takes far longer than the probe timeout.
+	 * An unreachable host or network is another SocketException, the host
+	 * did not answer.
+	 */
+	private static void failed(Probe probe, IOException e, long now) {
+		if (e instanceof ConnectException) {
+			probe.complete(elapsed(probe, now));
+		} else {
+			probe.complete(-1L);
+		}
+	}
+
+	/**
+	 * Fail the probes past their deadline.
+	 */
+	private void expire(long now) {
+		for (SelectionKey key : m_selector.keys()) {
+			Probe probe = (Probe) key.attachment();
+			if (key.isValid() && now - probe.m_deadline >= 0) {
+				key.cancel();
+				probe.complete(-1L);
+			}
+		}
+	}
+
+	/**
+	 * @return	the time until the nearest deadline, in milliseconds, 0 if no probe is running
+	 */
+	private long nextDeadline() {
+		long now = System.nanoTime();
+		long wait = 0L;
+		for (SelectionKey key : m_selector.keys()) {
+			if (! key.isValid()) continue;
+			long left = TimeUnit.NANOSECONDS.toMillis(((Probe) key.attachment()).m_deadline - now) + 1;
+			if (left < 1) left = 1;
+			if (wait == 0L || left < wait) wait = left;
+		}
+		return wait;
+	}
+
+	/**
+	 * @return	the round trip time of the probe, in microseconds
+	 */
+	private static long elapsed(Probe probe, long now) {
+		return Math.max(0L, TimeUnit.NANOSECONDS.toMicros(now - probe.m_started));
+	}
+}
@@ -52,6 +52,11 @@ public class RhinoMonitor extends Monitor {
      * data from the database server being monitored.
      */
 	private GlobalStatusObject		m_global;
+	/**
+	 * The time of the MonData calls reporting a failed script.
+	 */
+	private static final LatencyHistogram	NODE_STATE_LATENCY = Metrics.histogram("ApiLatency", "getNodeState");
+	private static final LatencyHistogram	NODE_NAME_LATENCY = Metrics.histogram("ApiLatency", "getNodeName");
 
 	/**
 	 * Constructor for the RhinoMonitor class. Set the Monitor and the
@@ -67,6 +72,13 @@ public class RhinoMonitor extends Monitor {
 		m_global = GlobalStatusObject.getInstance(mon_node);
 	}
 	
+	/**
+	 * The Monitor reads the status snapshot of the Node.
+	 */
+	public boolean readsStatusSnapshot() {
+		return true;
+	}
+	
 	/**
 	 * The probe function, called once per probe cycle.
 	 * 
@@ -78,19 +90,11 @@ public class RhinoMonitor extends Monitor {
 			return;
 		}
 		String value = runJavaScriptString();
-		if (value == null) {
-			value = "0";
-		}
+		boolean responded = value != null;
 		if (m_delta) {
 			if (m_lastAbsValue != null && value != null) {
 				Float absValue = new Float(value);
-				Float delta = absValue - m_lastAbsValue;
-				if (delta < 0) {
-					Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + m_lastAbsValue);
-					delta = new Float(0);
-				}
-				DecimalFormat format = new DecimalFormat("###############.##");
-				String deltaStr = format.format(delta);
+				String deltaStr = computeDelta(absValue, m_lastAbsValue);
 				saveObservation(deltaStr);
 				m_lastValue = deltaStr;
 				m_lastAbsValue = absValue;
@@ -98,9 +102,14 @@ public class RhinoMonitor extends Monitor {
 				m_lastAbsValue = new Float(value);
 			} else {
 				m_lastAbsValue = null;
+				m_responded = false;
 			}
 		} else {
+			if (value == null) {
+				value = "0";
+			}
 			saveObservation(value);
+			m_responded = responded;
 			m_lastValue = value;
 		}
 	}
@@ -114,23 +123,16 @@ public class RhinoMonitor extends Monitor {
 	 */
 	private String runJavaScriptString() {
 		try {
-			ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
-			Bindings bindings = new SimpleBindings();
-			HashMap<String, GlobalStatusObject> jsBindings= new HashMap<String, GlobalStatusObject>(1);
-			jsBindings.put("globals", m_global);
-			bindings.putAll(jsBindings);
-
-			if (engine instanceof Compilable) {
-				Compilable compEngine = (Compilable)engine;
-				CompiledScript cs = compEngine.compile(m_sql);
-				return ( (Double) cs.eval(bindings) ).toString();
-			} else {
-				return ( (Double) engine.eval(m_sql, bindings) ).toString();
-			}
+			return evaluate(m_sql, m_global);
 		} catch (Exception e) {
-			if (m_confdb.getNodeState(m_node.getID()).equalsIgnoreCase("down")) {
-				Logging.error("Cannot execute this Monitor: Node "
-						+ m_confdb.getNodeName(m_node.getID()) + " is down.");
+			long start = System.nanoTime();
+			String state = m_confdb.getNodeState(m_node.getID());
+			NODE_STATE_LATENCY.recordSince(start);
+			if (state.equalsIgnoreCase("down")) {
+				start = System.nanoTime();
+				String name = m_confdb.getNodeName(m_node.getID());
+				NODE_NAME_LATENCY.recordSince(start);
+				Logging.error("Cannot execute this Monitor: Node " + name + " is down.");
 			} else {
 				Logging.error("Error in JavaScript: " + e.getMessage());
 			}
@@ -138,5 +140,48 @@ public class RhinoMonitor extends Monitor {
 		}
 	}
 	
+	/**
+	 * Evaluate a JavaScript with the global status and variables of a Node
+	 * bound to the name globals. The script must return a number.
+	 * 
+	 * @param script	the script
+	 * @param global	the global status and variables of the Node
+	 * @return	the result of the script
+	 * @throws Exception	if the script fails
+	 */
+	public static String evaluate(String script, GlobalStatusObject global) throws Exception {
+		ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+		Bindings bindings = new SimpleBindings();
+		HashMap<String, GlobalStatusObject> jsBindings= new HashMap<String, GlobalStatusObject>(1);
+		jsBindings.put("globals", global);
+		bindings.putAll(jsBindings);
+
+		if (engine instanceof Compilable) {
+			Compilable compEngine = (Compilable)engine;
+			CompiledScript cs = compEngine.compile(script);
+			return ( (Double) cs.eval(bindings) ).toString();
+		} else {
+			return ( (Double) engine.eval(script, bindings) ).toString();
+		}
+	}
+	
+	/**
+	 * Compute the difference between two consecutive values, as reported to
+	 * the API. A negative difference is reported as 0.
+	 * 
+	 * @param absValue		the current value
+	 * @param lastAbsValue	the previous value
+	 * @return	the difference, with two decimals
+	 */
+	public static String computeDelta(float absValue, float lastAbsValue) {
+		Float delta = absValue - lastAbsValue;
+		if (delta < 0) {
+			Logging.debug("Negative delta value for probe, absolute value is " + absValue + " last absolute value " + lastAbsValue);
+			delta = new Float(0);
+		}
+		DecimalFormat format = new DecimalFormat("###############.##");
+		return format.format(delta);
+	}
+	
 
 }
@@ -0,0 +1,166 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.skysql.java.Logging;
+import com.skysql.java.MonData;
+
+/**
+ * An SQL Monitor for expensive queries, such as table sizes from the
+ * information_schema or digests from the performance_schema, enabled by
+ * the option &lt;key&gt;.slow = yes.
+ * 
+ * The query runs in the slow lane: a pool of slow_lane_threads threads,
+ * 2 by default, shared by all the systems, on a second connection to the
+ * Node, see Node.getSlowLane(). The probe never waits for it: it starts
+ * the query if the previous one is complete and reports the latest result,
+ * as long as it is younger than &lt;key&gt;.maxage seconds, three intervals
+ * of the Monitor by default. A delta Monitor reports the difference
+ * between two consecutive results.
+ */
+public class SlowSqlMonitor extends Monitor {
+	/**
+	 * The threads running the slow queries of all the systems.
+	 */
+	private final static ExecutorService	SLOW_LANE = Executors.newFixedThreadPool(
+			Math.max(1, MonitorOptions.getInt("slow_lane_threads", 2)), new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "SlowSqlMonitor-lane");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	/**
+	 * The longest time a result is reported. Unit: milliseconds.
+	 */
+	private final long				m_maxAge;
+	/**
+	 * A query of the Monitor is queued or running.
+	 */
+	private final AtomicBoolean		m_running;
+	/**
+	 * The latest result, null if none.
+	 */
+	private volatile String			m_result;
+	/**
+	 * The time of the latest result, in milliseconds.
+	 */
+	private volatile long			m_resultTime;
+	/**
+	 * The previous absolute value of a delta Monitor, only used by the slow lane.
+	 */
+	private Float					m_lastResult;
+
+	/**
+	 * Constructor for the slow Monitor.
+	 * 
+	 * @param db		Handle for the monitoring database
+	 * @param id		The ID of the Monitor
+	 * @param mon_node	The Node being monitored
+	 */
+	public SlowSqlMonitor(MonData db, int id, Node mon_node)
+	{
+		super(db, id, mon_node);
+		m_maxAge = 1000L * MonitorOptions.getInt(m_monitor_key + ".maxage", 3 * m_interval);
+		m_running = new AtomicBoolean(false);
+		m_result = null;
+		m_resultTime = 0L;
+		m_lastResult = null;
+	}
+
+	/**
+	 * Start the query in the slow lane, unless it is still running, and
+	 * report the latest result that is not stale.
+	 * 
+	 * @param verbose	Control verbose logging of the result
+	 */
+	public void probe(boolean verbose)
+	{
+		if (m_sql.isEmpty())
+			return;
+		if (m_running.compareAndSet(false, true)) {
+			try {
+				SLOW_LANE.execute(new Runnable() {
+					public void run() {
+						try {
+							runQuery();
+						} finally {
+							m_running.set(false);
+						}
+					}
+				});
+			} catch (RuntimeException e) {
+				m_running.set(false);
+				Logging.error("Cannot queue slow Monitor " + m_monitor_key + ": " + e.getMessage());
+			}
+		}
+		String value = m_result;
+		if (value != null && Clock.get().currentTimeMillis() - m_resultTime > m_maxAge) {
+			if (verbose)
+				Logging.debug("SlowSqlMonitor: " + m_sql + " result is stale");
+			value = null;
+		}
+		if (verbose)
+			Logging.debug("SlowSqlMonitor: " + m_sql + " reports " + value);
+		if (value != null)
+			saveObservation(value);
+		m_lastValue = value;
+	}
+
+	/**
+	 * Run the query on the slow lane connection of the Node, keep the result.
+	 * Nothing is run once the lane is closed, the Node being discarded.
+	 */
+	private void runQuery()
+	{
+		Node lane = m_node.getSlowLane();
+		if (lane == null)
+			return;
+		QueryCost previous = QueryCost.attribute(m_cost);
+		String value;
+		try {
+			value = lane.execute(m_sql);
+		} finally {
+			QueryCost.attribute(previous);
+		}
+		if (value == null)
+			return;
+		if (m_delta) {
+			Float absValue;
+			try {
+				absValue = new Float(value);
+			} catch (NumberFormatException e) {
+				Logging.error("Slow Monitor " + m_monitor_key + " returned '" + value + "', not a number");
+				return;
+			}
+			Float last = m_lastResult;
+			m_lastResult = absValue;
+			if (last == null)
+				return;
+			value = DeltaMonitor.computeDelta(absValue, last);
+		}
+		m_resultTime = Clock.get().currentTimeMillis();
+		m_result = value;
+	}
+}
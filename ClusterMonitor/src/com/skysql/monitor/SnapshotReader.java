@@ -0,0 +1,210 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Reads back a recording of the node results made by SnapshotRecorder, one
+ * record at a time.
+ */
+public class SnapshotReader {
+	/**
+	 * The recording.
+	 */
+	private final DataInputStream		m_in;
+	/**
+	 * The strings read so far, in order of appearance.
+	 */
+	private final List<String>			m_strings;
+	/**
+	 * The current table of each Node and SQL.
+	 */
+	private final HashMap<String, HashMap<String, String>>	m_tables;
+	/**
+	 * The time of the previous record.
+	 */
+	private long						m_time;
+
+	/**
+	 * A recorded result.
+	 */
+	public static class Record {
+		private final int						m_type;
+		private final long						m_time;
+		private final int						m_systemID;
+		private final int						m_nodeID;
+		private final String					m_sql;
+		private final HashMap<String, String>	m_table;
+		private final String					m_value;
+
+		private Record(int type, long time, int systemID, int nodeID, String sql,
+				HashMap<String, String> table, String value) {
+			m_type = type;
+			m_time = time;
+			m_systemID = systemID;
+			m_nodeID = nodeID;
+			m_sql = sql;
+			m_table = table;
+			m_value = value;
+		}
+
+		/**
+		 * @return	SnapshotRecorder.TABLE or SnapshotRecorder.STATEMENT
+		 */
+		public int getType() {
+			return m_type;
+		}
+
+		/**
+		 * @return	the time of the result, in milliseconds since the epoch
+		 */
+		public long getTime() {
+			return m_time;
+		}
+
+		public int getSystemID() {
+			return m_systemID;
+		}
+
+		public int getNodeID() {
+			return m_nodeID;
+		}
+
+		public String getSql() {
+			return m_sql;
+		}
+
+		/**
+		 * @return	the whole table of a TABLE record, null if the fetch failed
+		 */
+		public HashMap<String, String> getTable() {
+			return m_table;
+		}
+
+		/**
+		 * @return	the value of a STATEMENT record, null if there was none
+		 */
+		public String getValue() {
+			return m_value;
+		}
+	}
+
+	/**
+	 * Constructor for the reader, reads the header of the recording.
+	 *
+	 * @param in	the recording
+	 * @throws IOException	if the recording cannot be read or is not a recording
+	 */
+	public SnapshotReader(InputStream in) throws IOException {
+		m_in = new DataInputStream(in);
+		m_strings = new ArrayList<String>();
+		m_tables = new HashMap<String, HashMap<String, String>>();
+		if (m_in.readInt() != SnapshotRecorder.MAGIC) {
+			throw new IOException("Not a recording of node results");
+		}
+		int version = m_in.readUnsignedByte();
+		if (version != SnapshotRecorder.VERSION) {
+			throw new IOException("Unsupported recording version " + version);
+		}
+		m_time = m_in.readLong();
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return	the record, null at the end of the recording
+	 * @throws IOException	if the recording cannot be read
+	 */
+	public Record next() throws IOException {
+		int tag;
+		try {
+			tag = m_in.readUnsignedByte();
+		} catch (EOFException e) {
+			return null;
+		}
+		m_time += readVarint();
+		int systemID = (int) readVarint();
+		int nodeID = (int) readVarint();
+		String sql = readString();
+		if (tag == SnapshotRecorder.STATEMENT) {
+			String value = m_in.readBoolean() ? m_in.readUTF() : null;
+			return new Record(tag, m_time, systemID, nodeID, sql, null, value);
+		}
+		if (tag != SnapshotRecorder.TABLE) {
+			throw new IOException("Corrupt recording, unknown record " + tag);
+		}
+		long changed = readVarint();
+		if (changed < 0) {
+			return new Record(tag, m_time, systemID, nodeID, sql, null, null);
+		}
+		String key = systemID + ":" + nodeID + ":" + sql;
+		HashMap<String, String> table = m_tables.get(key);
+		if (table == null) {
+			table = new HashMap<String, String>();
+			m_tables.put(key, table);
+		}
+		for (long i = 0; i < changed; i++) {
+			String name = readString();
+			table.put(name, m_in.readUTF());
+		}
+		long removed = readVarint();
+		for (long i = 0; i < removed; i++) {
+			table.remove(readString());
+		}
+		return new Record(tag, m_time, systemID, nodeID, sql, new HashMap<String, String>(table), null);
+	}
+
+	/**
+	 * Close the recording.
+	 *
+	 * @throws IOException	if the recording cannot be closed
+	 */
+	public void close() throws IOException {
+		m_in.close();
+	}
+
+	private String readString() throws IOException {
+		int number = (int) readVarint();
+		if (number > 0) {
+			return m_strings.get(number - 1);
+		}
+		String s = m_in.readUTF();
+		m_strings.add(s);
+		return s;
+	}
+
+	private long readVarint() throws IOException {
+		long v = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = m_in.readUnsignedByte();
+			v |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (v >>> 1) ^ -(v & 1);
+	}
+}
@@ -0,0 +1,323 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.skysql.java.Logging;
+
+/**
+ * Records the raw results of Node.fetchTable and Node.execute, for all the
+ * nodes, to a compact binary file that SnapshotReader plays back. The file
+ * is record_file, an option of the [monitor] section; nothing is recorded
+ * if it is not set.
+ *
+ * The file starts with MAGIC, VERSION as a byte and the start time in
+ * milliseconds as a long, followed by one record per result:
+ *
+ * tag			TABLE or STATEMENT, byte
+ * time			milliseconds since the previous record, varint
+ * system ID	varint
+ * Node ID		varint
+ * SQL			string reference
+ *
+ * A TABLE record goes on with -1 if the fetch failed, or with the number of
+ * rows that changed since the previous table of the same Node and SQL, each
+ * as a name reference and a value, then the number of rows that went away,
+ * each as a name reference. A STATEMENT record goes on with a boolean, true
+ * if there is a value, and the value.
+ *
+ * A string reference is 0 followed by the string the first time the string
+ * is seen, its number in order of appearance plus 1 afterwards. Values are
+ * written as strings.
+ */
+public class SnapshotRecorder {
+	/**
+	 * The first bytes of a recording.
+	 */
+	public static final int		MAGIC = 0x4d4d5352;		// MMSR
+	/**
+	 * The version of the format.
+	 */
+	public static final int		VERSION = 1;
+	/**
+	 * The tag of a table record.
+	 */
+	public static final int		TABLE = 'T';
+	/**
+	 * The tag of a statement record.
+	 */
+	public static final int		STATEMENT = 'S';
+	/**
+	 * The longest time the records stay in the buffer. Unit: milliseconds.
+	 */
+	private static final long	FLUSH_INTERVAL = 1000L;
+	/**
+	 * The longest string recorded, so that it fits writeUTF.
+	 */
+	private static final int	MAX_STRING = 16383;
+	/**
+	 * The recorder, null if not recording.
+	 */
+	private static final SnapshotRecorder	RECORDER = open(MonitorOptions.get("record_file"));
+	/**
+	 * The recording.
+	 */
+	private final DataOutputStream			m_out;
+	/**
+	 * The strings written so far, with their numbers.
+	 */
+	private final HashMap<String, Integer>	m_strings;
+	/**
+	 * The previous table of each Node and SQL.
+	 */
+	private final HashMap<String, HashMap<String, String>>	m_tables;
+	/**
+	 * The time of the previous record.
+	 */
+	private long							m_last;
+	/**
+	 * The time of the last flush.
+	 */
+	private long							m_flushed;
+	/**
+	 * Set after a write error, the rest of the recording is dropped.
+	 */
+	private boolean							m_failed;
+
+	/**
+	 * Constructor for the recorder.
+	 *
+	 * @param out	the recording
+	 * @throws IOException	if the header cannot be written
+	 */
+	private SnapshotRecorder(DataOutputStream out) throws IOException {
+		m_out = out;
+		m_strings = new HashMap<String, Integer>();
+		m_tables = new HashMap<String, HashMap<String, String>>();
+		m_last = System.currentTimeMillis();
+		m_flushed = m_last;
+		m_failed = false;
+		m_out.writeInt(MAGIC);
+		m_out.writeByte(VERSION);
+		m_out.writeLong(m_last);
+	}
+
+	/**
+	 * Open the recording.
+	 *
+	 * @param file	the file, null if not recording
+	 * @return	the recorder, null if not recording
+	 */
+	private static SnapshotRecorder open(String file) {
+		if (file == null || file.isEmpty()) {
+			return null;
+		}
+		try {
+			final SnapshotRecorder recorder = new SnapshotRecorder(new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file), 65536)));
+			Runtime.getRuntime().addShutdownHook(new Thread("SnapshotRecorder-close") {
+				public void run() {
+					recorder.close();
+				}
+			});
+			Logging.info("Recording the node results to " + file);
+			return recorder;
+		} catch (IOException e) {
+			Logging.error("Cannot record the node results to " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @return	true if the node results are recorded
+	 */
+	public static boolean isRecording() {
+		return RECORDER != null;
+	}
+
+	/**
+	 * Record the result of Node.fetchTable.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodeID	the Node ID
+	 * @param sql		the SQL run
+	 * @param table		the table, null if the fetch failed
+	 */
+	public static void table(int systemID, int nodeID, String sql, Map<String, String> table) {
+		if (RECORDER != null) {
+			RECORDER.writeTable(systemID, nodeID, sql, table);
+		}
+	}
+
+	/**
+	 * Record the result of Node.execute.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodeID	the Node ID
+	 * @param sql		the SQL run
+	 * @param value		the value, null if there is none or the statement failed
+	 */
+	public static void statement(int systemID, int nodeID, String sql, String value) {
+		if (RECORDER != null) {
+			RECORDER.writeStatement(systemID, nodeID, sql, value);
+		}
+	}
+
+	private synchronized void writeTable(int systemID, int nodeID, String sql, Map<String, String> table) {
+		if (m_failed) return;
+		try {
+			long now = writeHeader(TABLE, systemID, nodeID, sql);
+			if (table == null) {
+				writeVarint(-1);
+			} else {
+				String key = systemID + ":" + nodeID + ":" + sql;
+				HashMap<String, String> previous = m_tables.get(key);
+				if (previous == null) {
+					previous = new HashMap<String, String>();
+					m_tables.put(key, previous);
+				}
+				List<String> changed = new ArrayList<String>();
+				for (Map.Entry<String, String> row : table.entrySet()) {
+					String value = row.getValue() == null ? "" : row.getValue();
+					if (! value.equals(previous.get(row.getKey()))) {
+						changed.add(row.getKey());
+					}
+				}
+				List<String> removed = new ArrayList<String>();
+				for (String name : previous.keySet()) {
+					if (! table.containsKey(name)) {
+						removed.add(name);
+					}
+				}
+				writeVarint(changed.size());
+				for (String name : changed) {
+					String value = table.get(name) == null ? "" : table.get(name);
+					writeString(name);
+					writeUTF(value);
+					previous.put(name, value);
+				}
+				writeVarint(removed.size());
+				for (String name : removed) {
+					writeString(name);
+					previous.remove(name);
+				}
+			}
+			flush(now);
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+
+	private synchronized void writeStatement(int systemID, int nodeID, String sql, String value) {
+		if (m_failed) return;
+		try {
+			long now = writeHeader(STATEMENT, systemID, nodeID, sql);
+			m_out.writeBoolean(value != null);
+			if (value != null) {
+				writeUTF(value);
+			}
+			flush(now);
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+
+	/**
+	 * Write the fields common to all the records.
+	 *
+	 * @return	the time of the record
+	 */
+	private long writeHeader(int tag, int systemID, int nodeID, String sql) throws IOException {
+		long now = System.currentTimeMillis();
+		m_out.writeByte(tag);
+		writeVarint(Math.max(0L, now - m_last));
+		writeVarint(systemID);
+		writeVarint(nodeID);
+		writeString(sql);
+		m_last = Math.max(m_last, now);
+		return now;
+	}
+
+	/**
+	 * Write a string reference, and the string the first time.
+	 */
+	private void writeString(String s) throws IOException {
+		Integer number = m_strings.get(s);
+		if (number != null) {
+			writeVarint(number + 1);
+			return;
+		}
+		writeVarint(0);
+		writeUTF(s);
+		m_strings.put(s, m_strings.size());
+	}
+
+	/**
+	 * Write a string, cut to MAX_STRING characters.
+	 */
+	private void writeUTF(String s) throws IOException {
+		m_out.writeUTF(s.length() > MAX_STRING ? s.substring(0, MAX_STRING) : s);
+	}
+
+	/**
+	 * Write a number in 7 bit groups, zigzag encoded so that -1 takes one byte.
+	 */
+	private void writeVarint(long value) throws IOException {
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7fL) != 0) {
+			m_out.writeByte((int) ((v & 0x7f) | 0x80));
+			v >>>= 7;
+		}
+		m_out.writeByte((int) v);
+	}
+
+	/**
+	 * Flush the buffer at most every FLUSH_INTERVAL.
+	 */
+	private void flush(long now) throws IOException {
+		if (now - m_flushed >= FLUSH_INTERVAL) {
+			m_out.flush();
+			m_flushed = now;
+		}
+	}
+
+	private void failed(IOException e) {
+		Logging.error("Cannot record the node results, recording stopped: " + e.getMessage());
+		m_failed = true;
+	}
+
+	/**
+	 * Flush and close the recording.
+	 */
+	private synchronized void close() {
+		try {
+			m_out.close();
+		} catch (IOException e) {
+			failed(e);
+		}
+	}
+}
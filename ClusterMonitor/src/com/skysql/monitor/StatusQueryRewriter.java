@@ -0,0 +1,135 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognises the SQL monitors that read a single status value or variable,
+ * so that they are served from the status snapshot of the Node, see
+ * GlobalStatusObject, rather than by a query of their own:
+ *
+ * show [global] status like 'name'
+ * show [global] variables like 'name'
+ * select variable_value from information_schema.global_status where variable_name = 'name'
+ *
+ * and the same with global_variables, session_status or session_variables.
+ * A name with a % wildcard is not recognised. The session status of the
+ * Monitor connection differs from the global one for most counters, so
+ * show status and session_status are only recognised for the values that
+ * are the same for all sessions: wsrep_*, innodb_*, threads_* and uptime.
+ */
+public class StatusQueryRewriter {
+	/**
+	 * show [global|session|local] status|variables like 'name'
+	 */
+	private static final Pattern	SHOW = Pattern.compile(
+			"(?is)\\s*show\\s+(?:(global|session|local)\\s+)?(status|variables)\\s+like\\s+'([^'%]+)'\\s*;?\\s*");
+	/**
+	 * select variable_value from information_schema.(global|session)_(status|variables) where variable_name = 'name'
+	 */
+	private static final Pattern	SELECT = Pattern.compile(
+			"(?is)\\s*select\\s+variable_value\\s+from\\s+information_schema\\.(global|session)_(status|variables)"
+			+ "\\s+where\\s+variable_name\\s*(?:=|like)\\s*'([^'%]+)'\\s*;?\\s*");
+	/**
+	 * The status values that are the same in every session.
+	 */
+	private static final Pattern	SERVER_WIDE = Pattern.compile("wsrep_.*|innodb_.*|threads_.*|uptime");
+
+	/**
+	 * A status value or variable read from the snapshot.
+	 */
+	public static class Lookup {
+		private final boolean	m_variable;
+		private final String	m_name;
+
+		private Lookup(boolean variable, String name) {
+			m_variable = variable;
+			m_name = name;
+		}
+
+		/** @return true for a variable, false for a status value */
+		public boolean isVariable() {
+			return m_variable;
+		}
+
+		/** @return the name of the status value or variable, in lower case */
+		public String getName() {
+			return m_name;
+		}
+
+		/**
+		 * Read the value from the snapshot, refreshed if it is too old.
+		 *
+		 * @param global	the snapshot of the Node
+		 * @return	the value, null if unknown
+		 */
+		public String get(GlobalStatusObject global) {
+			return m_variable ? global.getVariable(m_name) : global.getStatus(m_name);
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString() {
+			return (m_variable ? "variable " : "status ") + m_name;
+		}
+	}
+
+	/**
+	 * Private constructor, the class only has static methods.
+	 */
+	private StatusQueryRewriter() {
+	}
+
+	/**
+	 * Recognise a statement that reads a single status value or variable.
+	 *
+	 * @param sql	the SQL of the Monitor
+	 * @return	the value to read from the snapshot, null if the statement must be run
+	 */
+	public static Lookup recognize(String sql) {
+		if (sql == null) {
+			return null;
+		}
+		Matcher matcher = SHOW.matcher(sql);
+		String scope, table;
+		if (matcher.matches()) {
+			scope = matcher.group(1) == null ? "session" : matcher.group(1).toLowerCase();
+			table = matcher.group(2).toLowerCase();
+		} else {
+			matcher = SELECT.matcher(sql);
+			if (! matcher.matches()) {
+				return null;
+			}
+			scope = matcher.group(1).toLowerCase();
+			table = matcher.group(2).toLowerCase();
+		}
+		String name = matcher.group(3).trim().replace("\\_", "_").toLowerCase();
+		if (name.isEmpty() || name.indexOf('\\') >= 0) {
+			return null;
+		}
+		boolean variable = table.equals("variables");
+		if (! variable && ! scope.equals("global") && ! SERVER_WIDE.matcher(name).matches()) {
+			return null;
+		}
+		return new Lookup(variable, name);
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.Arrays;
+
+import com.skysql.java.Logging;
+
+/**
+ * Builds the system value of a Monitor from the values of the nodes that
+ * answered the probe. Nodes whose probe failed or was skipped do not count,
+ * so an average is the average over the responding nodes.
+ *
+ * The aggregation is the aggregate option of the Monitor: sum, avg, min,
+ * max or p95. One aggregator is reused by a ClusterMonitor for all its
+ * monitors, reset before each of them.
+ */
+public class SystemAggregator {
+	/**
+	 * How the values of the nodes make the system value.
+	 */
+	public enum Aggregation {
+		SUM, AVG, MIN, MAX, P95;
+
+		/**
+		 * Decode the aggregate option of a Monitor.
+		 *
+		 * @param name			the option, null if not set
+		 * @param defaultValue	the aggregation if the option is not set or invalid
+		 * @return	the aggregation
+		 */
+		public static Aggregation parse(String name, Aggregation defaultValue) {
+			if (name == null) {
+				return defaultValue;
+			}
+			try {
+				return valueOf(name.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				Logging.warn("Invalid aggregate " + name + ", using " + defaultValue.name().toLowerCase());
+				return defaultValue;
+			}
+		}
+	}
+
+	/**
+	 * The values of the responding nodes.
+	 */
+	private double[]	m_values;
+	/**
+	 * The number of responding nodes.
+	 */
+	private int			m_count;
+	/**
+	 * The sum of the values.
+	 */
+	private double		m_sum;
+	/**
+	 * The smallest value.
+	 */
+	private double		m_min;
+	/**
+	 * The largest value.
+	 */
+	private double		m_max;
+
+	/**
+	 * Constructor for the aggregator.
+	 */
+	public SystemAggregator() {
+		m_values = new double[16];
+		reset();
+	}
+
+	/**
+	 * Forget the values, before the probes of the next Monitor.
+	 */
+	public void reset() {
+		m_count = 0;
+		m_sum = 0.0;
+		m_min = Double.POSITIVE_INFINITY;
+		m_max = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Add the value of a responding Node.
+	 *
+	 * @param value	the value
+	 */
+	public void add(double value) {
+		if (m_count == m_values.length) {
+			m_values = Arrays.copyOf(m_values, m_count * 2);
+		}
+		m_values[m_count++] = value;
+		m_sum += value;
+		if (value < m_min) m_min = value;
+		if (value > m_max) m_max = value;
+	}
+
+	/**
+	 * @return	the number of responding nodes
+	 */
+	public int getResponding() {
+		return m_count;
+	}
+
+	/**
+	 * Compute the system value.
+	 *
+	 * @param aggregation	the aggregation
+	 * @return	the value, NaN if no Node responded
+	 */
+	public double getValue(Aggregation aggregation) {
+		if (m_count == 0) {
+			return Double.NaN;
+		}
+		switch (aggregation) {
+		case AVG:
+			return m_sum / m_count;
+		case MIN:
+			return m_min;
+		case MAX:
+			return m_max;
+		case P95:
+			Arrays.sort(m_values, 0, m_count);
+			return m_values[Math.max(0, (int) Math.ceil(0.95 * m_count) - 1)];
+		default:
+			return m_sum;
+		}
+	}
+}
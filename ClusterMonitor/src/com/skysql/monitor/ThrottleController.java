@@ -0,0 +1,186 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.util.HashMap;
+import java.util.List;
+
+import com.skysql.java.Logging;
+
+/**
+ * Slows down the monitors of the nodes that look overloaded, so that the
+ * Monitor does not add to the load of a saturated database.
+ *
+ * Once per probe cycle the controller reads the status snapshot the Node
+ * already keeps for the global monitors, see GlobalStatusObject, as it
+ * is: the controller runs no query of its own. A Node is
+ * busy if Threads_running reaches throttle_threads_running, 64 by default,
+ * or wsrep_flow_control_paused reaches throttle_flow_control, 0.5 by
+ * default; 0 disables either signal. While a Node is busy its throttling
+ * factor doubles every cycle, up to throttle_max_factor, 8 by default, and
+ * a Monitor that is not critical runs only one interval out of factor on
+ * that Node. Once the Node is no longer busy the factor halves every cycle
+ * back to 1, the normal cadence. A throttle_max_factor of 1 disables the
+ * throttling.
+ *
+ * A Node without global monitors has no snapshot and is never throttled.
+ * The factor of each Node is the ThrottleFactor gauge, the skipped probes
+ * the ThrottledProbes counter, see Metrics.
+ */
+public class ThrottleController {
+	/**
+	 * The throttling state of a Node.
+	 */
+	private static class NodeThrottle {
+		private int				m_factor;
+		private final Gauge		m_gauge;
+		private final Counter	m_skipped;
+
+		private NodeThrottle(Node node) {
+			String name = Metrics.nodeName(node.getSystemID(), node.getID());
+			m_factor = 1;
+			m_gauge = Metrics.gauge("ThrottleFactor", name);
+			m_gauge.set(1L);
+			m_skipped = Metrics.counter("ThrottledProbes", name);
+		}
+	}
+
+	/**
+	 * The Threads_running from which a Node is busy, 0 to ignore it.
+	 */
+	private final int						m_threadsRunning;
+	/**
+	 * The wsrep_flow_control_paused from which a Node is busy, 0 to ignore it.
+	 */
+	private final double					m_flowControl;
+	/**
+	 * The largest throttling factor.
+	 */
+	private final int						m_maxFactor;
+	/**
+	 * The state of the nodes of the system.
+	 */
+	private HashMap<Node, NodeThrottle>		m_nodes;
+
+	/**
+	 * Constructor for the controller of a system, reads the options.
+	 */
+	public ThrottleController() {
+		m_threadsRunning = MonitorOptions.getInt("throttle_threads_running", 64);
+		m_maxFactor = Math.max(1, MonitorOptions.getInt("throttle_max_factor", 8));
+		double flowControl = 0.5;
+		String option = MonitorOptions.get("throttle_flow_control");
+		if (option != null) {
+			try {
+				flowControl = Double.parseDouble(option);
+			} catch (NumberFormatException e) {
+				Logging.warn("Invalid value for option throttle_flow_control: " + option);
+			}
+		}
+		m_flowControl = flowControl;
+		m_nodes = new HashMap<Node, NodeThrottle>();
+	}
+
+	/**
+	 * Update the throttling factor of the nodes from their status, once per
+	 * probe cycle. Nodes no longer in the list are forgotten.
+	 *
+	 * @param nodes	the nodes of the system
+	 */
+	public void update(List<Node> nodes) {
+		HashMap<Node, NodeThrottle> states = new HashMap<Node, NodeThrottle>();
+		for (Node node : nodes) {
+			NodeThrottle state = m_nodes.get(node);
+			if (state == null) {
+				state = new NodeThrottle(node);
+			}
+			states.put(node, state);
+			if (m_maxFactor == 1) {
+				continue;
+			}
+			int factor = isBusy(node) ? Math.min(m_maxFactor, state.m_factor * 2) : Math.max(1, state.m_factor / 2);
+			if (factor != state.m_factor) {
+				if (factor > state.m_factor && state.m_factor == 1)
+					Logging.warn("Node " + node.getID() + " of system " + node.getSystemID() + " is busy, throttling its monitors");
+				else if (factor == 1)
+					Logging.info("Node " + node.getID() + " of system " + node.getSystemID() + " is back to the normal probe cadence");
+				state.m_factor = factor;
+				state.m_gauge.set(factor);
+			}
+		}
+		m_nodes = states;
+	}
+
+	/**
+	 * Whether a Monitor due at this time is deferred on its Node. The
+	 * critical monitors are never throttled.
+	 *
+	 * @param m		the Monitor
+	 * @param time	the time of the cycle since the first one, in seconds
+	 * @return	true if the probe is to be skipped
+	 */
+	public boolean isThrottled(Monitor m, long time) {
+		if (m.isCritical()) {
+			return false;
+		}
+		NodeThrottle state = m_nodes.get(m.m_node);
+		if (state == null || state.m_factor == 1) {
+			return false;
+		}
+		return (time / m.getInterval()) % state.m_factor != 0;
+	}
+
+	/**
+	 * Count a probe skipped because its Node is throttled.
+	 *
+	 * @param m		the Monitor
+	 */
+	public void skipped(Monitor m) {
+		NodeThrottle state = m_nodes.get(m.m_node);
+		if (state != null) {
+			state.m_skipped.increment();
+		}
+	}
+
+	/**
+	 * Whether the status snapshot of a Node shows it overloaded.
+	 */
+	private boolean isBusy(Node node) {
+		GlobalStatusObject status = GlobalStatusObject.peekInstance(node);
+		if (status == null || status.isFetching() || ! node.isConnected()) {
+			return false;
+		}
+		return exceeds(status.getCachedStatus("threads_running"), m_threadsRunning)
+				|| exceeds(status.getCachedStatus("wsrep_flow_control_paused"), m_flowControl);
+	}
+
+	/**
+	 * Whether a status value reaches a threshold, a threshold of 0 is never reached.
+	 */
+	private static boolean exceeds(String value, double threshold) {
+		if (value == null || threshold <= 0) {
+			return false;
+		}
+		try {
+			return Double.parseDouble(value) >= threshold;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,566 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.skysql.java.Logging;
+
+/**
+ * The recent history of the numeric values of every Monitor of every Node
+ * and system, kept in the process so that derived values, alerts and the
+ * local endpoints can read it without going through the API. The values
+ * of a system are the ones with Node ID 0.
+ *
+ * Each series has a fixed size: a ring of raw blocks and two rings of
+ * rollups, one slot per minute and one per five minutes, each slot holding
+ * the minimum, maximum, average and last value of its period. A raw block
+ * holds the points compressed as in Gorilla: the timestamps as deltas of
+ * deltas and the values XORed with the previous one. When the ring is full
+ * the oldest block is dropped.
+ *
+ * The options of the [monitor] section are history_budget_mb, the memory of
+ * all the series, 0 by default to keep no history; history_raw_bytes,
+ * the raw memory of a series, 4096 by default; and history_offheap, yes to
+ * keep the series outside of the Java heap. Series beyond the budget are
+ * not kept.
+ */
+public class TimeSeriesStore {
+	/**
+	 * The size of a raw block. Unit: bytes.
+	 */
+	private static final int		BLOCK_BYTES = 512;
+	/**
+	 * The most bits a point takes: the longest timestamp and value codes.
+	 */
+	private static final int		MAX_POINT_BITS = 4 + 32 + 2 + 5 + 6 + 64;
+	/**
+	 * The size of a rollup slot: start, minimum, maximum, sum, last and count.
+	 */
+	private static final int		SLOT_BYTES = 48;
+	/**
+	 * The series, keyed by system, Node and Monitor ID packed in a long.
+	 */
+	private static final ConcurrentHashMap<Long, Series>	SERIES = new ConcurrentHashMap<Long, Series>();
+	/**
+	 * The number of series kept.
+	 */
+	private static final AtomicInteger	COUNT = new AtomicInteger();
+	/**
+	 * The number of raw blocks of a series.
+	 */
+	private static final int		BLOCKS = Math.max(2, MonitorOptions.getInt("history_raw_bytes", 4096) / BLOCK_BYTES);
+	/**
+	 * Whether the series are kept outside of the heap.
+	 */
+	private static final boolean	OFFHEAP = MonitorOptions.getBoolean("history_offheap", false);
+	/**
+	 * The most series kept within the budget.
+	 */
+	private static final int		MAX_SERIES = (int) Math.min(Integer.MAX_VALUE,
+			MonitorOptions.getInt("history_budget_mb", 0) * 1048576L / seriesBytes());
+	/**
+	 * Whether the budget has been reported as exhausted.
+	 */
+	private static volatile boolean	m_exhausted = false;
+
+	/**
+	 * The periods of the rollups.
+	 */
+	public enum Resolution {
+		/** One slot per minute for an hour */
+		ONE_MINUTE(60000L, 60),
+		/** One slot per five minutes for six hours */
+		FIVE_MINUTES(300000L, 72);
+
+		private final long	m_period;
+		private final int	m_slots;
+
+		private Resolution(long period, int slots) {
+			m_period = period;
+			m_slots = slots;
+		}
+
+		/** @return the period of a slot, in milliseconds */
+		public long getPeriod() {
+			return m_period;
+		}
+
+		/** @return the number of slots kept */
+		public int getSlots() {
+			return m_slots;
+		}
+	}
+
+	/**
+	 * The raw points of a series, oldest first.
+	 */
+	public static class Points {
+		private final long[]	m_times;
+		private final double[]	m_values;
+		private final int		m_size;
+
+		private Points(long[] times, double[] values, int size) {
+			m_times = times;
+			m_values = values;
+			m_size = size;
+		}
+
+		/** @return the number of points */
+		public int getSize() {
+			return m_size;
+		}
+
+		/** @return the time of a point, in milliseconds */
+		public long getTime(int i) {
+			return m_times[i];
+		}
+
+		/** @return the value of a point */
+		public double getValue(int i) {
+			return m_values[i];
+		}
+	}
+
+	/**
+	 * The summary of the values of a period.
+	 */
+	public static class Rollup {
+		private final long		m_start;
+		private final double	m_min;
+		private final double	m_max;
+		private final double	m_avg;
+		private final double	m_last;
+		private final int		m_count;
+
+		private Rollup(long start, double min, double max, double avg, double last, int count) {
+			m_start = start;
+			m_min = min;
+			m_max = max;
+			m_avg = avg;
+			m_last = last;
+			m_count = count;
+		}
+
+		/** @return the start of the period, in milliseconds */
+		public long getStart() {
+			return m_start;
+		}
+
+		public double getMin() {
+			return m_min;
+		}
+
+		public double getMax() {
+			return m_max;
+		}
+
+		public double getAvg() {
+			return m_avg;
+		}
+
+		public double getLast() {
+			return m_last;
+		}
+
+		/** @return the number of values of the period */
+		public int getCount() {
+			return m_count;
+		}
+	}
+
+	/**
+	 * Private constructor, the store is static.
+	 */
+	private TimeSeriesStore() {
+	}
+
+	/**
+	 * @return	the memory of a series, in bytes
+	 */
+	private static long seriesBytes() {
+		long rollups = 0;
+		for (Resolution resolution : Resolution.values()) {
+			rollups += resolution.getSlots() * SLOT_BYTES;
+		}
+		return (long) Math.max(2, MonitorOptions.getInt("history_raw_bytes", 4096) / BLOCK_BYTES) * BLOCK_BYTES + rollups;
+	}
+
+	/**
+	 * The key of a series.
+	 */
+	private static Long key(int systemID, int nodeID, int monitorID) {
+		return Long.valueOf(((long) systemID << 42) | ((long) nodeID << 21) | monitorID);
+	}
+
+	/**
+	 * Add a value to a series, creating the series within the budget.
+	 *
+	 * @param systemID	the ID of the system
+	 * @param nodeID	the ID of the Node, 0 for the system value
+	 * @param monitorID	the ID of the Monitor
+	 * @param time		the time of the value, in milliseconds
+	 * @param value		the value
+	 */
+	public static void record(int systemID, int nodeID, int monitorID, long time, double value) {
+		if (MAX_SERIES == 0) {
+			return;
+		}
+		Long key = key(systemID, nodeID, monitorID);
+		Series series = SERIES.get(key);
+		if (series == null) {
+			if (COUNT.incrementAndGet() > MAX_SERIES) {
+				COUNT.decrementAndGet();
+				if (! m_exhausted) {
+					m_exhausted = true;
+					Logging.warn("The history budget is exhausted at " + MAX_SERIES + " series, raise history_budget_mb.");
+				}
+				return;
+			}
+			Series created = new Series(systemID);
+			series = SERIES.putIfAbsent(key, created);
+			if (series == null) {
+				series = created;
+			} else {
+				COUNT.decrementAndGet();
+			}
+		}
+		series.add(time, value);
+	}
+
+	/**
+	 * Read the raw points of the last minutes of a series.
+	 *
+	 * @param systemID	the ID of the system
+	 * @param nodeID	the ID of the Node, 0 for the system value
+	 * @param monitorID	the ID of the Monitor
+	 * @param minutes	the number of minutes to read
+	 * @return	the points, oldest first, none if there is no history
+	 */
+	public static Points query(int systemID, int nodeID, int monitorID, int minutes) {
+		Series series = SERIES.get(key(systemID, nodeID, monitorID));
+		long since = Clock.get().currentTimeMillis() - minutes * 60000L;
+		return series == null ? new Points(new long[0], new double[0], 0) : series.read(since);
+	}
+
+	/**
+	 * Read the rollups of the last minutes of a series.
+	 *
+	 * @param systemID		the ID of the system
+	 * @param nodeID		the ID of the Node, 0 for the system value
+	 * @param monitorID		the ID of the Monitor
+	 * @param resolution	the period of the rollups
+	 * @param minutes		the number of minutes to read
+	 * @return	the rollups of the periods with values, oldest first
+	 */
+	public static List<Rollup> rollups(int systemID, int nodeID, int monitorID, Resolution resolution, int minutes) {
+		Series series = SERIES.get(key(systemID, nodeID, monitorID));
+		List<Rollup> rollups = new ArrayList<Rollup>();
+		if (series != null) {
+			series.rollups(resolution, Clock.get().currentTimeMillis(), minutes * 60000L, rollups);
+		}
+		return rollups;
+	}
+
+	/**
+	 * Forget the series of a system, when it is no longer monitored.
+	 *
+	 * @param systemID	the ID of the system
+	 */
+	public static void removeSystem(int systemID) {
+		Iterator<Series> it = SERIES.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().m_systemID == systemID) {
+				it.remove();
+				COUNT.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Forget the series of the nodes of a system that are gone, when its
+	 * nodes are reconfigured. The series of the system and of the nodes
+	 * still there are kept.
+	 *
+	 * @param systemID	the ID of the system
+	 * @param nodeIDs	the IDs of the nodes of the system
+	 */
+	public static void retainNodes(int systemID, Set<Integer> nodeIDs) {
+		Iterator<Map.Entry<Long, Series>> it = SERIES.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Long, Series> entry = it.next();
+			int nodeID = (int) ((entry.getKey() >>> 21) & 0x1fffff);
+			if (entry.getValue().m_systemID == systemID && nodeID != 0 && ! nodeIDs.contains(nodeID)) {
+				it.remove();
+				COUNT.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return	the memory used by the series, in bytes
+	 */
+	public static long getBytes() {
+		return COUNT.get() * seriesBytes();
+	}
+
+	/**
+	 * A series: the raw blocks and the rollups in a single buffer.
+	 */
+	private static class Series {
+		private final int			m_systemID;
+		private final ByteBuffer	m_buffer;
+		/** The number of points of each block */
+		private final int[]			m_points;
+		/** The bits used in each block */
+		private final int[]			m_bits;
+		/** The block being written */
+		private int					m_block;
+		/** The encoder state: previous time, delta and value */
+		private long				m_prevTime;
+		private long				m_prevDelta;
+		private long				m_prevValue;
+		/** The encoder state: leading and trailing zeros of the previous XOR */
+		private int					m_prevLeading;
+		private int					m_prevTrailing;
+
+		private Series(int systemID) {
+			m_systemID = systemID;
+			int size = BLOCKS * BLOCK_BYTES;
+			for (Resolution resolution : Resolution.values()) {
+				size += resolution.getSlots() * SLOT_BYTES;
+			}
+			m_buffer = OFFHEAP ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+			m_points = new int[BLOCKS];
+			m_bits = new int[BLOCKS];
+			m_block = 0;
+		}
+
+		synchronized void add(long time, double value) {
+			if (m_points[m_block] > 0 && (time < m_prevTime || time - m_prevTime > Integer.MAX_VALUE / 2
+					|| m_bits[m_block] + MAX_POINT_BITS > BLOCK_BYTES * 8)) {
+				m_block = (m_block + 1) % BLOCKS;
+				m_points[m_block] = 0;
+			}
+			long bits = Double.doubleToRawLongBits(value);
+			int base = m_block * BLOCK_BYTES;
+			if (m_points[m_block] == 0) {
+				for (int i = 0; i < BLOCK_BYTES; i++) {
+					m_buffer.put(base + i, (byte) 0);
+				}
+				m_bits[m_block] = 0;
+				write(base, time, 64);
+				write(base, bits, 64);
+				m_prevDelta = 0;
+				m_prevLeading = Integer.MAX_VALUE;
+				m_prevTrailing = 0;
+			} else {
+				long delta = time - m_prevTime;
+				long dod = delta - m_prevDelta;
+				if (dod == 0) {
+					write(base, 0, 1);
+				} else if (dod >= -64 && dod <= 63) {
+					write(base, 0x2, 2);
+					write(base, dod, 7);
+				} else if (dod >= -256 && dod <= 255) {
+					write(base, 0x6, 3);
+					write(base, dod, 9);
+				} else if (dod >= -2048 && dod <= 2047) {
+					write(base, 0xe, 4);
+					write(base, dod, 12);
+				} else {
+					write(base, 0xf, 4);
+					write(base, dod, 32);
+				}
+				m_prevDelta = delta;
+				long xor = bits ^ m_prevValue;
+				if (xor == 0) {
+					write(base, 0, 1);
+				} else {
+					int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+					int trailing = Long.numberOfTrailingZeros(xor);
+					if (leading >= m_prevLeading && trailing >= m_prevTrailing) {
+						write(base, 0x2, 2);
+						write(base, xor >>> m_prevTrailing, 64 - m_prevLeading - m_prevTrailing);
+					} else {
+						int length = 64 - leading - trailing;
+						write(base, 0x3, 2);
+						write(base, leading, 5);
+						write(base, length - 1, 6);
+						write(base, xor >>> trailing, length);
+						m_prevLeading = leading;
+						m_prevTrailing = trailing;
+					}
+				}
+			}
+			m_prevTime = time;
+			m_prevValue = bits;
+			m_points[m_block]++;
+			int offset = BLOCKS * BLOCK_BYTES;
+			for (Resolution resolution : Resolution.values()) {
+				roll(offset, resolution, time, value);
+				offset += resolution.getSlots() * SLOT_BYTES;
+			}
+		}
+
+		/**
+		 * Append the low bits of a value to the current block.
+		 */
+		private void write(int base, long value, int count) {
+			int position = m_bits[m_block];
+			while (count > 0) {
+				int index = base + (position >>> 3);
+				int free = 8 - (position & 7);
+				int take = Math.min(free, count);
+				int chunk = (int) ((value >>> (count - take)) & ((1 << take) - 1));
+				m_buffer.put(index, (byte) (m_buffer.get(index) | (chunk << (free - take))));
+				position += take;
+				count -= take;
+			}
+			m_bits[m_block] = position;
+		}
+
+		/**
+		 * Add a value to its rollup slot, resetting the slot of an older period.
+		 */
+		private void roll(int offset, Resolution resolution, long time, double value) {
+			long start = time - time % resolution.getPeriod();
+			int slot = offset + (int) ((start / resolution.getPeriod()) % resolution.getSlots()) * SLOT_BYTES;
+			if (m_buffer.getLong(slot) != start) {
+				m_buffer.putLong(slot, start);
+				m_buffer.putDouble(slot + 8, value);
+				m_buffer.putDouble(slot + 16, value);
+				m_buffer.putDouble(slot + 24, value);
+				m_buffer.putDouble(slot + 32, value);
+				m_buffer.putInt(slot + 40, 1);
+				return;
+			}
+			m_buffer.putDouble(slot + 8, Math.min(m_buffer.getDouble(slot + 8), value));
+			m_buffer.putDouble(slot + 16, Math.max(m_buffer.getDouble(slot + 16), value));
+			m_buffer.putDouble(slot + 24, m_buffer.getDouble(slot + 24) + value);
+			m_buffer.putDouble(slot + 32, value);
+			m_buffer.putInt(slot + 40, m_buffer.getInt(slot + 40) + 1);
+		}
+
+		synchronized Points read(long since) {
+			int total = 0;
+			for (int points : m_points) {
+				total += points;
+			}
+			long[] times = new long[total];
+			double[] values = new double[total];
+			int size = 0;
+			for (int i = 1; i <= BLOCKS; i++) {
+				int block = (m_block + i) % BLOCKS;
+				if (m_points[block] > 0) {
+					size = decode(block, since, times, values, size);
+				}
+			}
+			return new Points(times, values, size);
+		}
+
+		/**
+		 * Decode the points of a block from a time on.
+		 *
+		 * @return	the number of points in the arrays
+		 */
+		private int decode(int block, long since, long[] times, double[] values, int size) {
+			int[] position = { block * BLOCK_BYTES * 8 };
+			long time = read(position, 64);
+			long bits = read(position, 64);
+			long delta = 0;
+			int leading = 0, trailing = 0;
+			for (int i = 0; i < m_points[block]; i++) {
+				if (i > 0) {
+					long dod;
+					if (read(position, 1) == 0) dod = 0;
+					else if (read(position, 1) == 0) dod = signed(read(position, 7), 7);
+					else if (read(position, 1) == 0) dod = signed(read(position, 9), 9);
+					else if (read(position, 1) == 0) dod = signed(read(position, 12), 12);
+					else dod = signed(read(position, 32), 32);
+					delta += dod;
+					time += delta;
+					if (read(position, 1) == 1) {
+						if (read(position, 1) == 1) {
+							leading = (int) read(position, 5);
+							int length = (int) read(position, 6) + 1;
+							trailing = 64 - leading - length;
+						}
+						bits ^= read(position, 64 - leading - trailing) << trailing;
+					}
+				}
+				if (time >= since) {
+					times[size] = time;
+					values[size] = Double.longBitsToDouble(bits);
+					size++;
+				}
+			}
+			return size;
+		}
+
+		/**
+		 * Read bits at a position of the buffer, moving the position.
+		 */
+		private long read(int[] position, int count) {
+			long value = 0;
+			while (count > 0) {
+				int index = position[0] >>> 3;
+				int available = 8 - (position[0] & 7);
+				int take = Math.min(available, count);
+				int chunk = ((m_buffer.get(index) & 0xff) >>> (available - take)) & ((1 << take) - 1);
+				value = (value << take) | chunk;
+				position[0] += take;
+				count -= take;
+			}
+			return value;
+		}
+
+		/**
+		 * Sign extend a value of some bits.
+		 */
+		private static long signed(long value, int bits) {
+			return (value << (64 - bits)) >> (64 - bits);
+		}
+
+		synchronized void rollups(Resolution resolution, long now, long span, List<Rollup> rollups) {
+			int offset = BLOCKS * BLOCK_BYTES;
+			for (Resolution r : Resolution.values()) {
+				if (r == resolution) break;
+				offset += r.getSlots() * SLOT_BYTES;
+			}
+			long period = resolution.getPeriod();
+			long last = now - now % period;
+			long first = Math.max(last - (resolution.getSlots() - 1) * period, now - span);
+			for (long start = first - first % period; start <= last; start += period) {
+				int slot = offset + (int) ((start / period) % resolution.getSlots()) * SLOT_BYTES;
+				if (m_buffer.getLong(slot) != start) continue;
+				int count = m_buffer.getInt(slot + 40);
+				rollups.add(new Rollup(start, m_buffer.getDouble(slot + 8), m_buffer.getDouble(slot + 16),
+						m_buffer.getDouble(slot + 24) / count, m_buffer.getDouble(slot + 32), count));
+			}
+		}
+	}
+}
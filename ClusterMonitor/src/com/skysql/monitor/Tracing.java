@@ -0,0 +1,146 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor;
+
+import com.skysql.java.Logging;
+
+/**
+ * Spans around the probes, the statements run on the monitored databases,
+ * the connections, the status fetches and the uploads to the API, for
+ * profiling with Java Flight Recorder.
+ *
+ * The main build has no tracer and every span is a shared object that
+ * does nothing. The jfr build profile adds com.skysql.monitor.jfr.JfrTracer,
+ * which is loaded here by name and records each span as a JFR event while
+ * a recording is running. The jfr_events option of the [monitor] section
+ * set to no disables the tracer.
+ */
+public class Tracing {
+	/**
+	 * The class of the JFR tracer, only present in the jfr build.
+	 */
+	private static final String		JFR_TRACER = "com.skysql.monitor.jfr.JfrTracer";
+
+	/**
+	 * A span in progress.
+	 */
+	public interface Span {
+		/**
+		 * End the span.
+		 *
+		 * @param success	true if the operation succeeded
+		 * @param rows		the number of rows or values handled, 0 if not relevant
+		 */
+		public void end(boolean success, long rows);
+	}
+
+	/**
+	 * The source of the spans.
+	 */
+	public interface Tracer {
+		/** @return a span around a probe */
+		public Span probe(int systemID, int nodeID, int monitorID, String type);
+		/** @return a span around a statement run on a monitored database */
+		public Span statement(int systemID, int nodeID, String sql);
+		/** @return a span around a connection to a monitored database */
+		public Span connect(int systemID, int nodeID);
+		/** @return a span around a fetch of the global status and variables */
+		public Span statusFetch(int systemID, int nodeID);
+		/** @return a span around a bulk upload to the API, node 0 for the system values */
+		public Span upload(int systemID, int nodeID, int values);
+	}
+
+	/**
+	 * The span returned when tracing is disabled.
+	 */
+	public static final Span		NOOP = new Span() {
+		public void end(boolean success, long rows) {
+		}
+	};
+
+	/**
+	 * The tracer, null if tracing is disabled.
+	 */
+	private static final Tracer		TRACER = load();
+
+	/**
+	 * Private constructor, the class is static.
+	 */
+	private Tracing() {
+	}
+
+	/**
+	 * Load the JFR tracer, if it is part of the build and enabled.
+	 */
+	private static Tracer load() {
+		if (! MonitorOptions.getBoolean("jfr_events", true)) {
+			return null;
+		}
+		try {
+			Tracer tracer = (Tracer) Class.forName(JFR_TRACER).newInstance();
+			Logging.info("JFR events enabled");
+			return tracer;
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (Throwable e) {
+			Logging.warn("JFR events not available: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return	a span around the probe of a Monitor
+	 */
+	public static Span probe(Monitor m) {
+		if (TRACER == null) return NOOP;
+		return TRACER.probe(m.m_node.getSystemID(), m.m_node.getID(), m.getID(), m.getClass().getSimpleName());
+	}
+
+	/**
+	 * @return	a span around a statement run on a monitored database
+	 */
+	public static Span statement(int systemID, int nodeID, String sql) {
+		if (TRACER == null) return NOOP;
+		return TRACER.statement(systemID, nodeID, sql);
+	}
+
+	/**
+	 * @return	a span around a connection to a monitored database
+	 */
+	public static Span connect(int systemID, int nodeID) {
+		if (TRACER == null) return NOOP;
+		return TRACER.connect(systemID, nodeID);
+	}
+
+	/**
+	 * @return	a span around a fetch of the global status and variables
+	 */
+	public static Span statusFetch(int systemID, int nodeID) {
+		if (TRACER == null) return NOOP;
+		return TRACER.statusFetch(systemID, nodeID);
+	}
+
+	/**
+	 * @return	a span around a bulk upload to the API
+	 */
+	public static Span upload(int systemID, int nodeID, int values) {
+		if (TRACER == null) return NOOP;
+		return TRACER.upload(systemID, nodeID, values);
+	}
+}
@@ -17,9 +17,7 @@
  */
 package com.skysql.monitor;
 
-import java.io.BufferedReader;
-import java.io.BufferedInputStream;
-import java.io.InputStreamReader;
+import java.util.concurrent.Future;
 
 import com.skysql.java.Logging;
 import com.skysql.java.MonData;
@@ -41,6 +39,18 @@ public class commandMonitor extends Monitor {
 	private int 		m_rate;	
 	/** Number of polls between command execution */
 	static	private		int POLERATIO = 5;	
+	/** The default timeout of a request to a persistent command, in seconds */
+	static	private		int	COPROCESS_TIMEOUT = 10;
+	/** The default timeout of a forked command, in seconds */
+	static	private		int	COMMAND_TIMEOUT = 30;
+	/** The output of a forked command kept, in bytes */
+	static	private		int	MAX_OUTPUT = 4096;
+	/** The command started by prefetch(), null if none */
+	private Future<ProcessExecutor.Result>	m_pending;
+	/** The persistent helper, null if the command is forked on every probe */
+	private CommandCoprocess	m_coprocess;
+	/** The timeout of a request to the persistent helper, in milliseconds */
+	private long		m_timeout;
 	// private String		m_nodeIP;
 	
 	/**
@@ -58,6 +68,39 @@ public class commandMonitor extends Monitor {
 		m_id = id;
 		m_rate = POLERATIO;
 		// m_nodeIP = db.getNodePrivateIP(mon_node.getID());
+		if (MonitorOptions.getBoolean(m_monitor_key + ".persistent", false) && ! m_sql.isEmpty()) {
+			m_coprocess = CommandCoprocess.getInstance(m_sql, mon_node.getSystemID());
+			m_timeout = 1000L * MonitorOptions.getInt(m_monitor_key + ".timeout", COPROCESS_TIMEOUT);
+		} else {
+			m_timeout = 1000L * MonitorOptions.getInt(m_monitor_key + ".timeout", COMMAND_TIMEOUT);
+		}
+	}
+	
+	/**
+	 * Start the forked command on the ProcessExecutor if it is due in this
+	 * cycle, so that the commands of all the nodes run concurrently.
+	 */
+	public void prefetch()
+	{
+		if (m_sql.isEmpty() || m_coprocess != null || m_rate < POLERATIO || m_pending != null)
+			return;
+		m_pending = ProcessExecutor.getInstance().submit(commandLine(), m_timeout, MAX_OUTPUT);
+	}
+	
+	/**
+	 * @return the command of the persistent helper, null if the command is forked
+	 */
+	public String getPersistentCommand()
+	{
+		return m_coprocess != null ? m_sql : null;
+	}
+	
+	/**
+	 * @return the command line run for this Node
+	 */
+	private String commandLine()
+	{
+		return m_sql + " " + m_node;
 	}
 	
 	/**
@@ -70,6 +113,12 @@ public class commandMonitor extends Monitor {
 	 * TODO: The command is run locally currently, it should be run on
 	 * the Node m_node
 	 * 
+	 * If the &lt;key&gt;.persistent option is set, the command is a long
+	 * running helper shared by all the nodes, see CommandCoprocess.
+	 * Otherwise the command is forked with the Node as argument on the
+	 * ProcessExecutor, usually by prefetch(), and killed after the
+	 * &lt;key&gt;.timeout.
+	 * 
 	 * @param verbose	Verbose or normal logging required
 	 */
 	public void probe(boolean verbose)
@@ -81,17 +130,22 @@ public class commandMonitor extends Monitor {
 		m_rate = 0;
 		
 		String value = null;
-		try {
-			Process proc = Runtime.getRuntime().exec(m_sql + " " + m_node);
-			BufferedInputStream buffer = new BufferedInputStream(proc.getInputStream());
-			BufferedReader commandOutput= new BufferedReader(new InputStreamReader(buffer));
-	
-			value = commandOutput.readLine().trim();
-			commandOutput.close();
+		if (m_coprocess != null) {
+			value = m_coprocess.request(m_node.getSystemID() + " " + m_node.getID() + " " + m_node.getAddress(), m_timeout);
+			saveObservation(value);
+			m_lastValue = value;
+			return;
 		}
-		catch (Exception ex)
+		Future<ProcessExecutor.Result> pending = m_pending;
+		m_pending = null;
+		if (pending == null)
+			pending = ProcessExecutor.getInstance().submit(commandLine(), m_timeout, MAX_OUTPUT);
+		ProcessExecutor.Result result = ProcessExecutor.getResult(pending, m_sql, m_timeout + ProcessExecutor.WAIT_GRACE);
+		value = result.getFirstLine();
+		if (value == null)
 		{
-			Logging.error("Command Monitor exception: " + ex.getMessage() + " in Monitor " + m_id);
+			Logging.error("Command Monitor returned no value, exit code " + result.getExitCode()
+					+ (result.isTimedOut() ? " (timed out)" : "") + " in Monitor " + m_id);
 		}
 		saveObservation(value);
 		m_lastValue = value;
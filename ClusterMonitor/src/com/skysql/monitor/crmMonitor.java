@@ -18,7 +18,11 @@
 
 package com.skysql.monitor;
 
-import java.io.*;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.skysql.java.Logging;
 import com.skysql.java.MonData;
@@ -56,9 +60,21 @@ import com.skysql.java.MonData;
  * 
  * Fix to account for different output from pacemaker 1.1.9
  * 
+ * The output is parsed by CrmStatusParser, which also understands the XML
+ * output of crm_mon --as-xml. See CrmWatcher for the watch mode.
+ * 
  * @author Mark Riddoch
  */
 public class crmMonitor extends Monitor {
+	/** The default timeout of the crm command, in seconds */
+	static	private		int	CRM_TIMEOUT = 30;
+	/** The output of the crm command kept, in bytes */
+	static	private		int	MAX_OUTPUT = 1048576;
+	/** The time of the MonData calls writing the states */
+	static	private		final LatencyHistogram	MAP_LATENCY = Metrics.histogram("ApiLatency", "mapCRMStatus");
+	static	private		final LatencyHistogram	DATA_LATENCY = Metrics.histogram("ApiLatency", "monitorData");
+	static	private		final LatencyHistogram	NODE_STATE_LATENCY = Metrics.histogram("ApiLatency", "setNodeState");
+	static				final LatencyHistogram	SYSTEM_STATUS_LATENCY = Metrics.histogram("ApiLatency", "setSystemStatus");
 	
 	/**
 	 * Constructor - all work is done by the superclass
@@ -74,7 +90,12 @@ public class crmMonitor extends Monitor {
 	/**
 	 * The probe method, called once per probe cycle.
 	 * 
-	 * This is a system only probe, so only runs if the Node number is -1
+	 * This is a system only probe, so only runs on Node 1.
+	 * 
+	 * In watch mode, enabled by the &lt;key&gt;.watch option, the probe only
+	 * makes sure that the CrmWatcher of the system is running. Otherwise the
+	 * command is run and its output parsed, as text or as the XML output of
+	 * crm_mon --as-xml, and the state of each Node is written once.
 	 * 
 	 * @param verbose The verbosity to log with
 	 */
@@ -84,77 +105,34 @@ public class crmMonitor extends Monitor {
 		{
 			return;
 		}
+		if (MonitorOptions.getBoolean(m_monitor_key + ".watch", false))
+		{
+			CrmWatcher.watch(m_node.getSystemID(), m_monitor_id, m_sql, verbose);
+			return;
+		}
 		if (verbose)
-			Logging.info("Parse crm status bynode");
+			Logging.info("Parse " + m_sql);
 		try {
-			Process process = Runtime.getRuntime().exec(m_sql);
-			InputStream probe = process.getInputStream();
-			BufferedReader in = new BufferedReader(new InputStreamReader(probe));
-			String line;
-			int		nodeNo = -1;
-			boolean failures = false;
-			while ((line = in.readLine()) != null)
+			long timeout = 1000L * MonitorOptions.getInt(m_monitor_key + ".timeout", CRM_TIMEOUT);
+			ProcessExecutor.Result result = ProcessExecutor.getInstance().run(m_sql, timeout, MAX_OUTPUT);
+			if (result.getStdout() == null || result.isTimedOut())
 			{
-				if (verbose)
-					Logging.info(line);
-				if (line.matches("Node.*"))
-				{
-					int beginIndex = line.indexOf("Node");
-					int endIndex = line.indexOf(":");
-					Integer node = new Integer(line.substring(beginIndex + 4, endIndex));
-					nodeNo = node.intValue();
-					if (verbose)
-						Logging.info(">>> Node is: " + nodeNo);
-					if (line.matches(".*OFFLINE.*"))
-					{
-						if (verbose)
-							Logging.info(">>> Set Node Status: " + nodeNo + " OFFLINE");
-						crmSetState(nodeNo, "OFFLINE", verbose);
-					}
-				}
-				if (line.matches(".*resMySQL.*"))
-				{
-
-					String state;
-					if (failures)
-					{
-						if (line.matches(".*demote.*"))	// Ignore failed demotes
-							continue;
-						if (line.matches(".*Monitor.*"))	// Ignore failed monitors
-							continue;
-						int beginIndex = line.lastIndexOf(": ");
-						state = line.substring(beginIndex + 2);
-						beginIndex = line.indexOf("Node=Node");
-						int endIndex = line.indexOf(",");
-						Integer node = new Integer(line.substring(beginIndex + 9, endIndex));
-						nodeNo = node.intValue();
-						if (verbose)
-							Logging.info(">>> Node is: " + nodeNo +". State is: " + state);
-					}
-					else
-					{
-						String	tline = line.trim();
-						String	words[] = tline.split("\\s");
-						state = words[words.length-1];
-
-						if (verbose)
-							Logging.info(">>> Node is: " + nodeNo +". State is: " + state);
-					}
-					crmSetState(nodeNo, state, verbose);
-				}
-				if (line.matches("Failed actions:"))
-				{
-					failures = true;
-				}
+				Logging.error("CRM command returned no output, exit code " + result.getExitCode()
+						+ (result.isTimedOut() ? " (timed out)" : ""));
+				return;
 			}
-			in.close();
-			m_confdb.setSystemStatus();
-			try {
-				process.exitValue();
-			} catch (Exception pex)
+			LinkedHashMap<Integer, String> states;
+			if (CrmStatusParser.isXmlCommand(m_sql))
+				states = CrmStatusParser.parseXml(new ByteArrayInputStream(result.getStdout().getBytes("UTF-8")));
+			else
+				states = CrmStatusParser.parseText(new BufferedReader(new StringReader(result.getStdout())), verbose);
+			for (Map.Entry<Integer, String> entry : states.entrySet())
 			{
-				Logging.error("process.exitValue: " + pex.getLocalizedMessage());
+				setState(m_confdb, m_monitor_id, entry.getKey(), entry.getValue(), verbose);
 			}
+			long start = System.nanoTime();
+			m_confdb.setSystemStatus();
+			SYSTEM_STATUS_LATENCY.recordSince(start);
 		} catch (Exception ex) {
 			Logging.error("CRM Probe exception: " + ex.getMessage());
 		}
@@ -164,28 +142,40 @@ public class crmMonitor extends Monitor {
 	 * Set the Node state by mapping the state parsed from the crm command
 	 * into an internal state
 	 *  
+	 * @param confdb	The API handle
+	 * @param monitorID	The ID of the Monitor to record the state for
 	 * @param nodeNo	The Node number to set state for
 	 * @param state		CRM state string
 	 * @param verbose	Logging verbosity
+	 * @return True if the state has been mapped and written
 	 */
-	private void crmSetState(int nodeNo, String state, boolean verbose)
+	static boolean setState(MonData confdb, int monitorID, int nodeNo, String state, boolean verbose)
 	{
-		String value = m_confdb.mapCRMStatus(state);
+		long start = System.nanoTime();
+		String value = confdb.mapCRMStatus(state);
+		MAP_LATENCY.recordSince(start);
 		
 		if (value == null)
 		{
 			Logging.warn("Unable to map state " + state);
-			return;
+			return false;
 		}
 		if (verbose)
 			Logging.info("Set Node State: Node: " + nodeNo + " State: " + value + "(mapped from " + state + ")");
 
-		m_confdb.monitorData(nodeNo, m_monitor_id, value);
+		start = System.nanoTime();
+		confdb.monitorData(nodeNo, monitorID, value);
+		DATA_LATENCY.recordSince(start);
 		try {
-			m_confdb.setNodeState(nodeNo, (new Integer(value)).intValue());
+			int stateID = (new Integer(value)).intValue();
+			start = System.nanoTime();
+			confdb.setNodeState(nodeNo, stateID);
+			NODE_STATE_LATENCY.recordSince(start);
 		} catch (Exception ex) {
 			Logging.error("Can not set Node state of " + value + " or Node " + nodeNo);
+			return false;
 		}
+		return true;
 	}
 
 	/**
@@ -195,4 +185,14 @@ public class crmMonitor extends Monitor {
 	{
 		return false;
 	}
+	
+	/**
+	 * The CRM state of the nodes is never throttled nor shed
+	 * 
+	 * @return Priority.CRITICAL
+	 */
+	public Priority getPriority()
+	{
+		return Priority.CRITICAL;
+	}
 }
@@ -0,0 +1,130 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.skysql.monitor.CrmWatcher;
+import com.skysql.monitor.crmMonitor;
+
+/**
+ * Run the crmMonitor against fake-crm, a script replaying recorded output
+ * of crm status bynode and crm_mon --as-xml, and check the Node states it
+ * writes to a stand-in API:
+ *
+ * text		crm status bynode, parsed once
+ * xml		crm_mon --as-xml, parsed once
+ * watch	crm_mon in watch mode: the watcher follows a failover of the
+ * 			master, then is stopped, which must kill the script
+ *
+ * Usage: CrmHarness [directory of fake-crm], src/main/resources/crm by
+ * default. The exit status is 0 if every mode wrote the expected states.
+ */
+public class CrmHarness {
+	/**
+	 * The time allowed to the watcher to follow the recorded documents,
+	 * in milliseconds.
+	 */
+	private static final long	WATCH_TIMEOUT = 10000;
+
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : "src/main/resources/crm");
+		String command = "sh " + new File(directory, "fake-crm").getAbsolutePath();
+		boolean passed = true;
+		passed &= check("text", probe(1, command + " status bynode"), "slave", "master", "slave");
+		passed &= check("xml", probe(2, command + " --as-xml"), "slave", "master", "slave");
+		passed &= watch(3, command + " --watch");
+		System.out.println(passed ? "All modes passed" : "FAILED");
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Run one probe of a crmMonitor on the first Node of a system.
+	 *
+	 * @return	the states written
+	 */
+	private static Map<Integer, String> probe(int systemID, String command) {
+		RecordingMonData confdb = api(systemID, command);
+		new crmMonitor(confdb, 1, new StandInNode(systemID, 1, 10)).probe(false);
+		return confdb.getStates();
+	}
+
+	/**
+	 * Start the watcher, wait for the states of the last recorded document,
+	 * then stop the watcher and check that its thread, which reads the
+	 * output of the script, has ended.
+	 */
+	private static boolean watch(int systemID, String command) throws Exception {
+		RecordingMonData confdb = api(systemID, command);
+		CrmWatcher.watch(confdb, systemID, 1, command, false);
+		long deadline = System.currentTimeMillis() + WATCH_TIMEOUT;
+		Map<Integer, String> states = confdb.getStates();
+		while (! "master".equals(states.get(3)) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+			states = confdb.getStates();
+		}
+		boolean passed = check("watch", states, "slave", "machine-down", "master");
+		CrmWatcher.stopSystem(systemID);
+		String name = "CrmWatcher-" + systemID + "-1";
+		deadline = System.currentTimeMillis() + WATCH_TIMEOUT;
+		while (isRunning(name) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		if (isRunning(name)) {
+			System.out.println("watch stop: the watcher is still reading the script");
+			return false;
+		}
+		System.out.println("watch stop: ok");
+		return passed;
+	}
+
+	/**
+	 * @return	the stand-in API of a system of three nodes and a CRM Monitor
+	 */
+	private static RecordingMonData api(int systemID, String command) {
+		return new RecordingMonData(systemID, Arrays.asList(1, 2, 3), 30,
+				new Object[][] { { "crm", "CRM", command, Boolean.FALSE } });
+	}
+
+	/**
+	 * Compare the states written with the expected states of nodes 1, 2 and 3.
+	 */
+	private static boolean check(String mode, Map<Integer, String> states, String node1, String node2, String node3) {
+		Map<Integer, String> expected = new TreeMap<Integer, String>();
+		expected.put(1, node1);
+		expected.put(2, node2);
+		expected.put(3, node3);
+		boolean passed = expected.equals(states);
+		System.out.println(mode + ": " + (passed ? "ok " : "expected " + expected + ", got ") + states);
+		return passed;
+	}
+
+	/**
+	 * @return	true if a thread of that name is alive
+	 */
+	private static boolean isRunning(String name) {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals(name) && thread.isAlive()) return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.skysql.monitor.DeltaMonitor;
+import com.skysql.monitor.GlobalMonitor;
+import com.skysql.monitor.RhinoMonitor;
+
+/**
+ * The delta computations of the DeltaMonitor, GlobalMonitor and
+ * RhinoMonitor, from the parsing of the probed value to the formatted
+ * difference, on a counter that grows at every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaBenchmark {
+	private long	m_counter = 1000000L;
+	private float	m_lastDelta = 1000000f;
+	private float	m_lastGlobal = 1000000f;
+	private float	m_lastRhino = 100000f;
+
+	@Benchmark
+	public String deltaMonitor() {
+		m_counter += 137;
+		float value = new Float(Long.toString(m_counter));
+		String delta = DeltaMonitor.computeDelta(value, m_lastDelta);
+		m_lastDelta = value;
+		return delta;
+	}
+
+	@Benchmark
+	public String globalMonitor() {
+		m_counter += 137;
+		long value = new Long(Long.toString(m_counter));
+		String delta = GlobalMonitor.computeDelta(value, m_lastGlobal);
+		m_lastGlobal = value;
+		return delta;
+	}
+
+	@Benchmark
+	public String rhinoMonitor() {
+		m_counter += 137;
+		float value = new Float(Double.toString(m_counter / 10.0));
+		String delta = RhinoMonitor.computeDelta(value, m_lastRhino);
+		m_lastRhino = value;
+		return delta;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.skysql.monitor.GaleraPartitions;
+
+/**
+ * The Galera majority check, GaleraPartitions.getPrimaryComponent, which
+ * replaced GaleraStatusMonitor.isMajority and checkIncomingAddress. The
+ * nodes form one cluster, except one node in three in the split case.
+ * The members of a component share the state UUID and configuration ID.
+ * The cold case computes the partitions, the memoized case is the steady
+ * state answered from the last result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GaleraPartitionsBenchmark {
+	@Param({"3", "9", "32", "128"})
+	int nodes;
+
+	@Param({"false", "true"})
+	boolean split;
+
+	private List<GaleraPartitions.Member>	m_members;
+	private GaleraPartitions				m_partitions;
+
+	@Setup
+	public void setup() {
+		StringBuilder incoming = new StringBuilder();
+		StringBuilder isolated = new StringBuilder();
+		for (int i = 0; i < nodes; i++) {
+			StringBuilder list = (split && i % 3 == 2) ? isolated : incoming;
+			if (list.length() > 0) list.append(',');
+			list.append(address(i)).append(":3306");
+		}
+		m_members = new ArrayList<GaleraPartitions.Member>(nodes);
+		for (int i = 0; i < nodes; i++) {
+			boolean alone = split && i % 3 == 2;
+			Set<String> identities = new HashSet<String>();
+			identities.add(address(i));
+			identities.add("node" + i + ".example.com");
+			m_members.add(new GaleraPartitions.Member(i + 1, alone ? "uuid-b" : "uuid-a", alone ? "7" : "12",
+					identities, (alone ? isolated : incoming).toString()));
+		}
+		m_partitions = new GaleraPartitions();
+	}
+
+	private static String address(int i) {
+		return "10.0." + (i / 250) + "." + (i % 250 + 1);
+	}
+
+	@Benchmark
+	public Set<Integer> cold() {
+		m_partitions.reset();
+		return m_partitions.getPrimaryComponent(m_members);
+	}
+
+	@Benchmark
+	public Set<Integer> memoized() {
+		return m_partitions.getPrimaryComponent(m_members);
+	}
+}
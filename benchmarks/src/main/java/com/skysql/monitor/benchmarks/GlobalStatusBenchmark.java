@@ -0,0 +1,99 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.skysql.monitor.GlobalStatusObject;
+
+/**
+ * Lookups in the GlobalStatusObject cache, as done by every GlobalMonitor
+ * and RhinoMonitor probe. The size is the number of status values and of
+ * variables; a MariaDB Galera server has about 500 of each. The cache is
+ * refreshed from the stand-in Node every UPDATE_THRESHOLD, as in the
+ * Monitor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalStatusBenchmark {
+	@Param({"100", "500", "1000"})
+	int size;
+
+	private StandInNode			m_node;
+	private GlobalStatusObject	m_global;
+	private String[]			m_status;
+	private String[]			m_variables;
+	private int					m_next;
+
+	@Setup
+	public void setup() {
+		m_node = new StandInNode(1, 1, size);
+		m_global = GlobalStatusObject.getInstance(m_node);
+		m_status = m_node.getStatusNames();
+		m_variables = m_node.getVariableNames();
+		for (int i = 0; i < m_status.length; i++) {
+			m_status[i] = m_status[i].toUpperCase();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		GlobalStatusObject.cleanUp(1);
+	}
+
+	/**
+	 * A status value, named in upper case as in the Monitor definitions.
+	 */
+	@Benchmark
+	public String getStatus() {
+		return m_global.getStatus(m_status[m_next++ % m_status.length]);
+	}
+
+	/**
+	 * A status value through getStatusOrVariable.
+	 */
+	@Benchmark
+	public String getStatusOrVariableHit() {
+		return m_global.getStatusOrVariable(m_status[m_next++ % m_status.length]);
+	}
+
+	/**
+	 * A variable through getStatusOrVariable, which first misses the status.
+	 */
+	@Benchmark
+	public String getStatusOrVariableFallback() {
+		return m_global.getStatusOrVariable(m_variables[m_next++ % m_variables.length]);
+	}
+}
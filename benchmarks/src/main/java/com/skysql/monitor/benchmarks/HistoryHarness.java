@@ -0,0 +1,216 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.skysql.monitor.Clock;
+import com.skysql.monitor.MonitorOptions;
+import com.skysql.monitor.TimeSeriesStore;
+
+/**
+ * Check that the TimeSeriesStore gives back the values it was given: each
+ * kind of series is recorded, then read back and compared bit for bit with
+ * the last values recorded, and its one minute rollups with the values of
+ * each minute. The times jitter enough to use every timestamp code, go back
+ * now and then and jump by days, and the values include NaN, infinities,
+ * negative zero and random doubles.
+ *
+ * Usage: HistoryHarness [name=value ...] with
+ *
+ * points		the values recorded in each series, 5000 by default
+ * seed			the seed of the random values and times, 1 by default
+ *
+ * The exit status is 0 if every series passed.
+ */
+public class HistoryHarness {
+	/**
+	 * The system of the series.
+	 */
+	private static final int	SYSTEM_ID = 1;
+	/**
+	 * The minutes to read, more than the times recorded span.
+	 */
+	private static final int	ALL = 10000000;
+	/**
+	 * The kinds of series.
+	 */
+	private static final String[]	KINDS = { "constant", "counter", "gauge", "random", "special" };
+
+	public static void main(String[] args) throws Exception {
+		int points = 5000;
+		long seed = 1;
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg : arg.substring(0, eq);
+			String value = eq < 0 ? "" : arg.substring(eq + 1);
+			if (name.equals("points")) points = Integer.parseInt(value);
+			else if (name.equals("seed")) seed = Long.parseLong(value);
+			else throw new IllegalArgumentException("Unknown option " + name);
+		}
+		MonitorOptions.set("history_budget_mb", "1");
+		MonitorOptions.set("history_raw_bytes", "4096");
+		long start = 1400000000000L;
+		SimulatedClock clock = new SimulatedClock(start);
+		Clock.set(clock);
+		Random random = new Random(seed);
+		boolean passed = true;
+		for (int kind = 0; kind < KINDS.length; kind++) {
+			passed &= check(kind, 1, clock, random, false);
+			passed &= check(kind, 2, clock, random, true);
+			passed &= check(kind, points, clock, random, false);
+			passed &= check(kind, points, clock, random, true);
+		}
+		System.out.println(passed ? "All series passed" : "FAILED");
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Record a series and read it back.
+	 *
+	 * @param kind		the kind of the values
+	 * @param count		the number of values
+	 * @param clock		the clock, moved to the last time recorded
+	 * @param random	the source of the values and times
+	 * @param irregular	whether the times jitter, go back and jump
+	 * @return	whether the series read back is the one recorded
+	 */
+	private static boolean check(int kind, int count, SimulatedClock clock, Random random, boolean irregular) {
+		int monitorID = kind + 1, nodeID = count * 2 + (irregular ? 1 : 0);
+		String series = KINDS[kind] + " of " + count + (irregular ? " irregular" : "") + " points";
+		List<long[]> recorded = new ArrayList<long[]>();
+		long time = clock.currentTimeMillis();
+		double counter = 0;
+		for (int i = 0; i < count; i++) {
+			time += irregular ? step(random) : 30000;
+			double value;
+			switch (kind) {
+			case 0:
+				value = 42;
+				break;
+			case 1:
+				counter += random.nextInt(1000);
+				value = counter;
+				break;
+			case 2:
+				value = 100 + random.nextInt(10);
+				break;
+			case 3:
+				value = Double.longBitsToDouble(random.nextLong());
+				if (Double.isNaN(value)) value = Double.NaN;
+				break;
+			default:
+				double[] special = { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+						-0.0, 0.0, Double.MIN_VALUE, Double.MAX_VALUE, -1, 0.1 };
+				value = special[random.nextInt(special.length)];
+			}
+			TimeSeriesStore.record(SYSTEM_ID, nodeID, monitorID, time, value);
+			recorded.add(new long[] { time, Double.doubleToLongBits(value) });
+		}
+		clock.advanceTo(time);
+		TimeSeriesStore.Points read = TimeSeriesStore.query(SYSTEM_ID, nodeID, monitorID, ALL);
+		int size = read.getSize();
+		if (size == 0 || size > count || (count < 100 && size != count)) {
+			System.out.println(series + ": " + size + " points read");
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			long[] expected = recorded.get(count - size + i);
+			if (read.getTime(i) != expected[0] || Double.doubleToLongBits(read.getValue(i)) != expected[1]) {
+				System.out.println(series + ": point " + i + " of " + size + " read as " + read.getTime(i)
+						+ " " + read.getValue(i) + ", recorded " + expected[0] + " "
+						+ Double.longBitsToDouble(expected[1]));
+				return false;
+			}
+		}
+		return irregular || checkRollups(series, recorded, nodeID, monitorID);
+	}
+
+	/**
+	 * Compare the one minute rollups with the values recorded in each
+	 * minute of the last hour.
+	 */
+	private static boolean checkRollups(String series, List<long[]> recorded, int nodeID, int monitorID) {
+		List<TimeSeriesStore.Rollup> rollups = TimeSeriesStore.rollups(SYSTEM_ID, nodeID, monitorID,
+				TimeSeriesStore.Resolution.ONE_MINUTE, 60);
+		long period = TimeSeriesStore.Resolution.ONE_MINUTE.getPeriod();
+		int next = 0;
+		for (TimeSeriesStore.Rollup rollup : rollups) {
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum = 0, last = 0;
+			int count = 0;
+			for (int i = next; i < recorded.size(); i++) {
+				long time = recorded.get(i)[0];
+				if (time - time % period != rollup.getStart()) continue;
+				double value = Double.longBitsToDouble(recorded.get(i)[1]);
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				sum = count == 0 ? value : sum + value;
+				last = value;
+				count++;
+				next = i;
+			}
+			if (count != rollup.getCount() || ! same(min, rollup.getMin()) || ! same(max, rollup.getMax())
+					|| ! same(sum / count, rollup.getAvg()) || ! same(last, rollup.getLast())) {
+				System.out.println(series + ": rollup of " + rollup.getStart() + " is " + rollup.getCount()
+						+ " values " + rollup.getMin() + " to " + rollup.getMax() + ", expected " + count
+						+ " values " + min + " to " + max);
+				return false;
+			}
+		}
+		if (recorded.size() > 1 && rollups.isEmpty()) {
+			System.out.println(series + ": no rollups");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return	whether two values are the same, NaN being the same as NaN
+	 */
+	private static boolean same(double a, double b) {
+		return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+	}
+
+	/**
+	 * The time to the next value: 30 seconds with a jitter from none to a
+	 * few minutes, now and then a step back or a jump of days.
+	 */
+	private static long step(Random random) {
+		switch (random.nextInt(8)) {
+		case 0:
+			return 30000;
+		case 1:
+			return 30000 + random.nextInt(128) - 64;
+		case 2:
+			return 30000 + random.nextInt(512) - 256;
+		case 3:
+			return 30000 + random.nextInt(4096) - 2048;
+		case 4:
+			return 30000 + random.nextInt(300000);
+		case 5:
+			return random.nextInt(50) == 0 ? -random.nextInt(60000) : 1;
+		case 6:
+			return random.nextInt(200) == 0 ? 30L * 86400000L : 0;
+		default:
+			return random.nextInt(30000);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.skysql.monitor.ClusterMonitor;
+import com.skysql.monitor.Counter;
+import com.skysql.monitor.LatencyHistogram;
+import com.skysql.monitor.Metrics;
+import com.skysql.monitor.Node;
+
+/**
+ * Load test of the whole monitor: run the ClusterMonitor threads of an
+ * increasing number of systems against stand-in nodes and a stand-in API,
+ * and report for each scale the cycle latency, the overruns, the CPU time,
+ * the allocation rate and the API calls.
+ *
+ * Usage: LoadHarness [name=value ...] with
+ *
+ * systems		the scales, comma separated, 1,10,50 by default
+ * nodes		the nodes of each system, 9 by default
+ * seconds		the measured time of each scale, 60 by default
+ * warmup		the time before the measure, 10 by default
+ * interval		the interval of the monitors in seconds, 1 by default
+ * size			the status values and variables of each node, 500 by default
+ * latency		the latency of a statement in milliseconds, 2 by default
+ * jitter		the random extra latency in milliseconds, 3 by default
+ * failures		the probability that a statement fails, 0.001 by default
+ * hangs		the probability that a statement hangs, 0.0001 by default
+ */
+public class LoadHarness {
+	/**
+	 * The first system ID of each scale, so that the metrics of the scales
+	 * are distinct.
+	 */
+	private static final int	SCALE_IDS = 1000;
+
+	public static void main(String[] args) throws Exception {
+		String systems = "1,10,50";
+		int nodes = 9, seconds = 60, warmup = 10, interval = 1, size = 500, latency = 2, jitter = 3;
+		double failures = 0.001, hangs = 0.0001;
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg : arg.substring(0, eq);
+			String value = eq < 0 ? "" : arg.substring(eq + 1);
+			if (name.equals("systems")) systems = value;
+			else if (name.equals("nodes")) nodes = Integer.parseInt(value);
+			else if (name.equals("seconds")) seconds = Integer.parseInt(value);
+			else if (name.equals("warmup")) warmup = Integer.parseInt(value);
+			else if (name.equals("interval")) interval = Integer.parseInt(value);
+			else if (name.equals("size")) size = Integer.parseInt(value);
+			else if (name.equals("latency")) latency = Integer.parseInt(value);
+			else if (name.equals("jitter")) jitter = Integer.parseInt(value);
+			else if (name.equals("failures")) failures = Double.parseDouble(value);
+			else if (name.equals("hangs")) hangs = Double.parseDouble(value);
+			else throw new IllegalArgumentException("Unknown option " + name);
+		}
+		StandInDatabase database = new StandInDatabase(nodes, size, latency, jitter, failures, hangs);
+		Node.setConnectionFactory(database);
+		System.out.println("systems nodes  cycles  mean_ms   p50_ms   p95_ms   p99_ms   max_ms overruns  cpu_cores  alloc_MB/s  statements/s  values/s  api_calls/s");
+		int scale = 0;
+		for (String count : systems.split(",")) {
+			scale++;
+			run(database, scale * SCALE_IDS, Integer.parseInt(count.trim()), nodes, interval, warmup, seconds);
+		}
+		System.out.println();
+		System.out.println("API calls:");
+		for (Map.Entry<String, Long> entry : RecordingMonData.getCalls().entrySet()) {
+			System.out.printf("  %-28s %d%n", entry.getKey(), entry.getValue());
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Run and measure one scale.
+	 */
+	private static void run(StandInDatabase database, int firstID, int systems, int nodes, int interval,
+			int warmup, int seconds) throws Exception {
+		List<ClusterMonitor> monitors = new ArrayList<ClusterMonitor>(systems);
+		for (int i = 0; i < systems; i++) {
+			int systemID = firstID + i;
+			ClusterMonitor monitor = new ClusterMonitor(new RecordingMonData(systemID, nodes, interval), systemID, false);
+			monitor.setDaemon(true);
+			monitors.add(monitor);
+			monitor.start();
+		}
+		Thread.sleep(warmup * 1000L);
+
+		List<LatencyHistogram> cycles = new ArrayList<LatencyHistogram>(systems);
+		List<Counter> overruns = new ArrayList<Counter>(systems);
+		for (int i = 0; i < systems; i++) {
+			LatencyHistogram histogram = Metrics.histogram("CycleDuration", "system" + (firstID + i));
+			histogram.reset();
+			cycles.add(histogram);
+			Counter counter = Metrics.counter("CycleOverruns", "system" + (firstID + i));
+			counter.reset();
+			overruns.add(counter);
+		}
+		long statements = database.getStatements();
+		long values = RecordingMonData.getValues();
+		long calls = totalCalls();
+		long cpu = cpuTime();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		Thread.sleep(seconds * 1000L);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		cpu = cpuTime() - cpu;
+		allocated = allocatedBytes() - allocated;
+		statements = database.getStatements() - statements;
+		values = RecordingMonData.getValues() - values;
+		calls = totalCalls() - calls;
+
+		long[] buckets = cycles.get(0).getBuckets();
+		long[] merged = new long[buckets.length];
+		long count = 0, sum = 0, max = 0, overrun = 0;
+		for (int i = 0; i < systems; i++) {
+			LatencyHistogram histogram = cycles.get(i);
+			histogram.copyBuckets(buckets);
+			for (int b = 0; b < buckets.length; b++) {
+				merged[b] += buckets[b];
+			}
+			count += histogram.getCount();
+			sum += histogram.getSum();
+			max = Math.max(max, histogram.getMax());
+			overrun += overruns.get(i).getValue();
+		}
+		System.out.printf("%7d %5d %7d %8.1f %8.1f %8.1f %8.1f %8.1f %8d %10.2f %11.1f %13.0f %9.0f %12.0f%n",
+				systems, nodes, count, count == 0 ? 0.0 : sum / 1000.0 / count,
+				percentile(merged, 0.50, max) / 1000.0, percentile(merged, 0.95, max) / 1000.0,
+				percentile(merged, 0.99, max) / 1000.0, max / 1000.0, overrun,
+				cpu / 1e9 / elapsed, allocated / 1048576.0 / elapsed,
+				statements / elapsed, values / elapsed, calls / elapsed);
+
+		for (ClusterMonitor monitor : monitors) {
+			monitor.shutdown();
+		}
+		for (ClusterMonitor monitor : monitors) {
+			monitor.join(10000L);
+		}
+	}
+
+	/**
+	 * A percentile of merged buckets, in microseconds, as LatencyHistogram does.
+	 */
+	private static long percentile(long[] buckets, double fraction, long max) {
+		long total = 0;
+		for (long count : buckets) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0L;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return i == buckets.length - 1 ? max : Math.min(1L << i, Math.max(1L, max));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return	the API calls made so far
+	 */
+	private static long totalCalls() {
+		long total = 0;
+		for (Long calls : RecordingMonData.getCalls().values()) {
+			total += calls;
+		}
+		return total;
+	}
+
+	/**
+	 * @return	the CPU time of the process, in nanoseconds
+	 */
+	static long cpuTime() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long total = 0;
+		for (long id : threads.getAllThreadIds()) {
+			total += Math.max(0L, threads.getThreadCpuTime(id));
+		}
+		return total;
+	}
+
+	/**
+	 * @return	the bytes allocated so far by the live threads
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (! (threads instanceof com.sun.management.ThreadMXBean)) {
+			return 0L;
+		}
+		long total = 0;
+		for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			total += Math.max(0L, bytes);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.skysql.java.MonData;
+
+/**
+ * A stand-in of the API for one system of a load test. It answers the
+ * topology and the Monitor definitions of a system of Galera nodes and
+ * records the calls made and the values written, so that a load test
+ * measures the monitor rather than the API.
+ *
+ * The default monitors are:
+ *
+ * 1 connections	GLOBAL threads_connected
+ * 2 queries		GLOBAL delta of queries
+ * 3 clustersize	GLOBAL wsrep_cluster_size
+ * 4 galera			GALERA_STATUS
+ * 5 uptime			SQL on information_schema.global_status
+ *
+ * all with the same interval; other monitors can be given as rows of key,
+ * type, SQL or script, and delta. The nodes are provisioned once, on the
+ * first call of getProvisionedNodes.
+ */
+public class RecordingMonData extends MonData {
+	/**
+	 * The Node states, keyed by ID; 100 + wsrep_local_state for the states
+	 * of a Galera Node, 13 and 14 for the Master and Slave CRM states.
+	 */
+	private static final Map<Integer, String>	STATES = new TreeMap<Integer, String>();
+	static {
+		STATES.put(1, "down");
+		STATES.put(2, "machine-down");
+		STATES.put(3, "isolated");
+		STATES.put(5, "incorrectly-joined");
+		STATES.put(13, "master");
+		STATES.put(14, "slave");
+		STATES.put(101, "joining");
+		STATES.put(102, "donor");
+		STATES.put(103, "joining");
+		STATES.put(104, "joined");
+	}
+	/**
+	 * The monitors: key, type, SQL and delta.
+	 */
+	public static final Object[][]		MONITORS = {
+		{ "connections", "GLOBAL", "threads_connected", Boolean.FALSE },
+		{ "queries", "GLOBAL", "queries", Boolean.TRUE },
+		{ "clustersize", "GLOBAL", "wsrep_cluster_size", Boolean.FALSE },
+		{ "galera", "GALERA_STATUS", "", Boolean.FALSE },
+		{ "uptime", "SQL", "select variable_value from information_schema.global_status where variable_name='UPTIME'", Boolean.FALSE },
+	};
+	/**
+	 * The calls made, keyed by method, shared by all the systems.
+	 */
+	private static final ConcurrentHashMap<String, AtomicLong>	CALLS = new ConcurrentHashMap<String, AtomicLong>();
+	/**
+	 * The values written by bulkMonitorData, all the systems.
+	 */
+	private static final AtomicLong		VALUES = new AtomicLong();
+	/**
+	 * The system ID.
+	 */
+	private final int					m_systemID;
+	/**
+	 * The Node IDs.
+	 */
+	private final List<Integer>			m_nodes;
+	/**
+	 * The interval of the monitors, in seconds.
+	 */
+	private final int					m_interval;
+	/**
+	 * The monitors, with IDs from 1.
+	 */
+	private final Object[][]			m_monitors;
+	/**
+	 * The state of each Node.
+	 */
+	private final ConcurrentHashMap<Integer, Integer>	m_states = new ConcurrentHashMap<Integer, Integer>();
+	/**
+	 * Whether the nodes are still to be provisioned.
+	 */
+	private volatile boolean			m_provision = true;
+	/**
+	 * The last state set for the system.
+	 */
+	private volatile String				m_systemState = "created";
+
+	/**
+	 * Constructor for the stand-in API of a system.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodes		the number of nodes, with IDs 1 to nodes
+	 * @param interval	the interval of the monitors, in seconds
+	 */
+	public RecordingMonData(int systemID, int nodes, int interval) {
+		this(systemID, range(nodes), interval, MONITORS);
+	}
+
+	/**
+	 * Constructor for the stand-in API of a system with given nodes and monitors.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodes		the Node IDs
+	 * @param interval	the interval of the monitors, in seconds
+	 * @param monitors	the monitors as rows of key, type, SQL and delta
+	 */
+	public RecordingMonData(int systemID, List<Integer> nodes, int interval, Object[][] monitors) {
+		super(systemID);
+		m_systemID = systemID;
+		m_interval = interval;
+		m_nodes = Collections.unmodifiableList(new ArrayList<Integer>(nodes));
+		m_monitors = monitors;
+	}
+
+	/**
+	 * @return	the numbers 1 to n
+	 */
+	private static List<Integer> range(int n) {
+		List<Integer> ids = new ArrayList<Integer>(n);
+		for (int i = 1; i <= n; i++) {
+			ids.add(i);
+		}
+		return ids;
+	}
+
+	/**
+	 * @return	the calls made to the stand-ins, keyed by method
+	 */
+	public static Map<String, Long> getCalls() {
+		Map<String, Long> calls = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : CALLS.entrySet()) {
+			calls.put(entry.getKey(), entry.getValue().get());
+		}
+		return calls;
+	}
+
+	/**
+	 * @return	the values written by bulkMonitorData
+	 */
+	public static long getValues() {
+		return VALUES.get();
+	}
+
+	/**
+	 * @return	the last state set for the system
+	 */
+	public String getSystemState() {
+		return m_systemState;
+	}
+
+	/**
+	 * @return	the name of the last state set for each Node
+	 */
+	public Map<Integer, String> getStates() {
+		Map<Integer, String> states = new TreeMap<Integer, String>();
+		for (Map.Entry<Integer, Integer> entry : m_states.entrySet()) {
+			states.put(entry.getKey(), STATES.get(entry.getValue()));
+		}
+		return states;
+	}
+
+	/**
+	 * Count a call.
+	 */
+	private static void call(String method) {
+		AtomicLong count = CALLS.get(method);
+		if (count == null) {
+			AtomicLong created = new AtomicLong();
+			count = CALLS.putIfAbsent(method, created);
+			if (count == null) count = created;
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * The definition of a Monitor, null for an unknown ID.
+	 */
+	private Object[] monitor(int id) {
+		return id >= 1 && id <= m_monitors.length ? m_monitors[id - 1] : null;
+	}
+
+	public boolean getProvisionedNodes() {
+		call("getProvisionedNodes");
+		boolean provision = m_provision;
+		m_provision = false;
+		return provision;
+	}
+
+	public boolean saveMonitorChanges() {
+		call("saveMonitorChanges");
+		return false;
+	}
+
+	public List<Integer> getNodeListCached() {
+		call("getNodeListCached");
+		return m_nodes;
+	}
+
+	public List<Integer> getNodeList() {
+		call("getNodeList");
+		return m_nodes;
+	}
+
+	public String getNodeName(int id) {
+		call("getNodeName");
+		return "node" + id;
+	}
+
+	public String getNodeHostName(int id) {
+		call("getNodeHostName");
+		return "node" + id;
+	}
+
+	public String getNodePrivateIP(int id) {
+		call("getNodePrivateIP");
+		return StandInDatabase.address(m_systemID, id);
+	}
+
+	public List<Integer> getMonitorIdList() {
+		call("getMonitorIdList");
+		return range(m_monitors.length);
+	}
+
+	public String getMonitorType(int id) {
+		call("getMonitorType");
+		Object[] monitor = monitor(id);
+		return monitor == null ? null : (String) monitor[1];
+	}
+
+	public String getMonitorKey(int id) {
+		call("getMonitorKey");
+		Object[] monitor = monitor(id);
+		return monitor == null ? null : (String) monitor[0];
+	}
+
+	public String getMonitorSQL(int id) {
+		call("getMonitorSQL");
+		Object[] monitor = monitor(id);
+		return monitor == null ? "" : (String) monitor[2];
+	}
+
+	public Boolean isMonitorDelta(int id) {
+		call("isMonitorDelta");
+		Object[] monitor = monitor(id);
+		return monitor == null ? Boolean.FALSE : (Boolean) monitor[3];
+	}
+
+	public boolean isMonitorSystemAverage(int id) {
+		call("isMonitorSystemAverage");
+		return false;
+	}
+
+	public Integer getMonitorClassInterval(String key) {
+		call("getMonitorClassInterval");
+		return m_interval;
+	}
+
+	public boolean bulkMonitorData(List<Integer> monitorIDs, int systemID, int nodeID, List<String> values) {
+		call("bulkMonitorData");
+		VALUES.addAndGet(values.size());
+		return true;
+	}
+
+	public Integer getNodeStateId(String state) {
+		call("getNodeStateId");
+		for (Map.Entry<Integer, String> entry : STATES.entrySet()) {
+			if (entry.getValue().equals(state)) return entry.getKey();
+		}
+		return 0;
+	}
+
+	public String getNodeStateFromId(Integer id) {
+		call("getNodeStateFromId");
+		String state = STATES.get(id);
+		return state == null ? "" : state;
+	}
+
+	public void setNodeState(int nodeID, int stateID) {
+		call("setNodeState");
+		m_states.put(nodeID, stateID);
+	}
+
+	public String getNodeState(int nodeID) {
+		call("getNodeState");
+		Integer state = m_states.get(nodeID);
+		return state == null ? "" : getNodeStateFromId(state);
+	}
+
+	public List<String> getNodeStates() {
+		call("getNodeStates");
+		List<String> states = new ArrayList<String>(m_nodes.size());
+		for (Integer id : m_nodes) {
+			Integer state = m_states.get(id);
+			states.add(state == null ? "down" : STATES.get(state));
+		}
+		return states;
+	}
+
+	public void setNodeDatabaseProperties(int nodeID, String type, String version) {
+		call("setNodeDatabaseProperties");
+	}
+
+	public void setSystemState(String state) {
+		call("setSystemState");
+		m_systemState = state;
+	}
+
+	public void setSystemStatus() {
+		call("setSystemStatus");
+	}
+
+	public void monitorData(int nodeID, int monitorID, String value) {
+		call("monitorData");
+	}
+
+	public String mapCRMStatus(String state) {
+		call("mapCRMStatus");
+		if (state.equals("Master")) return "13";
+		if (state.equals("Slave") || state.equals("Started")) return "14";
+		if (state.equals("OFFLINE")) return "2";
+		if (state.equals("Stopped")) return "1";
+		return null;
+	}
+}
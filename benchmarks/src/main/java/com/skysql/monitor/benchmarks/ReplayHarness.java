@@ -0,0 +1,276 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.skysql.monitor.Clock;
+import com.skysql.monitor.DeltaMonitor;
+import com.skysql.monitor.GaleraStatusMonitor;
+import com.skysql.monitor.GlobalMonitor;
+import com.skysql.monitor.Monitor;
+import com.skysql.monitor.RhinoMonitor;
+import com.skysql.monitor.SnapshotReader;
+import com.skysql.monitor.SnapshotRecorder;
+
+/**
+ * Replays a recording of the node results, made with the record_file
+ * option, through the real monitors, without any database: to measure the
+ * CPU of the monitors on production data, to reproduce Galera states
+ * offline and to compare performance changes on the same input.
+ *
+ * The recording is loaded first, then replayed in steps of recorded time;
+ * after each step every Monitor of every system is probed once. The
+ * monitors run on a SimulatedClock set to the recorded time, so that their
+ * caches behave as they did when the results were recorded.
+ *
+ * Usage: ReplayHarness file [name=value ...] with
+ *
+ * global		GLOBAL monitors, comma separated status or variable names
+ * delta		GLOBAL delta monitors, comma separated status names
+ * js			a JS Monitor script, may be repeated
+ * statements	plain, delta or none: a SQL Monitor, or a DELTA Monitor, for
+ * 				each recorded statement, plain by default
+ * galera		yes or no, a GALERA_STATUS Monitor, yes by default
+ * step			the recorded time between two probes, in milliseconds, 1000 by default
+ * passes		the number of times the recording is replayed, 1 by default
+ * states		yes to print the changes of the Galera states
+ */
+public class ReplayHarness {
+	/**
+	 * The ping of ClusterMonitor, not a Monitor statement.
+	 */
+	private static final String		PING = "show status like 'wsrep_local_state'";
+
+	/**
+	 * A replayed system: its nodes, monitors and API stand-in.
+	 */
+	private static class ReplaySystem {
+		private final int							m_systemID;
+		private final Map<Integer, ReplayNode>		m_nodes = new TreeMap<Integer, ReplayNode>();
+		private final List<Monitor>					m_monitors = new ArrayList<Monitor>();
+		private RecordingMonData					m_confdb;
+		private Map<Integer, String>				m_states = new TreeMap<Integer, String>();
+		private String								m_systemState = "";
+
+		private ReplaySystem(int systemID) {
+			m_systemID = systemID;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: ReplayHarness file [global=...] [delta=...] [js=...] [statements=plain|delta|none]"
+					+ " [galera=yes|no] [step=ms] [passes=n] [states=yes]");
+			System.exit(1);
+		}
+		List<String> globals = new ArrayList<String>();
+		List<String> deltas = new ArrayList<String>();
+		List<String> scripts = new ArrayList<String>();
+		String statements = "plain";
+		boolean galera = true, states = false;
+		long step = 1000L;
+		int passes = 1;
+		for (int i = 1; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			String name = eq < 0 ? args[i] : args[i].substring(0, eq);
+			String value = eq < 0 ? "" : args[i].substring(eq + 1);
+			if (name.equals("global")) split(value, globals);
+			else if (name.equals("delta")) split(value, deltas);
+			else if (name.equals("js")) scripts.add(value);
+			else if (name.equals("statements")) statements = value;
+			else if (name.equals("galera")) galera = value.equalsIgnoreCase("yes");
+			else if (name.equals("step")) step = Long.parseLong(value);
+			else if (name.equals("passes")) passes = Integer.parseInt(value);
+			else if (name.equals("states")) states = value.equalsIgnoreCase("yes");
+			else throw new IllegalArgumentException("Unknown option " + name);
+		}
+
+		List<SnapshotReader.Record> records = new ArrayList<SnapshotReader.Record>();
+		Set<String> sqls = new LinkedHashSet<String>();
+		Map<Integer, ReplaySystem> systems = new TreeMap<Integer, ReplaySystem>();
+		SnapshotReader reader = new SnapshotReader(new BufferedInputStream(new FileInputStream(args[0]), 65536));
+		try {
+			SnapshotReader.Record record;
+			while ((record = reader.next()) != null) {
+				records.add(record);
+				if (record.getType() == SnapshotRecorder.STATEMENT && ! record.getSql().equalsIgnoreCase(PING))
+					sqls.add(record.getSql());
+				ReplaySystem system = systems.get(record.getSystemID());
+				if (system == null) {
+					system = new ReplaySystem(record.getSystemID());
+					systems.put(record.getSystemID(), system);
+				}
+				if (! system.m_nodes.containsKey(record.getNodeID()))
+					system.m_nodes.put(record.getNodeID(), new ReplayNode(record.getSystemID(), record.getNodeID()));
+			}
+		} finally {
+			reader.close();
+		}
+		if (records.isEmpty()) {
+			System.err.println("The recording is empty.");
+			System.exit(1);
+		}
+
+		List<Object[]> monitors = new ArrayList<Object[]>();
+		for (String name : globals)
+			monitors.add(new Object[] { name, "GLOBAL", name, Boolean.FALSE });
+		for (String name : deltas)
+			monitors.add(new Object[] { name + "_delta", "GLOBAL", name, Boolean.TRUE });
+		for (int i = 0; i < scripts.size(); i++)
+			monitors.add(new Object[] { "js" + (i + 1), "JS", scripts.get(i), Boolean.FALSE });
+		if (! statements.equals("none")) {
+			int i = 0;
+			for (String sql : sqls)
+				monitors.add(new Object[] { "sql" + (++i), "SQL", sql, statements.equals("delta") });
+		}
+		if (galera)
+			monitors.add(new Object[] { "galera", "GALERA_STATUS", "", Boolean.FALSE });
+		Object[][] definitions = monitors.toArray(new Object[monitors.size()][]);
+		SimulatedClock clock = new SimulatedClock(records.get(0).getTime());
+		Clock.set(clock);
+		for (ReplaySystem system : systems.values()) {
+			system.m_confdb = new RecordingMonData(system.m_systemID,
+					new ArrayList<Integer>(system.m_nodes.keySet()), 1, definitions);
+			for (int id = 1; id <= definitions.length; id++) {
+				for (ReplayNode node : system.m_nodes.values()) {
+					system.m_monitors.add(create(system.m_confdb, id, definitions[id - 1], node));
+				}
+			}
+		}
+		System.out.println("Replaying " + records.size() + " records of " + systems.size() + " system(s), "
+				+ definitions.length + " monitor(s), " + passes + " pass(es)");
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long cycles = 0, probes = 0;
+		long cpu = LoadHarness.cpuTime();
+		long threadCpu = threads.getCurrentThreadCpuTime();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		long length = records.get(records.size() - 1).getTime() - records.get(0).getTime() + step;
+		for (int pass = 0; pass < passes; pass++) {
+			long offset = pass * length;
+			long stepEnd = records.get(0).getTime() + step;
+			for (SnapshotReader.Record record : records) {
+				while (record.getTime() >= stepEnd) {
+					clock.advanceTo(stepEnd + offset);
+					probes += probe(systems, states, stepEnd);
+					cycles++;
+					stepEnd += step;
+				}
+				systems.get(record.getSystemID()).m_nodes.get(record.getNodeID()).apply(record);
+			}
+			clock.advanceTo(stepEnd + offset);
+			probes += probe(systems, states, stepEnd);
+			cycles++;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e6;
+		cpu = LoadHarness.cpuTime() - cpu;
+		threadCpu = threads.getCurrentThreadCpuTime() - threadCpu;
+		allocated = allocatedBytes() - allocated;
+		System.out.printf("cycles %d, probes %d, wall %.1f ms, process cpu %.1f ms, replay thread cpu %.1f ms%n",
+				cycles, probes, elapsed, cpu / 1e6, threadCpu / 1e6);
+		System.out.printf("%.2f us cpu per probe, %.0f bytes allocated per probe by the replay thread%n",
+				probes == 0 ? 0.0 : cpu / 1e3 / probes, probes == 0 ? 0.0 : (double) allocated / probes);
+		System.exit(0);
+	}
+
+	/**
+	 * Create a Monitor as ClusterMonitor does.
+	 */
+	private static Monitor create(RecordingMonData confdb, int id, Object[] definition, ReplayNode node) {
+		String type = (String) definition[1];
+		boolean delta = (Boolean) definition[3];
+		if (type.equals("GLOBAL"))
+			return new GlobalMonitor(confdb, id, node, delta);
+		if (type.equals("JS"))
+			return new RhinoMonitor(confdb, id, node);
+		if (type.equals("GALERA_STATUS"))
+			return new GaleraStatusMonitor(confdb, id, node);
+		return delta ? new DeltaMonitor(confdb, id, node) : new Monitor(confdb, id, node);
+	}
+
+	/**
+	 * Probe every Monitor once.
+	 *
+	 * @return	the number of probes
+	 */
+	private static int probe(Map<Integer, ReplaySystem> systems, boolean states, long time) {
+		int probes = 0;
+		for (ReplaySystem system : systems.values()) {
+			for (Monitor monitor : system.m_monitors) {
+				monitor.probe(false);
+				probes++;
+			}
+			if (states) {
+				printStates(system, time);
+			}
+		}
+		return probes;
+	}
+
+	/**
+	 * Print the Galera states that changed.
+	 */
+	private static void printStates(ReplaySystem system, long time) {
+		String when = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(time));
+		Map<Integer, String> current = system.m_confdb.getStates();
+		for (Map.Entry<Integer, String> entry : current.entrySet()) {
+			String previous = system.m_states.get(entry.getKey());
+			if (! entry.getValue().equals(previous)) {
+				System.out.println(when + " system " + system.m_systemID + " node " + entry.getKey()
+						+ ": " + (previous == null ? "-" : previous) + " -> " + entry.getValue());
+			}
+		}
+		if (! system.m_confdb.getSystemState().equals(system.m_systemState)) {
+			System.out.println(when + " system " + system.m_systemID + ": "
+					+ system.m_systemState + " -> " + system.m_confdb.getSystemState());
+			system.m_systemState = system.m_confdb.getSystemState();
+		}
+		system.m_states = current;
+	}
+
+	private static void split(String value, List<String> names) {
+		for (String name : value.split(",")) {
+			if (! name.trim().isEmpty()) names.add(name.trim());
+		}
+	}
+
+	/**
+	 * @return	the bytes allocated so far by the current thread
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0L;
+	}
+}
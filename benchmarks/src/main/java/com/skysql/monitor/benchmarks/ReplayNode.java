@@ -0,0 +1,85 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.util.HashMap;
+
+import com.skysql.monitor.Node;
+import com.skysql.monitor.SnapshotReader;
+import com.skysql.monitor.SnapshotRecorder;
+
+/**
+ * A Node answering from recorded results: fetchTable and execute return
+ * the last result recorded for the same SQL, as applied by the replay.
+ */
+public class ReplayNode extends Node {
+	/**
+	 * The last table recorded for each SQL, null if the fetch failed.
+	 */
+	private final HashMap<String, HashMap<String, String>>	m_tables;
+	/**
+	 * The last value recorded for each SQL.
+	 */
+	private final HashMap<String, String>	m_statements;
+
+	/**
+	 * Constructor for the replayed Node.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodeNo	the Node ID
+	 */
+	public ReplayNode(int systemID, int nodeNo) {
+		super(systemID, nodeNo, "replay" + nodeNo);
+		m_tables = new HashMap<String, HashMap<String, String>>();
+		m_statements = new HashMap<String, String>();
+	}
+
+	/**
+	 * Make a recorded result the current one.
+	 *
+	 * @param record	a record of this Node
+	 */
+	public synchronized void apply(SnapshotReader.Record record) {
+		if (record.getType() == SnapshotRecorder.TABLE) {
+			m_tables.put(record.getSql(), record.getTable());
+		} else {
+			m_statements.put(record.getSql(), record.getValue());
+		}
+	}
+
+	public synchronized HashMap<String, String> fetchTable(String sql) {
+		HashMap<String, String> table = m_tables.get(sql);
+		return table == null ? null : new HashMap<String, String>(table);
+	}
+
+	public synchronized String execute(String sql) {
+		return m_statements.get(sql);
+	}
+
+	public boolean isConnected() {
+		return true;
+	}
+
+	/**
+	 * The stand-in answers the burst samples itself.
+	 */
+	public Node getSampleLane() {
+		return this;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.skysql.monitor.GlobalStatusObject;
+import com.skysql.monitor.RhinoMonitor;
+
+/**
+ * The evaluation of a RhinoMonitor script against the global status of
+ * a stand-in Node. Needs a JDK with a JavaScript engine, such as Java 8.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RhinoBenchmark {
+	/**
+	 * A script in the style of the Galera state monitors.
+	 */
+	static final String		SCRIPT = "var state = globals.getStatus('wsrep_local_state');"
+			+ " var size = globals.getStatus('wsrep_cluster_size');"
+			+ " (state == null || size == null) ? 0.0 : parseFloat(state) * 100 + parseFloat(size);";
+
+	private GlobalStatusObject	m_global;
+
+	@Setup
+	public void setup() {
+		m_global = GlobalStatusObject.getInstance(new StandInNode(1, 1, 500));
+	}
+
+	@TearDown
+	public void tearDown() {
+		GlobalStatusObject.cleanUp(1);
+	}
+
+	@Benchmark
+	public String evaluate() throws Exception {
+		return RhinoMonitor.evaluate(SCRIPT, m_global);
+	}
+}
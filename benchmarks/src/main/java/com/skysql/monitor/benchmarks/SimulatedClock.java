@@ -0,0 +1,75 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import com.skysql.monitor.Clock;
+
+/**
+ * A clock that moves only when the simulation moves it. A thread sleeping
+ * on it waits until the simulation has moved the clock past its wake up
+ * time.
+ */
+public class SimulatedClock extends Clock {
+	/**
+	 * The current time, in milliseconds since the epoch.
+	 */
+	private long	m_time;
+
+	/**
+	 * Constructor for the clock.
+	 *
+	 * @param start	the time to start from, in milliseconds since the epoch
+	 */
+	public SimulatedClock(long start) {
+		m_time = start;
+	}
+
+	public synchronized long currentTimeMillis() {
+		return m_time;
+	}
+
+	public synchronized void sleep(long millis) throws InterruptedException {
+		long until = m_time + millis;
+		while (m_time < until) {
+			wait();
+		}
+	}
+
+	/**
+	 * Move the clock forward.
+	 *
+	 * @param millis	the time to add, in milliseconds
+	 */
+	public synchronized void advance(long millis) {
+		m_time += millis;
+		notifyAll();
+	}
+
+	/**
+	 * Move the clock to a time, unless it is already past it.
+	 *
+	 * @param time	the time, in milliseconds since the epoch
+	 */
+	public synchronized void advanceTo(long time) {
+		if (time > m_time) {
+			m_time = time;
+			notifyAll();
+		}
+	}
+}
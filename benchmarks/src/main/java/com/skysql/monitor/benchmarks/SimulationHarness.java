@@ -0,0 +1,120 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.skysql.monitor.ClusterMonitor;
+import com.skysql.monitor.Clock;
+import com.skysql.monitor.Node;
+
+/**
+ * Deterministic simulation of the probe cycles: the ClusterMonitor of each
+ * system runs its cycles one after the other on stand-in nodes without
+ * latency, and a SimulatedClock moves by the cycle interval in between. Hours
+ * of monitoring, with the caches and the Galera update thresholds seeing
+ * the simulated time, run in seconds.
+ *
+ * Usage: SimulationHarness [name=value ...] with
+ *
+ * systems		the number of systems, 1 by default
+ * nodes		the nodes of each system, 3 by default
+ * cycles		the number of cycles, 10000 by default
+ * interval		the interval of the monitors in seconds, 30 by default
+ * size			the status values and variables of each node, 500 by default
+ * failures		the probability that a statement fails, 0 by default
+ */
+public class SimulationHarness {
+	/**
+	 * The system IDs start after those of the load harness.
+	 */
+	private static final int	FIRST_ID = 100000;
+	/**
+	 * The longest time to wait for the nodes to connect. Unit: milliseconds.
+	 */
+	private static final long	CONNECT_WAIT = 10000L;
+
+	public static void main(String[] args) throws Exception {
+		int systems = 1, nodes = 3, interval = 30, size = 500;
+		long cycles = 10000;
+		double failures = 0.0;
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg : arg.substring(0, eq);
+			String value = eq < 0 ? "" : arg.substring(eq + 1);
+			if (name.equals("systems")) systems = Integer.parseInt(value);
+			else if (name.equals("nodes")) nodes = Integer.parseInt(value);
+			else if (name.equals("cycles")) cycles = Long.parseLong(value);
+			else if (name.equals("interval")) interval = Integer.parseInt(value);
+			else if (name.equals("size")) size = Integer.parseInt(value);
+			else if (name.equals("failures")) failures = Double.parseDouble(value);
+			else throw new IllegalArgumentException("Unknown option " + name);
+		}
+		SimulatedClock clock = new SimulatedClock(System.currentTimeMillis());
+		Clock.set(clock);
+		StandInDatabase database = new StandInDatabase(nodes, size, 0, 0, failures, 0.0);
+		Node.setConnectionFactory(database);
+
+		List<ClusterMonitor> monitors = new ArrayList<ClusterMonitor>(systems);
+		for (int i = 0; i < systems; i++) {
+			int systemID = FIRST_ID + i;
+			monitors.add(new ClusterMonitor(new RecordingMonData(systemID, nodes, interval), systemID, false));
+		}
+		// The first cycle creates the nodes, which connect in the background
+		for (ClusterMonitor monitor : monitors) {
+			monitor.runCycle(0);
+		}
+		long deadline = System.currentTimeMillis() + CONNECT_WAIT;
+		while (database.getConnections() < (long) systems * nodes && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		long step = monitors.get(0).getCycleInterval() * 1000L;
+		clock.advance(step);
+
+		long statements = database.getStatements();
+		long values = RecordingMonData.getValues();
+		Map<String, Long> calls = RecordingMonData.getCalls();
+		long simulatedStart = clock.currentTimeMillis();
+		long start = System.nanoTime();
+		for (long cycle = 1; cycle <= cycles; cycle++) {
+			for (ClusterMonitor monitor : monitors) {
+				monitor.runCycle(cycle);
+			}
+			clock.advance(step);
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		double hours = (clock.currentTimeMillis() - simulatedStart) / 3600000.0;
+		statements = database.getStatements() - statements;
+		values = RecordingMonData.getValues() - values;
+
+		System.out.printf("%d systems of %d nodes, %d cycles of %d s: %.1f simulated hours in %.2f s, %.0f cycles/s%n",
+				systems, nodes, cycles, step / 1000, hours, elapsed, cycles * systems / elapsed);
+		System.out.printf("statements %.1f per system cycle, values %.1f per system cycle%n",
+				(double) statements / cycles / systems, (double) values / cycles / systems);
+		System.out.println("API calls per simulated hour:");
+		for (Map.Entry<String, Long> entry : RecordingMonData.getCalls().entrySet()) {
+			Long before = calls.get(entry.getKey());
+			long count = entry.getValue() - (before == null ? 0L : before);
+			System.out.printf("  %-28s %.1f%n", entry.getKey(), count / hours);
+		}
+		System.exit(0);
+	}
+}
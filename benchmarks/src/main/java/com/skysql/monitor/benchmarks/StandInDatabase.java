@@ -0,0 +1,323 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+
+package com.skysql.monitor.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.skysql.java.MonData;
+import com.skysql.monitor.Node;
+
+/**
+ * In-process stand-ins of the monitored MariaDB Galera servers, plugged
+ * into the nodes with Node.setConnectionFactory. The connections are JDBC
+ * dynamic proxies that answer the statements of the Monitor from generated
+ * global status and variables, with the wsrep values of a healthy cluster
+ * of the given size.
+ *
+ * Every statement waits for the configured latency, plus a random jitter.
+ * A statement may fail, or hang until its query timeout, with the given
+ * probabilities; a connection may be refused the same way.
+ */
+public class StandInDatabase implements Node.ConnectionFactory {
+	/**
+	 * The name in show ... like 'name'.
+	 */
+	private static final Pattern	LIKE = Pattern.compile("(?i)like\\s+'([^']+)'");
+	/**
+	 * The name in ... variable_name = 'name'.
+	 */
+	private static final Pattern	VARIABLE_NAME = Pattern.compile("(?i)variable_name\\s*=\\s*'([^']+)'");
+	/**
+	 * The number of nodes of each system.
+	 */
+	private final int				m_nodes;
+	/**
+	 * The number of status values and of variables of each server.
+	 */
+	private final int				m_size;
+	/**
+	 * The latency of a statement, in milliseconds.
+	 */
+	private final int				m_latency;
+	/**
+	 * The random extra latency of a statement, in milliseconds.
+	 */
+	private final int				m_jitter;
+	/**
+	 * The probability that a statement or a connection fails.
+	 */
+	private final double			m_failureRate;
+	/**
+	 * The probability that a statement hangs until its query timeout.
+	 */
+	private final double			m_hangRate;
+	/**
+	 * The servers, keyed by system and Node ID.
+	 */
+	private final ConcurrentHashMap<String, Server>	m_servers = new ConcurrentHashMap<String, Server>();
+	/**
+	 * The statements run.
+	 */
+	private final AtomicLong		m_statements = new AtomicLong();
+	/**
+	 * The connections opened.
+	 */
+	private final AtomicLong		m_connections = new AtomicLong();
+
+	/**
+	 * Constructor for the stand-in servers.
+	 *
+	 * @param nodes			the number of nodes of each system
+	 * @param size			the number of status values and of variables of each server
+	 * @param latency		the latency of a statement, in milliseconds
+	 * @param jitter		the random extra latency of a statement, in milliseconds
+	 * @param failureRate	the probability that a statement or a connection fails
+	 * @param hangRate		the probability that a statement hangs until its timeout
+	 */
+	public StandInDatabase(int nodes, int size, int latency, int jitter, double failureRate, double hangRate) {
+		m_nodes = nodes;
+		m_size = size;
+		m_latency = latency;
+		m_jitter = jitter;
+		m_failureRate = failureRate;
+		m_hangRate = hangRate;
+	}
+
+	/**
+	 * @return	the number of statements run
+	 */
+	public long getStatements() {
+		return m_statements.get();
+	}
+
+	/**
+	 * @return	the number of connections opened
+	 */
+	public long getConnections() {
+		return m_connections.get();
+	}
+
+	/**
+	 * Open a connection to the stand-in server of a Node.
+	 *
+	 * @see com.skysql.monitor.Node.ConnectionFactory#connect(com.skysql.java.MonData, int, int, java.lang.String)
+	 */
+	public Connection connect(MonData confdb, int systemID, int nodeNo, String url) throws Exception {
+		String key = systemID + ":" + nodeNo;
+		Server server = m_servers.get(key);
+		if (server == null) {
+			Server created = new Server(systemID, nodeNo);
+			server = m_servers.putIfAbsent(key, created);
+			if (server == null) server = created;
+		}
+		delay();
+		if (ThreadLocalRandom.current().nextDouble() < m_failureRate) {
+			throw new SQLException("Connection refused by stand-in server " + key);
+		}
+		m_connections.incrementAndGet();
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(server));
+	}
+
+	/**
+	 * Wait for the latency of a statement.
+	 */
+	private void delay() throws InterruptedException {
+		int wait = m_latency + (m_jitter > 0 ? ThreadLocalRandom.current().nextInt(m_jitter) : 0);
+		if (wait > 0) Thread.sleep(wait);
+	}
+
+	/**
+	 * The address of a Node of a system of the stand-in.
+	 */
+	static String address(int systemID, int nodeNo) {
+		return "10." + (systemID / 250) + "." + (systemID % 250) + "." + nodeNo;
+	}
+
+	/**
+	 * A stand-in server: its status and variables.
+	 */
+	private class Server {
+		private final HashMap<String, String>	m_status;
+		private final HashMap<String, String>	m_variables;
+		private long							m_queries;
+
+		Server(int systemID, int nodeNo) {
+			StandInNode data = new StandInNode(systemID, nodeNo, m_size);
+			m_status = data.fetchTable("show global status");
+			m_variables = data.fetchTable("show global variables");
+			StringBuilder incoming = new StringBuilder();
+			for (int i = 0; i < m_nodes; i++) {
+				if (i > 0) incoming.append(',');
+				incoming.append(address(systemID, i + 1)).append(":3306");
+			}
+			String uuid = "00000000-0000-0000-0000-" + String.format("%012d", systemID);
+			m_status.put("wsrep_local_state", "4");
+			m_status.put("wsrep_cluster_size", Integer.toString(m_nodes));
+			m_status.put("wsrep_cluster_conf_id", Integer.toString(m_nodes));
+			m_status.put("wsrep_local_state_uuid", uuid);
+			m_status.put("wsrep_cluster_state_uuid", uuid);
+			m_status.put("wsrep_incoming_addresses", incoming.toString());
+			m_status.put("threads_running", "2");
+			m_status.put("wsrep_flow_control_paused", "0.000000");
+			m_variables.put("version_comment", "MariaDB Galera Cluster");
+		}
+
+		/**
+		 * The rows answering a statement.
+		 */
+		synchronized String[][] answer(String sql) {
+			String lower = sql.toLowerCase();
+			m_status.put("queries", Long.toString(++m_queries * 137));
+			if (lower.startsWith("show global status") && lower.indexOf("like") < 0) {
+				return rows(m_status);
+			}
+			if (lower.startsWith("show global variables") && lower.indexOf("like") < 0) {
+				return rows(m_variables);
+			}
+			Matcher like = LIKE.matcher(sql);
+			if (like.find()) {
+				String name = like.group(1).toLowerCase();
+				return new String[][] { { name, value(name) } };
+			}
+			Matcher variable = VARIABLE_NAME.matcher(sql);
+			if (variable.find()) {
+				return new String[][] { { value(variable.group(1).toLowerCase()) } };
+			}
+			return new String[][] { { "1" } };
+		}
+
+		/**
+		 * The value of a status value or a variable.
+		 */
+		private String value(String name) {
+			String value = m_status.get(name);
+			return value != null ? value : m_variables.get(name);
+		}
+
+		/**
+		 * A table as the rows of a result set.
+		 */
+		private String[][] rows(HashMap<String, String> table) {
+			String[][] rows = new String[table.size()][];
+			int i = 0;
+			for (Map.Entry<String, String> entry : table.entrySet()) {
+				rows[i++] = new String[] { entry.getKey().toUpperCase(), entry.getValue() };
+			}
+			return rows;
+		}
+	}
+
+	/**
+	 * A connection to a stand-in server.
+	 */
+	private class ConnectionHandler implements InvocationHandler {
+		private final Server	m_server;
+		private volatile boolean	m_closed;
+
+		ConnectionHandler(Server server) {
+			m_server = server;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("createStatement")) {
+				if (m_closed) throw new SQLException("Connection closed");
+				return Proxy.newProxyInstance(getClass().getClassLoader(),
+						new Class<?>[] { Statement.class }, new StatementHandler(m_server));
+			} else if (name.equals("close")) {
+				m_closed = true;
+				return null;
+			} else if (name.equals("isClosed")) {
+				return m_closed;
+			} else if (name.equals("isValid")) {
+				return ! m_closed;
+			}
+			return defaultValue(proxy, method, args);
+		}
+	}
+
+	/**
+	 * A statement on a stand-in server.
+	 */
+	private class StatementHandler implements InvocationHandler {
+		private final Server	m_server;
+		private int				m_timeout;
+
+		StatementHandler(Server server) {
+			m_server = server;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("setQueryTimeout")) {
+				m_timeout = (Integer) args[0];
+				return null;
+			} else if (name.equals("executeQuery")) {
+				m_statements.incrementAndGet();
+				double dice = ThreadLocalRandom.current().nextDouble();
+				if (dice < m_hangRate) {
+					Thread.sleep(m_timeout > 0 ? m_timeout * 1000L : 60000L);
+					throw new SQLTimeoutException("Query timed out on the stand-in server");
+				}
+				delay();
+				if (dice < m_hangRate + m_failureRate) {
+					throw new SQLException("Query failed on the stand-in server");
+				}
+				return StandInResultSet.create(m_server.answer((String) args[0]));
+			} else if (name.equals("close")) {
+				return null;
+			}
+			return defaultValue(proxy, method, args);
+		}
+	}
+
+	/**
+	 * The answer of the proxies to the methods the Monitor does not use.
+	 */
+	private static Object defaultValue(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (name.equals("hashCode")) return System.identityHashCode(proxy);
+		if (name.equals("equals")) return proxy == args[0];
+		if (name.equals("toString")) return "StandIn" + method.getDeclaringClass().getSimpleName();
+		Class<?> type = method.getReturnType();
+		if (type == Void.TYPE) return null;
+		if (type == Boolean.TYPE) return Boolean.FALSE;
+		if (type == Integer.TYPE) return 0;
+		if (type == Long.TYPE) return 0L;
+		if (type.isPrimitive()) {
+			throw new InvocationTargetException(new UnsupportedOperationException(name));
+		}
+		return null;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.HashMap;
+
+import com.skysql.monitor.Node;
+
+/**
+ * A Node that answers from generated global status and variables rather
+ * than from a database, so that the benchmarks run offline.
+ *
+ * The status counters increase at every fetch, as they do on a live
+ * server, so that delta computations see realistic values.
+ */
+public class StandInNode extends Node {
+	/**
+	 * Real names, so that the hash distribution of the maps is realistic.
+	 * The rest of the names are generated.
+	 */
+	static final String[]	STATUS_NAMES = {
+		"aborted_clients", "aborted_connects", "bytes_received", "bytes_sent",
+		"com_select", "com_insert", "com_update", "com_delete", "com_commit",
+		"connections", "created_tmp_disk_tables", "created_tmp_tables",
+		"handler_read_first", "handler_read_key", "handler_read_rnd_next",
+		"innodb_buffer_pool_pages_free", "innodb_buffer_pool_read_requests",
+		"innodb_buffer_pool_reads", "innodb_data_read", "innodb_data_written",
+		"innodb_row_lock_waits", "innodb_rows_read", "innodb_rows_inserted",
+		"key_reads", "key_read_requests", "open_tables", "opened_tables",
+		"qcache_hits", "queries", "questions", "select_full_join",
+		"slow_queries", "sort_merge_passes", "table_locks_waited",
+		"threads_cached", "threads_connected", "threads_created",
+		"threads_running", "uptime", "wsrep_cluster_conf_id",
+		"wsrep_cluster_size", "wsrep_cluster_state_uuid", "wsrep_cluster_status",
+		"wsrep_flow_control_paused", "wsrep_incoming_addresses",
+		"wsrep_local_recv_queue_avg", "wsrep_local_send_queue_avg",
+		"wsrep_local_state", "wsrep_local_state_comment", "wsrep_local_state_uuid",
+		"wsrep_ready", "wsrep_received", "wsrep_replicated"
+	};
+	/**
+	 * Real variable names, the rest are generated.
+	 */
+	static final String[]	VARIABLE_NAMES = {
+		"autocommit", "binlog_format", "character_set_server", "datadir",
+		"innodb_buffer_pool_size", "innodb_flush_log_at_trx_commit",
+		"innodb_log_file_size", "key_buffer_size", "max_connections",
+		"query_cache_size", "server_id", "sort_buffer_size", "table_open_cache",
+		"thread_cache_size", "tmp_table_size", "version", "version_comment",
+		"wsrep_cluster_address", "wsrep_cluster_name", "wsrep_node_address",
+		"wsrep_on", "wsrep_provider", "wsrep_slave_threads", "wsrep_sst_method"
+	};
+	/**
+	 * The global status, as returned by the server.
+	 */
+	private final HashMap<String, String>	m_status;
+	/**
+	 * The global variables, as returned by the server.
+	 */
+	private final HashMap<String, String>	m_variables;
+	/**
+	 * The number of fetches of the status.
+	 */
+	private long							m_fetches;
+
+	/**
+	 * Constructor for the stand-in Node.
+	 *
+	 * @param systemID	the system ID
+	 * @param nodeNo	the Node ID
+	 * @param size		the number of status values, and of variables
+	 */
+	public StandInNode(int systemID, int nodeNo, int size) {
+		super(systemID, nodeNo, "10.0." + (nodeNo / 250) + "." + (nodeNo % 250 + 1));
+		m_status = generate(STATUS_NAMES, "status_", size, true);
+		m_variables = generate(VARIABLE_NAMES, "variable_", size, false);
+		m_status.put("wsrep_local_state", "4");
+		m_status.put("wsrep_cluster_size", "3");
+		m_variables.put("version", "5.5.34-MariaDB-wsrep");
+	}
+
+	/**
+	 * Generate a table of names and values.
+	 */
+	private static HashMap<String, String> generate(String[] names, String prefix, int size, boolean numeric) {
+		HashMap<String, String> table = new HashMap<String, String>(size * 2);
+		for (int i = 0; i < size; i++) {
+			String name = i < names.length ? names[i] : prefix + i;
+			table.put(name, numeric ? Long.toString(1000L * i + 7) : "value_" + i);
+		}
+		return table;
+	}
+
+	/**
+	 * @return the names of the status values
+	 */
+	public String[] getStatusNames() {
+		return m_status.keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * @return the names of the variables
+	 */
+	public String[] getVariableNames() {
+		return m_variables.keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * @return the table as rows of a result set
+	 */
+	public String[][] getRows(boolean variables) {
+		HashMap<String, String> table = variables ? m_variables : m_status;
+		String[][] rows = new String[table.size()][];
+		int i = 0;
+		for (String name : table.keySet()) {
+			rows[i++] = new String[] { name.toUpperCase(), table.get(name) };
+		}
+		return rows;
+	}
+
+	/**
+	 * Return a copy of the status or the variables, as the server would.
+	 */
+	public HashMap<String, String> fetchTable(String sql) {
+		if (sql.toLowerCase().indexOf("variables") >= 0) {
+			return new HashMap<String, String>(m_variables);
+		}
+		m_fetches++;
+		m_status.put("queries", Long.toString(m_fetches * 137));
+		return new HashMap<String, String>(m_status);
+	}
+
+	/**
+	 * Return the value of the Galera state.
+	 */
+	public String execute(String sql) {
+		return m_status.get("wsrep_local_state");
+	}
+
+	public boolean isConnected() {
+		return true;
+	}
+
+	/**
+	 * The stand-in answers the burst samples itself.
+	 */
+	public Node getSampleLane() {
+		return this;
+	}
+}
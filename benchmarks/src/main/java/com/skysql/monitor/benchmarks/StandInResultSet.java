@@ -0,0 +1,78 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * A JDBC ResultSet over rows held in memory, built as a dynamic proxy so
+ * that no JDBC driver is needed. Only the cursor movements and getString
+ * are implemented, which is all the Node uses.
+ */
+public class StandInResultSet implements InvocationHandler {
+	/**
+	 * The rows, each an array of column values.
+	 */
+	private final String[][]	m_rows;
+	/**
+	 * The current row, -1 before the first.
+	 */
+	private int					m_row;
+
+	private StandInResultSet(String[][] rows) {
+		m_rows = rows;
+		m_row = -1;
+	}
+
+	/**
+	 * Create a result set over some rows.
+	 *
+	 * @param rows	the rows, each an array of column values
+	 * @return	the result set, positioned before the first row
+	 */
+	public static ResultSet create(String[][] rows) {
+		return (ResultSet) Proxy.newProxyInstance(StandInResultSet.class.getClassLoader(),
+				new Class<?>[] { ResultSet.class }, new StandInResultSet(rows));
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+		if (name.equals("next")) {
+			return ++m_row < m_rows.length;
+		} else if (name.equals("first")) {
+			m_row = 0;
+			return m_rows.length > 0;
+		} else if (name.equals("getString") && args[0] instanceof Integer) {
+			return m_rows[m_row][(Integer) args[0] - 1];
+		} else if (name.equals("close")) {
+			return null;
+		} else if (name.equals("isClosed") || name.equals("wasNull")) {
+			return false;
+		} else if (name.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		} else if (name.equals("equals")) {
+			return proxy == args[0];
+		} else if (name.equals("toString")) {
+			return "StandInResultSet[" + m_rows.length + " rows]";
+		}
+		throw new UnsupportedOperationException(name);
+	}
+}
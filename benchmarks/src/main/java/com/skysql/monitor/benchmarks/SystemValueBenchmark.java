@@ -0,0 +1,92 @@
+/*
+ * This file is distributed as part of the MariaDB Manager.  It is free
+ * software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation,
+ * version 2.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Copyright 2026 SkySQL Corporation Ab
+ */
+package com.skysql.monitor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.skysql.monitor.ClusterMonitor;
+import com.skysql.monitor.SystemAggregator;
+
+/**
+ * The system value of a Monitor, as computed by the ClusterMonitor at each
+ * cycle: the values of the nodes are parsed into a SystemAggregator, and the
+ * aggregate is formatted with a cached DecimalFormat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SystemValueBenchmark {
+	@Param({"3", "9", "32"})
+	int nodes;
+
+	private String[]			m_values;
+	private SystemAggregator	m_aggregator;
+
+	@Setup
+	public void setup() {
+		m_aggregator = new SystemAggregator();
+		m_values = new String[nodes];
+		for (int i = 0; i < nodes; i++) {
+			m_values[i] = i % 2 == 0 ? Integer.toString(1200 + i * 7) : Double.toString(3.25 * i);
+		}
+	}
+
+	private String aggregate(SystemAggregator.Aggregation aggregation) {
+		m_aggregator.reset();
+		for (String v : m_values) {
+			m_aggregator.add(Double.parseDouble(v));
+		}
+		return ClusterMonitor.formatSystemValue(m_aggregator.getValue(aggregation),
+				aggregation == SystemAggregator.Aggregation.AVG);
+	}
+
+	@Benchmark
+	public String sum() {
+		return aggregate(SystemAggregator.Aggregation.SUM);
+	}
+
+	@Benchmark
+	public String average() {
+		return aggregate(SystemAggregator.Aggregation.AVG);
+	}
+
+	@Benchmark
+	public String p95() {
+		return aggregate(SystemAggregator.Aggregation.P95);
+	}
+
+	@Benchmark
+	public String formatSmall() {
+		return ClusterMonitor.formatSystemValue(3.14159, false);
+	}
+}